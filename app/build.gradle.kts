@@ -70,6 +70,11 @@ android {
     
 }
 
+// 把 ./gradlew test -Dbenchmarks=true 传给测试进程，否则基准测试会被跳过
+tasks.withType<Test> {
+    systemProperty("benchmarks", System.getProperty("benchmarks") ?: "false")
+}
+
 fun getAppName(): String {
     val stringsFile = file("src/main/res/values/strings.xml")
     val parsedXml = org.xmlpull.v1.XmlPullParserFactory.newInstance().newPullParser().apply {
@@ -121,6 +126,7 @@ dependencies {
     // 数据解析与序列化
     implementation("com.google.code.gson:gson:2.13.1")                // JSON解析
     implementation("org.ini4j:ini4j:0.5.4")                           // INI文件解析
+    implementation("com.knuddels:jtokkit:1.1.0")                      // OpenAI BPE token计数
 
     // 工具库
     implementation("com.google.guava:guava:33.4.8-android")         // Google工具集合
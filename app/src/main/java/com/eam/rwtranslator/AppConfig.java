@@ -10,6 +10,8 @@ import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
+import com.eam.rwtranslator.data.job.TranslationWorker;
+import com.eam.rwtranslator.data.model.DataSet;
 import com.eam.rwtranslator.ui.main.MainActivity;
 import com.eam.rwtranslator.utils.CrashHandler;
 import com.eam.rwtranslator.utils.FileLoggingTree;
@@ -68,9 +70,26 @@ public class AppConfig extends Application {
         Timber.plant(new FileLoggingTree());
     }*/
         schedulePeriodicWork();
+        TranslationWorker.createNotificationChannel(this);
         CrashHandler.getInstance().init(this, true, true, 100, MainActivity.class);
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 内存紧张或界面转入后台时释放未使用的INI内容，再次访问时从项目缓存加载
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            int released = DataSet.releaseUnusedContent();
+            Timber.d("onTrimMemory(%d): released %d ini files", level, released);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        DataSet.releaseUnusedContent();
+    }
+
     private void checkAndFlushLogs() {
         long size = logFile.length();
         if (size > 10240) {
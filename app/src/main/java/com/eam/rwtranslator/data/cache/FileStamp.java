@@ -0,0 +1,45 @@
+package com.eam.rwtranslator.data.cache;
+
+import com.eam.rwtranslator.utils.XxHash64;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * INI文件指纹：大小、修改时间和内容校验值。
+ *
+ * @param size         文件字节数
+ * @param lastModified 修改时间（毫秒）
+ * @param hash         内容的xxHash64值
+ */
+public record FileStamp(long size, long lastModified, long hash) {
+
+    /**
+     * 根据已读取的文件内容生成指纹，避免重复读盘。
+     */
+    public static FileStamp of(File file, byte[] content) {
+        return new FileStamp(content.length, file.lastModified(), XxHash64.hash(content));
+    }
+
+    /**
+     * 读取文件并生成指纹。
+     */
+    public static FileStamp read(File file) throws IOException {
+        return of(file, Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * 仅比较大小和修改时间，不读取文件内容。
+     */
+    public boolean matches(File file) {
+        return file.length() == size && file.lastModified() == lastModified;
+    }
+
+    /**
+     * 比较大小和内容哈希，忽略修改时间（如重新解压导致的时间变化）。
+     */
+    public boolean sameContent(FileStamp other) {
+        return other != null && other.size == size && other.hash == hash;
+    }
+}
@@ -0,0 +1,64 @@
+package com.eam.rwtranslator.data.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 项目文件指纹索引，与项目缓存放在一起，记录上次扫描时项目中每个INI文件（包括不含翻译键的文件）的指纹，
+ * 用于重新打开项目时找出变化、新增和删除的文件。
+ * <pre>
+ * magic:int version:int count:int { path:utf size:long lastModified:long hash:long }
+ * </pre>
+ */
+public final class FingerprintIndex {
+    private static final int MAGIC = 0x52574649; // "RWFI"
+    private static final int VERSION = 1;
+
+    private FingerprintIndex() {
+    }
+
+    public static Map<String, FileStamp> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a fingerprint index: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported fingerprint index version: " + version);
+            }
+            int count = in.readInt();
+            Map<String, FileStamp> stamps = new HashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                stamps.put(path, new FileStamp(in.readLong(), in.readLong(), in.readLong()));
+            }
+            return stamps;
+        }
+    }
+
+    public static void write(File file, Map<String, FileStamp> stamps) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(stamps.size());
+            for (Map.Entry<String, FileStamp> entry : stamps.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().size());
+                out.writeLong(entry.getValue().lastModified());
+                out.writeLong(entry.getValue().hash());
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
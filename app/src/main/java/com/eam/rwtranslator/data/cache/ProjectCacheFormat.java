@@ -0,0 +1,26 @@
+package com.eam.rwtranslator.data.cache;
+
+/**
+ * 项目缓存二进制格式定义，所有数值均为大端序。
+ * <pre>
+ * header   magic:int version:int fileCount:int recordsOffset:int stringsOffset:int indexOffset:int
+ * records  每个文件一条：sectionCount:int
+ *          { sectionName:ref pairCount:int
+ *            { key:ref value:ref langCount:int { suffix:ref value:ref } } }
+ * strings  count:int { length:int utf8:byte[length] }
+ * index    每个文件一项，定长：path:ref size:long lastModified:long hash:long
+ *          recordOffset:int recordLength:int sectionCount:int pairCount:int
+ * </pre>
+ * ref为字符串表下标，-1表示null。格式变化时必须增加VERSION，旧缓存会被丢弃并重新扫描。
+ */
+final class ProjectCacheFormat {
+    static final int MAGIC = 0x52575443; // "RWTC"
+    // 2: 内容哈希由CRC32改为xxHash64
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 6 * Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = 5 * Integer.BYTES + 3 * Long.BYTES;
+    static final int NULL_REF = -1;
+
+    private ProjectCacheFormat() {
+    }
+}
@@ -0,0 +1,174 @@
+package com.eam.rwtranslator.data.cache;
+
+import com.eam.rwtranslator.data.model.LangTable;
+import com.eam.rwtranslator.data.model.SectionModel;
+import com.eam.rwtranslator.utils.TranslationKeys;
+import com.eam.rwtranslator.utils.ini.RWIniFileLoader;
+
+import org.ini4j.Profile;
+import org.ini4j.Wini;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 项目缓存读取器。通过内存映射访问缓存文件，字符串在首次使用时才解码，
+ * 只读取索引即可得到文件列表，各文件的内容按需读取。
+ */
+public final class ProjectCacheReader {
+    private final ByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final List<CachedFile> files;
+
+    /**
+     * 缓存中的单个文件索引项。
+     *
+     * @param path         文件路径
+     * @param stamp        缓存写入时的文件指纹
+     * @param sectionCount 含可翻译条目的节数
+     * @param pairCount    可翻译条目数
+     */
+    public record CachedFile(String path, FileStamp stamp, int sectionCount, int pairCount,
+                             int recordOffset, int recordLength) {
+    }
+
+    private ProjectCacheReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < ProjectCacheFormat.HEADER_SIZE
+                || buffer.getInt(0) != ProjectCacheFormat.MAGIC) {
+            throw new IOException("Not a project cache file");
+        }
+        int version = buffer.getInt(4);
+        if (version != ProjectCacheFormat.VERSION) {
+            throw new IOException("Unsupported project cache version: " + version);
+        }
+        int fileCount = buffer.getInt(8);
+        int stringsOffset = buffer.getInt(16);
+        int indexOffset = buffer.getInt(20);
+
+        int stringCount = buffer.getInt(stringsOffset);
+        stringOffsets = new int[stringCount];
+        strings = new String[stringCount];
+        int position = stringsOffset + Integer.BYTES;
+        for (int i = 0; i < stringCount; i++) {
+            stringOffsets[i] = position;
+            position += Integer.BYTES + buffer.getInt(position);
+        }
+
+        List<CachedFile> entries = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            int base = indexOffset + i * ProjectCacheFormat.INDEX_ENTRY_SIZE;
+            FileStamp stamp = new FileStamp(buffer.getLong(base + 4), buffer.getLong(base + 12),
+                    buffer.getLong(base + 20));
+            entries.add(new CachedFile(string(buffer.getInt(base)), stamp, buffer.getInt(base + 36),
+                    buffer.getInt(base + 40), buffer.getInt(base + 28), buffer.getInt(base + 32)));
+        }
+        files = entries;
+    }
+
+    /**
+     * 打开缓存文件。文件损坏或版本不符时抛出IOException，调用方应丢弃缓存并重新扫描。
+     */
+    public static ProjectCacheReader open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 映射在通道关闭后依然有效
+            return new ProjectCacheReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException e) {
+            // 截断或损坏的数据会表现为越界等运行时异常
+            throw new IOException("Corrupted project cache: " + file.getName(), e);
+        }
+    }
+
+    public List<CachedFile> files() {
+        return files;
+    }
+
+    /**
+     * 读取单个文件的节与可翻译条目，节顺序与写入时一致。
+     */
+    public Map<String, List<SectionModel.Pair>> readSections(CachedFile file) throws IOException {
+        try {
+            int position = file.recordOffset();
+            int sectionCount = buffer.getInt(position);
+            position += Integer.BYTES;
+            Map<String, List<SectionModel.Pair>> sections = new LinkedHashMap<>(sectionCount * 2);
+            LangTable langTable = new LangTable(file.pairCount());
+            for (int s = 0; s < sectionCount; s++) {
+                String sectionName = string(buffer.getInt(position));
+                int pairCount = buffer.getInt(position + 4);
+                position += 2 * Integer.BYTES;
+                List<SectionModel.Pair> pairs = new ArrayList<>(pairCount);
+                for (int p = 0; p < pairCount; p++) {
+                    String keyName = string(buffer.getInt(position));
+                    TranslationKeys key = keyName == null ? null : TranslationKeys.fromKeyName(keyName, keyName.length());
+                    String value = string(buffer.getInt(position + 4));
+                    int langCount = buffer.getInt(position + 8);
+                    position += 3 * Integer.BYTES;
+                    // 翻译键被移除时跳过旧缓存中的条目
+                    if (key == null) {
+                        position += langCount * 2 * Integer.BYTES;
+                        continue;
+                    }
+                    SectionModel.Pair pair = new SectionModel.Pair(langTable, key, value);
+                    Map<String, String> langPairs = pair.getLang_pairs();
+                    for (int l = 0; l < langCount; l++) {
+                        langPairs.put(string(buffer.getInt(position)), string(buffer.getInt(position + 4)));
+                        position += 2 * Integer.BYTES;
+                    }
+                    pairs.add(pair);
+                }
+                if (!pairs.isEmpty()) {
+                    sections.put(sectionName, pairs);
+                }
+            }
+            return sections;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted project cache record: " + file.path(), e);
+        }
+    }
+
+    /**
+     * 根据缓存内容构建只含可翻译键及其多语言键的Wini，保存时再按需解析源文件。
+     */
+    public Wini readIni(CachedFile file) throws IOException {
+        Wini wini = RWIniFileLoader.createEmpty();
+        wini.setFile(new File(file.path()));
+        for (Map.Entry<String, List<SectionModel.Pair>> entry : readSections(file).entrySet()) {
+            Profile.Section section = wini.add(entry.getKey());
+            for (SectionModel.Pair pair : entry.getValue()) {
+                String keyName = pair.getKey().getKeyName();
+                section.put(keyName, pair.getOri_val());
+                for (Map.Entry<String, String> lang : pair.getLang_pairs().entrySet()) {
+                    section.put(keyName + '_' + lang.getKey(), lang.getValue());
+                }
+            }
+        }
+        return wini;
+    }
+
+    private String string(int ref) {
+        if (ref == ProjectCacheFormat.NULL_REF) {
+            return null;
+        }
+        String value = strings[ref];
+        if (value == null) {
+            int offset = stringOffsets[ref];
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + Integer.BYTES);
+            view.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[ref] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,123 @@
+package com.eam.rwtranslator.data.cache;
+
+import com.eam.rwtranslator.data.model.SectionModel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 项目缓存写入器。先收集各文件的可翻译内容，再一次性写出，字符串在整个缓存内去重。
+ * 格式见 {@link ProjectCacheFormat}。
+ */
+public final class ProjectCacheWriter {
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(records);
+    private final List<IndexEntry> index = new ArrayList<>();
+
+    private record IndexEntry(int pathRef, FileStamp stamp, int recordOffset, int recordLength,
+                              int sectionCount, int pairCount) {
+    }
+
+    /**
+     * 添加一个文件的缓存记录。
+     *
+     * @param path     文件路径
+     * @param stamp    文件指纹
+     * @param sections 节名到可翻译条目的映射
+     */
+    public void addFile(String path, FileStamp stamp, Map<String, List<SectionModel.Pair>> sections)
+            throws IOException {
+        int offset = recordOut.size();
+        int pairCount = 0;
+        recordOut.writeInt(sections.size());
+        for (Map.Entry<String, List<SectionModel.Pair>> section : sections.entrySet()) {
+            recordOut.writeInt(intern(section.getKey()));
+            recordOut.writeInt(section.getValue().size());
+            for (SectionModel.Pair pair : section.getValue()) {
+                recordOut.writeInt(intern(pair.getKey().getKeyName()));
+                recordOut.writeInt(intern(pair.getOri_val()));
+                Map<String, String> langPairs = pair.getLang_pairs();
+                recordOut.writeInt(langPairs.size());
+                for (Map.Entry<String, String> lang : langPairs.entrySet()) {
+                    recordOut.writeInt(intern(lang.getKey()));
+                    recordOut.writeInt(intern(lang.getValue()));
+                }
+                pairCount++;
+            }
+        }
+        index.add(new IndexEntry(intern(path), stamp, offset, recordOut.size() - offset,
+                sections.size(), pairCount));
+    }
+
+    /**
+     * 写出缓存。先写临时文件再替换，写入中断不会留下半个缓存。
+     */
+    public void writeTo(File target) throws IOException {
+        byte[][] encoded = new byte[strings.size()][];
+        int stringsLength = Integer.BYTES;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringsLength += Integer.BYTES + encoded[i].length;
+        }
+        int recordsOffset = ProjectCacheFormat.HEADER_SIZE;
+        int stringsOffset = recordsOffset + recordOut.size();
+        int indexOffset = stringsOffset + stringsLength;
+
+        File temp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(ProjectCacheFormat.MAGIC);
+            out.writeInt(ProjectCacheFormat.VERSION);
+            out.writeInt(index.size());
+            out.writeInt(recordsOffset);
+            out.writeInt(stringsOffset);
+            out.writeInt(indexOffset);
+
+            records.writeTo(out);
+
+            out.writeInt(encoded.length);
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            for (IndexEntry entry : index) {
+                out.writeInt(entry.pathRef());
+                out.writeLong(entry.stamp().size());
+                out.writeLong(entry.stamp().lastModified());
+                out.writeLong(entry.stamp().hash());
+                out.writeInt(recordsOffset + entry.recordOffset());
+                out.writeInt(entry.recordLength());
+                out.writeInt(entry.sectionCount());
+                out.writeInt(entry.pairCount());
+            }
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return ProjectCacheFormat.NULL_REF;
+        }
+        Integer ref = stringRefs.get(value);
+        if (ref == null) {
+            ref = strings.size();
+            strings.add(value);
+            stringRefs.put(value, ref);
+        }
+        return ref;
+    }
+}
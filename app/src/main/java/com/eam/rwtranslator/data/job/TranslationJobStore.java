@@ -0,0 +1,349 @@
+package com.eam.rwtranslator.data.job;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import com.eam.rwtranslator.AppConfig;
+import com.eam.rwtranslator.utils.PlaceholderVerifier;
+import com.eam.rwtranslator.utils.Translator;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import timber.log.Timber;
+
+/**
+ * 持久化的后台翻译任务队列：每个任务保存待翻译的条目（文件、分组、键、遮罩后的原文）及各条目的状态，
+ * 译文到达后分批写入，进程被杀或重启后从未完成的条目继续。
+ * 占位符校验未通过的条目保持待翻译状态并累计请求次数，任务的校验统计随结果一起保存。
+ * 结果在界面重新打开项目时写回INI模型，写回后任务即被删除。
+ */
+public final class TranslationJobStore {
+    private static final String DATABASE_NAME = "translation_jobs.db";
+    private static final int DATABASE_VERSION = 3;
+    private static final String JOBS = "jobs";
+    private static final String ITEMS = "items";
+
+    public static final int STATE_PENDING = 0;
+    public static final int STATE_DONE = 1;
+    public static final int STATE_FAILED = 2;
+
+    private static volatile TranslationJobStore instance;
+
+    private final Helper helper;
+    private final Gson gson = new Gson();
+
+    private static final String JOB_COLUMNS =
+            "id, project, override, provider, from_lang, to_lang, deepl_formality, created_at";
+
+    /**
+     * @param override 译文是否覆盖原文，否则写入目标语言的键
+     * @param settings 创建任务时的翻译设置，任务恢复时沿用
+     */
+    public record Job(String id, String project, boolean override, Translator.Settings settings, long createdAt) {
+    }
+
+    /**
+     * 一条待翻译的文本
+     * @param seq          条目在任务中的序号
+     * @param sectionIndex 分组在文件中的位置，写回时优先按位置定位
+     * @param itemIndex    键在分组中的位置
+     * @param masked       遮罩占位符后的原文，即实际发送的文本
+     * @param attempts     已请求的次数
+     */
+    public record Item(int seq, String file, int sectionIndex, int itemIndex, String section, String key,
+                       String original, String masked, int attempts) {
+    }
+
+    /**
+     * 单条翻译结果
+     * @param state       条目的新状态，STATE_PENDING表示占位符校验未通过、需要重新请求
+     * @param translation 还原占位符后的译文，失败或待重试时为null
+     * @param error       失败原因
+     * @param issue       占位符校验发现的问题
+     */
+    public record Outcome(int seq, int state, @Nullable String translation, @Nullable String targetLanguage,
+                          @Nullable String error, @Nullable PlaceholderVerifier.Issue issue) {
+
+        public static Outcome done(int seq, String translation, String targetLanguage) {
+            return new Outcome(seq, STATE_DONE, translation, targetLanguage, null, null);
+        }
+
+        public static Outcome failed(int seq, String error, @Nullable PlaceholderVerifier.Issue issue) {
+            return new Outcome(seq, STATE_FAILED, null, null, error, issue);
+        }
+
+        public static Outcome retry(int seq, PlaceholderVerifier.Issue issue) {
+            return new Outcome(seq, STATE_PENDING, null, null, null, issue);
+        }
+    }
+
+    /**
+     * 已完成的条目及其结果
+     */
+    public record Finished(Item item, Outcome outcome) {
+    }
+
+    public record Progress(int total, int done, int failed) {
+        public int completed() {
+            return done + failed;
+        }
+    }
+
+    private TranslationJobStore(Context context) {
+        helper = new Helper(context);
+    }
+
+    public static TranslationJobStore getInstance() {
+        if (instance == null) {
+            synchronized (TranslationJobStore.class) {
+                if (instance == null) {
+                    instance = new TranslationJobStore(AppConfig.applicationContext);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 新建任务，所有条目在同一事务中写入
+     * @return 任务ID
+     */
+    public String create(String project, boolean override, Translator.Settings settings, List<Item> items) {
+        String id = UUID.randomUUID().toString();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement("INSERT INTO " + ITEMS
+                + " (job_id, seq, file, section_index, item_index, section, key_name, original, masked, attempts, state)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + STATE_PENDING + ")")) {
+            ContentValues job = new ContentValues();
+            job.put("id", id);
+            job.put("project", project);
+            job.put("override", override ? 1 : 0);
+            job.put("provider", settings.provider());
+            job.put("from_lang", settings.fromLanguage());
+            job.put("to_lang", settings.targetLanguage());
+            job.put("deepl_formality", settings.deepLFormality());
+            job.put("created_at", System.currentTimeMillis());
+            db.insertOrThrow(JOBS, null, job);
+            for (Item item : items) {
+                insert.bindString(1, id);
+                insert.bindLong(2, item.seq());
+                insert.bindString(3, item.file());
+                insert.bindLong(4, item.sectionIndex());
+                insert.bindLong(5, item.itemIndex());
+                insert.bindString(6, item.section());
+                insert.bindString(7, item.key());
+                insert.bindString(8, item.original());
+                insert.bindString(9, item.masked());
+                insert.bindLong(10, item.attempts());
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Timber.d("Created translation job %s with %d items", id, items.size());
+        return id;
+    }
+
+    @Nullable
+    public Job job(String id) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT " + JOB_COLUMNS + " FROM " + JOBS + " WHERE id = ?", new String[]{id})) {
+            return cursor.moveToFirst() ? readJob(cursor) : null;
+        }
+    }
+
+    /**
+     * 某个项目的所有任务，按创建时间排序
+     */
+    public List<Job> jobs(String project) {
+        List<Job> jobs = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT " + JOB_COLUMNS + " FROM " + JOBS + " WHERE project = ? ORDER BY created_at",
+                new String[]{project})) {
+            while (cursor.moveToNext()) jobs.add(readJob(cursor));
+        } catch (SQLException e) {
+            Timber.w(e, "Failed to list translation jobs");
+        }
+        return jobs;
+    }
+
+    public List<Item> pending(String jobId) {
+        return items(jobId, "state = " + STATE_PENDING, null);
+    }
+
+    /**
+     * 已完成（成功或失败）的条目及结果
+     */
+    public List<Finished> finished(String jobId) {
+        List<Finished> finished = new ArrayList<>();
+        items(jobId, "state != " + STATE_PENDING, finished);
+        return finished;
+    }
+
+    /**
+     * 写入一批结果及任务的校验统计，在同一事务中完成；每条结果计为一次请求
+     */
+    public void checkpoint(String jobId, List<Outcome> outcomes, PlaceholderVerifier.Report report) {
+        if (outcomes.isEmpty()) return;
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement update = db.compileStatement("UPDATE " + ITEMS
+                + " SET state = ?, translation = ?, target_lang = ?, error = ?, issue = ?, attempts = attempts + 1"
+                + " WHERE job_id = ? AND seq = ?")) {
+            for (Outcome outcome : outcomes) {
+                update.bindLong(1, outcome.state());
+                bindNullable(update, 2, outcome.translation());
+                bindNullable(update, 3, outcome.targetLanguage());
+                bindNullable(update, 4, outcome.error());
+                bindNullable(update, 5, outcome.issue() == null ? null : outcome.issue().name());
+                update.bindString(6, jobId);
+                update.bindLong(7, outcome.seq());
+                update.executeUpdateDelete();
+            }
+            ContentValues integrity = new ContentValues();
+            integrity.put("integrity", gson.toJson(report));
+            db.update(JOBS, integrity, "id = ?", new String[]{jobId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public Progress progress(String jobId) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*),"
+                + " SUM(state = " + STATE_DONE + "), SUM(state = " + STATE_FAILED + ")"
+                + " FROM " + ITEMS + " WHERE job_id = ?", new String[]{jobId})) {
+            cursor.moveToFirst();
+            return new Progress(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2));
+        }
+    }
+
+    /**
+     * 任务的占位符校验统计，尚未写入过结果时为空统计
+     */
+    public PlaceholderVerifier.Report integrity(String jobId) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT integrity FROM " + JOBS + " WHERE id = ?", new String[]{jobId})) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                PlaceholderVerifier.Report report = gson.fromJson(cursor.getString(0), PlaceholderVerifier.Report.class);
+                if (report != null) return report;
+            }
+        } catch (SQLException | JsonParseException e) {
+            Timber.w(e, "Failed to read integrity report of job %s", jobId);
+        }
+        return new PlaceholderVerifier.Report();
+    }
+
+    public void delete(String jobId) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(ITEMS, "job_id = ?", new String[]{jobId});
+            db.delete(JOBS, "id = ?", new String[]{jobId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<Item> items(String jobId, String condition, @Nullable List<Finished> finished) {
+        List<Item> items = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT seq, file, section_index, item_index,"
+                        + " section, key_name, original, masked, attempts, translation, target_lang, error, issue, state FROM " + ITEMS
+                        + " WHERE job_id = ? AND " + condition + " ORDER BY seq",
+                new String[]{jobId})) {
+            while (cursor.moveToNext()) {
+                Item item = new Item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2), cursor.getInt(3),
+                        cursor.getString(4), cursor.getString(5), cursor.getString(6), cursor.getString(7),
+                        cursor.getInt(8));
+                items.add(item);
+                if (finished != null) {
+                    String issue = stringOrNull(cursor, 12);
+                    finished.add(new Finished(item, new Outcome(item.seq(), cursor.getInt(13), stringOrNull(cursor, 9),
+                            stringOrNull(cursor, 10), stringOrNull(cursor, 11),
+                            issue == null ? null : PlaceholderVerifier.Issue.valueOf(issue))));
+                }
+            }
+        }
+        return items;
+    }
+
+    private static Job readJob(Cursor cursor) {
+        Translator.Settings settings = new Translator.Settings(cursor.getString(3), cursor.getString(4),
+                cursor.getString(5), cursor.getInt(6));
+        return new Job(cursor.getString(0), cursor.getString(1), cursor.getInt(2) != 0, settings, cursor.getLong(7));
+    }
+
+    private static String stringOrNull(Cursor cursor, int column) {
+        return cursor.isNull(column) ? null : cursor.getString(column);
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static final class Helper extends SQLiteOpenHelper {
+
+        Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            // 翻译线程写入结果时不阻塞界面查询进度
+            setWriteAheadLoggingEnabled(true);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + JOBS + " ("
+                    + "id TEXT PRIMARY KEY, "
+                    + "project TEXT NOT NULL, "
+                    + "override INTEGER NOT NULL, "
+                    + "provider TEXT NOT NULL, "
+                    + "from_lang TEXT NOT NULL, "
+                    + "to_lang TEXT NOT NULL, "
+                    + "deepl_formality INTEGER NOT NULL, "
+                    + "created_at INTEGER NOT NULL, "
+                    + "integrity TEXT)");
+            db.execSQL("CREATE TABLE " + ITEMS + " ("
+                    + "job_id TEXT NOT NULL, "
+                    + "seq INTEGER NOT NULL, "
+                    + "file TEXT NOT NULL, "
+                    + "section_index INTEGER NOT NULL, "
+                    + "item_index INTEGER NOT NULL, "
+                    + "section TEXT NOT NULL, "
+                    + "key_name TEXT NOT NULL, "
+                    + "original TEXT NOT NULL, "
+                    + "masked TEXT NOT NULL, "
+                    + "attempts INTEGER NOT NULL, "
+                    + "state INTEGER NOT NULL, "
+                    + "translation TEXT, "
+                    + "target_lang TEXT, "
+                    + "error TEXT, "
+                    + "issue TEXT, "
+                    + "PRIMARY KEY (job_id, seq)"
+                    + ") WITHOUT ROWID");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + ITEMS);
+            db.execSQL("DROP TABLE IF EXISTS " + JOBS);
+            onCreate(db);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.eam.rwtranslator.data.job;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.eam.rwtranslator.R;
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.utils.PlaceholderVerifier;
+import com.eam.rwtranslator.utils.TemplatePlaceholderProcessor;
+import com.eam.rwtranslator.utils.Translator;
+import com.eam.rwtranslator.utils.translator.ProviderScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * 在后台执行{@link TranslationJobStore}中的任务：只翻译尚未完成的条目，结果每隔一段时间写入一次，
+ * 被系统停止或进程被杀后由WorkManager重新调度并从断点继续。运行期间显示带取消按钮的进度通知。
+ * 每次写入前批量校验到达的译文的占位符，未通过的条目在本轮结束后单独重新请求，
+ * 请求{@link PlaceholderVerifier#MAX_ATTEMPTS}次仍未通过的记为失败。
+ */
+public class TranslationWorker extends Worker {
+    public static final String KEY_JOB_ID = "job_id";
+    public static final String KEY_TOTAL = "total";
+    public static final String KEY_COMPLETED = "completed";
+    public static final String KEY_FAILED = "failed";
+    public static final String KEY_STATS = "stats";
+    public static final String KEY_INTEGRITY = "integrity";
+
+    private static final String CHANNEL_ID = "translation_jobs";
+    private static final int REQUEST_NOTIFICATION_PERMISSION = 103;
+    private static final long CHECKPOINT_MILLIS = 1000;
+
+    public TranslationWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static String uniqueWorkName(String jobId) {
+        return "translation-" + jobId;
+    }
+
+    /**
+     * 提交任务，同一任务已在排队或运行时不重复提交
+     */
+    public static void enqueue(Context context, String jobId) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(TranslationWorker.class)
+                .setInputData(new Data.Builder().putString(KEY_JOB_ID, jobId).build())
+                .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(uniqueWorkName(jobId), ExistingWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context, String jobId) {
+        WorkManager.getInstance(context).cancelUniqueWork(uniqueWorkName(jobId));
+    }
+
+    /**
+     * 创建进度通知的渠道，在应用启动时调用一次
+     */
+    public static void createNotificationChannel(Context context) {
+        context.getSystemService(NotificationManager.class).createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                context.getString(R.string.translation_job_channel_name), NotificationManager.IMPORTANCE_LOW));
+    }
+
+    /**
+     * Android 13起显示进度通知需要运行时授权，提交任务前未授权时请求；拒绝后任务照常运行，只是没有通知
+     */
+    public static void requestNotificationPermission(Activity activity) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && activity.checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            activity.requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_NOTIFICATION_PERMISSION);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String jobId = getInputData().getString(KEY_JOB_ID);
+        TranslationJobStore store = TranslationJobStore.getInstance();
+        TranslationJobStore.Job job = jobId == null ? null : store.job(jobId);
+        if (job == null) {
+            Timber.w("Translation job %s no longer exists", jobId);
+            return Result.failure();
+        }
+        // 进程重启后AppSettings未必已初始化，且设置可能已被修改，始终使用任务创建时的设置
+        Translator.Settings settings = job.settings();
+        List<TranslationJobStore.Item> pending = store.pending(jobId);
+        TranslationJobStore.Progress progress = store.progress(jobId);
+        PlaceholderVerifier.Report integrity = store.integrity(jobId);
+        Timber.i("Running translation job %s: %d of %d items pending", jobId, pending.size(), progress.total());
+        report(progress, "");
+        String stats = "";
+        // 每一轮只请求仍待翻译的条目，包括上一轮校验未通过的
+        while (!pending.isEmpty()) {
+            stats = translateRound(store, jobId, settings, pending, integrity);
+            if (isStopped() || Thread.currentThread().isInterrupted()) {
+                Timber.i("Translation job %s stopped", jobId);
+                return Result.retry();
+            }
+            pending = store.pending(jobId);
+        }
+        Timber.i("Translation job %s finished, placeholder integrity: %s", jobId, integrity);
+        TranslationJobStore.Progress finished = store.progress(jobId);
+        return Result.success(new Data.Builder(progressData(finished, stats))
+                .putString(KEY_INTEGRITY, integrity.toString())
+                .build());
+    }
+
+    /**
+     * 翻译一轮条目并等待全部结果，期间定期写入
+     * @return 本轮的请求统计
+     */
+    private String translateRound(TranslationJobStore store, String jobId, Translator.Settings settings,
+                                  List<TranslationJobStore.Item> pending, PlaceholderVerifier.Report integrity) {
+        List<String> texts = new ArrayList<>(pending.size());
+        List<String> groups = new ArrayList<>(pending.size());
+        List<String> stale = new ArrayList<>();
+        for (TranslationJobStore.Item item : pending) {
+            texts.add(item.masked());
+            groups.add(item.file());
+            if (item.attempts() > 0) stale.add(item.masked());
+        }
+        if (!stale.isEmpty()) {
+            // 上次的译文没有通过校验却已写入翻译记忆，删除后才会重新发出请求
+            TranslationMemory.getInstance().remove(stale, Translator.memoryScope(
+                    settings.provider(), settings.fromLanguage(), settings.targetLanguage()));
+            Timber.i("Requesting %d translations of job %s again", stale.size(), jobId);
+        }
+        ConcurrentLinkedQueue<TranslationJobStore.Outcome> arrived = new ConcurrentLinkedQueue<>();
+        CountDownLatch remaining = new CountDownLatch(pending.size());
+        Translator.TranslationJob job = Translator.translateAll(settings, texts, groups, false,
+                new Translator.IndexedTranslateCallBack() {
+            @Override
+            public void onSuccess(int index, String translation, String sourceLanguage, String targetLanguage) {
+                // 译文先原样暂存，写入前统一校验
+                arrived.add(new TranslationJobStore.Outcome(index, TranslationJobStore.STATE_DONE, translation,
+                        targetLanguage, null, null));
+                remaining.countDown();
+            }
+
+            @Override
+            public void onError(int index, Throwable t) {
+                String message = t.getMessage() == null ? t.getClass().getSimpleName() : t.getMessage();
+                arrived.add(TranslationJobStore.Outcome.failed(index, message, null));
+                remaining.countDown();
+            }
+        });
+
+        try {
+            while (!remaining.await(CHECKPOINT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isStopped()) {
+                    job.cancel();
+                    break;
+                }
+                checkpoint(store, jobId, settings.provider(), pending, arrived, integrity, job);
+            }
+        } catch (InterruptedException e) {
+            job.cancel();
+            Thread.currentThread().interrupt();
+        }
+        // 停止前已到达的结果同样保存，下次从剩余条目继续
+        checkpoint(store, jobId, settings.provider(), pending, arrived, integrity, job);
+        return job.toString();
+    }
+
+    /**
+     * 校验并写入已到达的结果，结果中的序号是条目在本轮pending中的下标
+     */
+    private void checkpoint(TranslationJobStore store, String jobId, String provider,
+                            List<TranslationJobStore.Item> pending,
+                            ConcurrentLinkedQueue<TranslationJobStore.Outcome> arrived,
+                            PlaceholderVerifier.Report integrity, Translator.TranslationJob job) {
+        List<TranslationJobStore.Outcome> batch = new ArrayList<>();
+        TranslationJobStore.Outcome raw;
+        while ((raw = arrived.poll()) != null) {
+            TranslationJobStore.Item item = pending.get(raw.seq());
+            batch.add(raw.error() != null
+                    ? TranslationJobStore.Outcome.failed(item.seq(), raw.error(), null)
+                    : verify(item, raw, integrity));
+        }
+        if (batch.isEmpty()) return;
+        store.checkpoint(jobId, batch, integrity);
+        report(store.progress(jobId), job + "\n" + ProviderScheduler.getInstance().stats(provider));
+    }
+
+    private static TranslationJobStore.Outcome verify(TranslationJobStore.Item item, TranslationJobStore.Outcome raw,
+                                                      PlaceholderVerifier.Report integrity) {
+        int attempt = item.attempts() + 1;
+        PlaceholderVerifier.Issue issue = integrity.check(item.masked(), raw.translation(), attempt);
+        if (issue == null) {
+            try {
+                String restored = TemplatePlaceholderProcessor.restore(raw.translation(),
+                        TemplatePlaceholderProcessor.mask(item.original()));
+                return TranslationJobStore.Outcome.done(item.seq(), restored, raw.targetLanguage());
+            } catch (TemplatePlaceholderProcessor.PlaceholderMismatchException e) {
+                // 校验通过却无法还原时不再重试，记为失败，避免整个任务中断
+                Timber.w(e, "Unable to restore translation of item %d", item.seq());
+                return TranslationJobStore.Outcome.failed(item.seq(), e.getMessage(), null);
+            }
+        }
+        if (attempt < PlaceholderVerifier.MAX_ATTEMPTS) {
+            integrity.retried(1);
+            return TranslationJobStore.Outcome.retry(item.seq(), issue);
+        }
+        integrity.failed(issue);
+        return TranslationJobStore.Outcome.failed(item.seq(),
+                new PlaceholderVerifier.IntegrityException(issue).getMessage(), issue);
+    }
+
+    private void report(TranslationJobStore.Progress progress, String stats) {
+        setProgressAsync(progressData(progress, stats));
+        try {
+            setForegroundAsync(foregroundInfo(progress));
+        } catch (IllegalStateException e) {
+            // Android 12起后台无法启动前台服务，此时只更新进度
+            Timber.w(e, "Unable to show translation progress notification");
+        }
+    }
+
+    private static Data progressData(TranslationJobStore.Progress progress, String stats) {
+        return new Data.Builder()
+                .putInt(KEY_TOTAL, progress.total())
+                .putInt(KEY_COMPLETED, progress.completed())
+                .putInt(KEY_FAILED, progress.failed())
+                .putString(KEY_STATS, stats)
+                .build();
+    }
+
+    private ForegroundInfo foregroundInfo(TranslationJobStore.Progress progress) {
+        Context context = getApplicationContext();
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_web)
+                .setContentTitle(context.getString(R.string.translation_job_notification_title))
+                .setContentText(context.getString(R.string.translation_job_notification_progress,
+                        progress.completed(), progress.total()))
+                .setProgress(progress.total(), progress.completed(), false)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .addAction(R.drawable.ic_cancel, context.getString(android.R.string.cancel),
+                        WorkManager.getInstance(context).createCancelPendingIntent(getId()))
+                .build();
+        int notificationId = getId().hashCode();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(notificationId, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(notificationId, notification);
+    }
+}
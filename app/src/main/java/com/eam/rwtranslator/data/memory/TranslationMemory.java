@@ -0,0 +1,235 @@
+package com.eam.rwtranslator.data.memory;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import com.eam.rwtranslator.AppConfig;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * 持久化翻译记忆，按规范化原文、语言方向和翻译器/模型保存译文，应用重启后仍然有效。
+ * 所有翻译入口共用同一份记忆，重新翻译已翻译过的模组时不再产生网络请求。
+ * 数据库异常只记录日志，不影响翻译流程。
+ */
+public final class TranslationMemory {
+    private static final String DATABASE_NAME = "translation_memory.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE = "memory";
+    // SQLite旧版本单条语句最多999个参数，扣除作用域的3个
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+    private static final int HOT_CACHE_SIZE = 1000;
+
+    private static volatile TranslationMemory instance;
+
+    private final Helper helper;
+    // 热点条目，避免逐条翻译时反复查库
+    private final LruCache<String, Entry> hotEntries = new LruCache<>(HOT_CACHE_SIZE);
+
+    /**
+     * @param translation    译文
+     * @param sourceLanguage 翻译器检测到的源语言，可能为null
+     */
+    public record Entry(String translation, @Nullable String sourceLanguage) {
+    }
+
+    private TranslationMemory(Context context) {
+        helper = new Helper(context);
+    }
+
+    public static TranslationMemory getInstance() {
+        if (instance == null) {
+            synchronized (TranslationMemory.class) {
+                if (instance == null) {
+                    instance = new TranslationMemory(AppConfig.applicationContext);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Nullable
+    public Entry get(String source, TranslationScope scope) {
+        return lookup(List.of(source), scope).get(source);
+    }
+
+    /**
+     * 批量查询，返回原文到译文的映射，未命中的原文不在结果中
+     */
+    public Map<String, Entry> lookup(Collection<String> sources, TranslationScope scope) {
+        Map<String, Entry> found = new HashMap<>();
+        // 规范化原文 -> 对应的原始文本（可能有多个）
+        Map<String, List<String>> pending = new LinkedHashMap<>();
+        for (String source : sources) {
+            if (source == null || found.containsKey(source)) continue;
+            String normalized = TranslationScope.normalize(source);
+            Entry entry = hotEntries.get(scope.cacheKey(normalized));
+            if (entry != null) {
+                found.put(source, entry);
+            } else {
+                pending.computeIfAbsent(normalized, k -> new ArrayList<>(1)).add(source);
+            }
+        }
+        if (pending.isEmpty()) return found;
+
+        try {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            for (List<String> chunk : Lists.partition(new ArrayList<>(pending.keySet()), LOOKUP_CHUNK_SIZE)) {
+                String[] args = new String[chunk.size() + 3];
+                args[0] = scope.provider();
+                args[1] = scope.sourceLanguage();
+                args[2] = scope.targetLanguage();
+                StringBuilder sql = new StringBuilder(96 + chunk.size() * 2)
+                        .append("SELECT source, translation, detected_lang FROM ").append(TABLE)
+                        .append(" WHERE provider = ? AND source_lang = ? AND target_lang = ? AND source IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                    args[i + 3] = chunk.get(i);
+                }
+                sql.append(')');
+                try (Cursor cursor = db.rawQuery(sql.toString(), args)) {
+                    while (cursor.moveToNext()) {
+                        String normalized = cursor.getString(0);
+                        Entry entry = new Entry(cursor.getString(1), cursor.isNull(2) ? null : cursor.getString(2));
+                        hotEntries.put(scope.cacheKey(normalized), entry);
+                        for (String source : pending.get(normalized)) {
+                            found.put(source, entry);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Timber.w(e, "Translation memory lookup failed");
+        }
+        return found;
+    }
+
+    public void put(String source, Entry entry, TranslationScope scope) {
+        putAll(Map.of(source, entry), scope);
+    }
+
+    /**
+     * 批量写入，在同一事务中完成；空译文不会被记录
+     */
+    public void putAll(Map<String, Entry> entries, TranslationScope scope) {
+        if (entries.isEmpty()) return;
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            long now = System.currentTimeMillis();
+            db.beginTransaction();
+            try (SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE
+                    + " (provider, source_lang, target_lang, source, translation, detected_lang, updated_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                    Entry entry = item.getValue();
+                    if (item.getKey() == null || entry == null
+                            || entry.translation() == null || entry.translation().isEmpty()) continue;
+                    String normalized = TranslationScope.normalize(item.getKey());
+                    insert.bindString(1, scope.provider());
+                    insert.bindString(2, scope.sourceLanguage());
+                    insert.bindString(3, scope.targetLanguage());
+                    insert.bindString(4, normalized);
+                    insert.bindString(5, entry.translation());
+                    if (entry.sourceLanguage() == null) {
+                        insert.bindNull(6);
+                    } else {
+                        insert.bindString(6, entry.sourceLanguage());
+                    }
+                    insert.bindLong(7, now);
+                    insert.executeInsert();
+                    hotEntries.put(scope.cacheKey(normalized), entry);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLException e) {
+            Timber.w(e, "Translation memory write failed");
+        }
+    }
+
+    /**
+     * 删除指定原文的译文，用于丢弃校验不通过的译文，重新请求时不再命中
+     */
+    public void remove(Collection<String> sources, TranslationScope scope) {
+        if (sources.isEmpty()) return;
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try (SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE
+                    + " WHERE provider = ? AND source_lang = ? AND target_lang = ? AND source = ?")) {
+                for (String source : sources) {
+                    if (source == null) continue;
+                    String normalized = TranslationScope.normalize(source);
+                    delete.bindString(1, scope.provider());
+                    delete.bindString(2, scope.sourceLanguage());
+                    delete.bindString(3, scope.targetLanguage());
+                    delete.bindString(4, normalized);
+                    delete.executeUpdateDelete();
+                    hotEntries.remove(scope.cacheKey(normalized));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLException e) {
+            Timber.w(e, "Translation memory delete failed");
+        }
+    }
+
+    /**
+     * 清空全部翻译记忆
+     */
+    public void clear() {
+        hotEntries.evictAll();
+        try {
+            helper.getWritableDatabase().delete(TABLE, null, null);
+        } catch (SQLException e) {
+            Timber.w(e, "Failed to clear translation memory");
+        }
+    }
+
+    private static final class Helper extends SQLiteOpenHelper {
+
+        Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            // 读写并发：翻译线程写入时不阻塞其他线程查询
+            setWriteAheadLoggingEnabled(true);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + "provider TEXT NOT NULL, "
+                    + "source_lang TEXT NOT NULL, "
+                    + "target_lang TEXT NOT NULL, "
+                    + "source TEXT NOT NULL, "
+                    + "translation TEXT NOT NULL, "
+                    + "detected_lang TEXT, "
+                    + "updated_at INTEGER NOT NULL, "
+                    + "PRIMARY KEY (provider, source_lang, target_lang, source)"
+                    + ") WITHOUT ROWID");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.eam.rwtranslator.data.memory;
+
+import java.text.Normalizer;
+
+/**
+ * 翻译记忆的作用域：同一原文在不同翻译器/模型、不同语言方向下的译文分开存放。
+ *
+ * @param provider       翻译器标识，LLM翻译器包含模型名，如"openai/gpt-4o-mini"
+ * @param sourceLanguage 源语言代码（可为auto）
+ * @param targetLanguage 目标语言代码
+ */
+public record TranslationScope(String provider, String sourceLanguage, String targetLanguage) {
+
+    public TranslationScope {
+        provider = String.valueOf(provider);
+        sourceLanguage = String.valueOf(sourceLanguage);
+        targetLanguage = String.valueOf(targetLanguage);
+    }
+
+    /**
+     * 内存缓存使用的完整键
+     */
+    String cacheKey(String normalizedSource) {
+        return provider + '\u0001' + sourceLanguage + '\u0001' + targetLanguage + '\u0001' + normalizedSource;
+    }
+
+    /**
+     * 规范化原文：NFC归一化、去掉首尾空白，并把连续的空格/制表符合并为一个空格。
+     * 换行保持不变，多行文本的排版会影响译文。
+     */
+    public static String normalize(String text) {
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC).strip();
+        StringBuilder builder = null;
+        for (int i = 0; i < nfc.length(); i++) {
+            char c = nfc.charAt(i);
+            boolean blank = c == ' ' || c == '\t';
+            if (blank && i > 0 && (nfc.charAt(i - 1) == ' ' || nfc.charAt(i - 1) == '\t')) {
+                if (builder == null) {
+                    builder = new StringBuilder(nfc.length()).append(nfc, 0, i);
+                }
+                continue;
+            }
+            if (builder != null) {
+                builder.append(blank ? ' ' : c);
+            } else if (c == '\t') {
+                builder = new StringBuilder(nfc.length()).append(nfc, 0, i).append(' ');
+            }
+        }
+        return builder == null ? nfc : builder.toString();
+    }
+}
@@ -41,4 +41,19 @@ public class DataSet {
     if (iniFileModelsMap == null) return null;
     return iniFileModelsMap.get(key);
   }
+
+  /**
+   * 释放未使用的INI内容，内存紧张时调用；之后访问时会重新从项目缓存加载。
+   *
+   * @return 释放的文件数
+   */
+  public static int releaseUnusedContent() {
+    HashMap<String, IniFileModel> models = iniFileModelsMap;
+    if (models == null) return 0;
+    int released = 0;
+    for (IniFileModel model : models.values()) {
+      if (model.releaseContent()) released++;
+    }
+    return released;
+  }
 }
@@ -1,19 +1,46 @@
 package com.eam.rwtranslator.data.model;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 import org.ini4j.Wini;
 
+import timber.log.Timber;
+
 /**
  * INI文件数据模型，封装文件名、Wini对象、分组数据和颜色属性。
+ * 通过索引元数据创建的模型只保存文件路径和统计数，Wini与分组数据在首次访问时加载，内存紧张时可释放。
  */
 public class IniFileModel{
+    /**
+     * 按需加载文件内容的回调。
+     */
+    public interface ContentLoader {
+        Wini loadIni(File file) throws IOException;
+
+        ArrayList<SectionModel> loadSections(Wini ini);
+
+        /**
+         * 模型释放内容后调用，加载方可同时释放其持有的Wini。
+         */
+        void releaseIni(File file);
+    }
+
     // INI文件名
     private String ininame;
-    // Wini对象（ini4j库）
+    // INI文件
+    private File file;
+    // Wini对象（ini4j库），延迟加载的模型在加载前为null
     private Wini rwini;
-    // 分组数据
+    // 分组数据，延迟加载的模型在加载前为null
     private ArrayList<SectionModel> data;
+    // 内容加载器，为null时内容常驻内存
+    private final ContentLoader loader;
+    // 正在编辑器中打开，此时不能释放内容
+    private boolean editing = false;
+    // 最近一次加载失败的异常，加载成功后清除
+    private IOException loadError;
     // 颜色属性（可用于UI高亮等）
     private int color;
     
@@ -29,8 +56,26 @@ public class IniFileModel{
     private boolean isModified = false;
     public IniFileModel(Wini rwini, ArrayList<SectionModel> data) {
         this.rwini = rwini;
-        this.ininame = rwini.getFile().getName();
+        this.file = rwini.getFile();
+        this.ininame = file.getName();
         this.data = data;
+        this.loader = null;
+    }
+
+    /**
+     * 根据索引元数据创建延迟加载的模型。
+     *
+     * @param file         INI文件
+     * @param sectionCount 含可翻译条目的节数
+     * @param itemCount    可翻译条目数
+     * @param loader       内容加载器
+     */
+    public IniFileModel(File file, int sectionCount, int itemCount, ContentLoader loader) {
+        this.file = file;
+        this.ininame = file.getName();
+        this.cachedSectionCount = sectionCount;
+        this.cachedItemCount = itemCount;
+        this.loader = loader;
     }
     
     // 文件名setter
@@ -49,18 +94,84 @@ public class IniFileModel{
     public void setColor(int color) {
         this.color = color;
     }
-    // 分组数据getter
-    public ArrayList<SectionModel> getData() {
-        return this.data;
+    // 文件getter，不会触发内容加载
+    public File getFile() {
+        return this.file;
+    }
+    // 文件setter（重命名后调用）
+    public void setFile(File file) {
+        this.file = file;
+    }
+    // 分组数据getter，未加载时同步加载；加载失败时返回空列表，异常见getLoadError()
+    public synchronized ArrayList<SectionModel> getData() {
+        ensureLoaded();
+        return this.data != null ? this.data : new ArrayList<>();
     }
     // 分组数据setter
-    public void setData(ArrayList<SectionModel> data) {
+    public synchronized void setData(ArrayList<SectionModel> data) {
         this.data = data;
     }
-    // Wini对象getter
-    public Wini getRwini() {
+    // Wini对象getter，未加载时同步加载，加载失败时返回null
+    public synchronized Wini getRwini() {
+        ensureLoaded();
         return this.rwini;
     }
+
+    public synchronized boolean isLoaded() {
+        return this.data != null;
+    }
+
+    public synchronized IOException getLoadError() {
+        return this.loadError;
+    }
+
+    /**
+     * 加载内容，已加载时直接返回。会读取并解析文件，应在后台线程调用。
+     *
+     * @throws IOException 读取或解析失败，模型保持未加载状态
+     */
+    public synchronized void load() throws IOException {
+        if (data != null || loader == null) {
+            return;
+        }
+        try {
+            Wini ini = loader.loadIni(file);
+            data = loader.loadSections(ini);
+            rwini = ini;
+            loadError = null;
+        } catch (IOException e) {
+            loadError = e;
+            throw e;
+        }
+    }
+
+    // 编辑状态setter，编辑器打开期间内容不会被释放
+    public synchronized void setEditing(boolean editing) {
+        this.editing = editing;
+    }
+
+    /**
+     * 释放已加载的内容。已查看、已修改或正在编辑的模型持有未保存的数据，不会被释放。
+     *
+     * @return 是否释放了内容
+     */
+    public synchronized boolean releaseContent() {
+        if (loader == null || data == null || editing || isViewed || isModified) {
+            return false;
+        }
+        data = null;
+        rwini = null;
+        loader.releaseIni(file);
+        return true;
+    }
+
+    private void ensureLoaded() {
+        try {
+            load();
+        } catch (IOException e) {
+            Timber.e(e, "Failed to load %s", file);
+        }
+    }
     
     // 缓存相关方法
     public int getCachedSectionCount() {
@@ -0,0 +1,284 @@
+package com.eam.rwtranslator.data.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 按列存放的多语言译文表：每个条目占一行（int行号），每种语言一列（String数组），
+ * 条目本身不再各自持有HashMap。语言代码在进程内统一编号为小整数，只有出现过的语言才分配列。
+ * 一个文件的条目共用一张表，文件内容被释放时随之回收。
+ */
+public final class LangTable {
+    private static final int MIN_CAPACITY = 8;
+
+    // 语言代码 <-> 编号，进程内共享
+    private static final Map<String, Integer> LANGUAGE_IDS = new HashMap<>();
+    private static final List<String> LANGUAGES = new ArrayList<>();
+
+    private int rows;
+    private int capacity;
+    // columns[语言编号][行号]，未出现的语言为null
+    private String[][] columns = new String[0][];
+
+    public LangTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedRows 预计的条目数，用于一次分配好列的长度
+     */
+    public LangTable(int expectedRows) {
+        capacity = Math.max(MIN_CAPACITY, expectedRows);
+    }
+
+    /**
+     * 语言代码的编号，首次出现时分配
+     */
+    public static int languageId(String language) {
+        synchronized (LANGUAGE_IDS) {
+            Integer id = LANGUAGE_IDS.get(language);
+            if (id == null) {
+                id = LANGUAGES.size();
+                LANGUAGE_IDS.put(language, id);
+                LANGUAGES.add(language);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 已分配编号的语言代码，未分配时返回-1，不会新增编号
+     */
+    static int existingLanguageId(Object language) {
+        synchronized (LANGUAGE_IDS) {
+            Integer id = LANGUAGE_IDS.get(language);
+            return id == null ? -1 : id;
+        }
+    }
+
+    public static String language(int id) {
+        synchronized (LANGUAGE_IDS) {
+            return LANGUAGES.get(id);
+        }
+    }
+
+    /**
+     * 新增一行并返回行号
+     */
+    public synchronized int addRow() {
+        if (rows == capacity) {
+            capacity += capacity >> 1;
+            for (int l = 0; l < columns.length; l++) {
+                if (columns[l] != null) columns[l] = Arrays.copyOf(columns[l], capacity);
+            }
+        }
+        return rows++;
+    }
+
+    public synchronized int rows() {
+        return rows;
+    }
+
+    @Nullable
+    public synchronized String get(int row, int language) {
+        return language < columns.length && columns[language] != null ? columns[language][row] : null;
+    }
+
+    /**
+     * 写入译文，value为null时删除
+     * @return 原来的译文
+     */
+    @Nullable
+    public synchronized String put(int row, int language, @Nullable String value) {
+        if (language >= columns.length) {
+            if (value == null) return null;
+            columns = Arrays.copyOf(columns, language + 1);
+        }
+        String[] column = columns[language];
+        if (column == null) {
+            if (value == null) return null;
+            column = columns[language] = new String[capacity];
+        }
+        String previous = column[row];
+        column[row] = value;
+        return previous;
+    }
+
+    /**
+     * 某行的译文数量
+     */
+    public synchronized int count(int row) {
+        int count = 0;
+        for (String[] column : columns) {
+            if (column != null && column[row] != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 某行中编号不小于from的第一种有译文的语言，没有时返回-1
+     */
+    public synchronized int nextLanguage(int row, int from) {
+        for (int l = from; l < columns.length; l++) {
+            if (columns[l] != null && columns[l][row] != null) return l;
+        }
+        return -1;
+    }
+
+    public synchronized void clear(int row) {
+        for (String[] column : columns) {
+            if (column != null) column[row] = null;
+        }
+    }
+
+    /**
+     * 一行译文的Map视图，读写直接作用于表
+     */
+    public Map<String, String> row(int row) {
+        return new RowView(this, row);
+    }
+
+    private static final class RowView extends AbstractMap<String, String> {
+        private final LangTable table;
+        private final int row;
+
+        RowView(LangTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public String get(Object key) {
+            int id = existingLanguageId(key);
+            return id < 0 ? null : table.get(row, id);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public String put(String key, String value) {
+            if (value == null) throw new NullPointerException("Translation of " + key + " is null");
+            return table.put(row, languageId(key), value);
+        }
+
+        @Override
+        public String remove(Object key) {
+            int id = existingLanguageId(key);
+            return id < 0 ? null : table.put(row, id, null);
+        }
+
+        @Override
+        public int size() {
+            return table.count(row);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return table.nextLanguage(row, 0) < 0;
+        }
+
+        @Override
+        public void clear() {
+            table.clear(row);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int next = table.nextLanguage(row, 0);
+                        private int last = -1;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (next < 0) throw new NoSuchElementException();
+                            last = next;
+                            next = table.nextLanguage(row, next + 1);
+                            return new LangEntry(table, row, last);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last < 0) throw new IllegalStateException();
+                            table.put(row, last, null);
+                            last = -1;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return table.count(row);
+                }
+            };
+        }
+    }
+
+    /**
+     * 表中的一项译文，setValue直接写回表
+     */
+    static final class LangEntry implements Map.Entry<String, String> {
+        private final LangTable table;
+        private final int row;
+        private final int language;
+
+        LangEntry(LangTable table, int row, int language) {
+            this.table = table;
+            this.row = row;
+            this.language = language;
+        }
+
+        @Override
+        public String getKey() {
+            return language(language);
+        }
+
+        @Override
+        public String getValue() {
+            return table.get(row, language);
+        }
+
+        @Override
+        public String setValue(String value) {
+            if (value == null) throw new NullPointerException("Translation of " + getKey() + " is null");
+            return table.put(row, language, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
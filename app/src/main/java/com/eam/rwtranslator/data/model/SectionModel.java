@@ -4,8 +4,6 @@ import com.eam.rwtranslator.utils.TranslationKeys;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +41,7 @@ public record SectionModel(String name, List<Pair> items) {
 
     /**
      * 条目数据结构，包含键、原始值和多语言翻译。
+     * 多语言翻译存放在所属文件共用的{@link LangTable}中，条目只记录行号。
      */
 
     public static class Pair {
@@ -50,8 +49,9 @@ public record SectionModel(String name, List<Pair> items) {
         TranslationKeys key;
         // 原始值
         String ori_val;
-        // 多语言翻译对
-        Map<String, String> lang_pairs;
+        // 多语言翻译所在的表及行号，单独创建的条目在首次写入翻译时才分配
+        private LangTable langTable;
+        private int langRow = -1;
 
         public Pair() {
         }
@@ -61,6 +61,15 @@ public record SectionModel(String name, List<Pair> items) {
             this.ori_val = ori_val;
         }
 
+        /**
+         * @param langTable 同一文件的条目共用的多语言翻译表
+         */
+        public Pair(LangTable langTable, TranslationKeys key, String ori_val) {
+            this(key, ori_val);
+            this.langTable = langTable;
+            this.langRow = langTable.addRow();
+        }
+
         public TranslationKeys getKey() {
             return this.key;
         }
@@ -77,29 +86,35 @@ public record SectionModel(String name, List<Pair> items) {
             this.ori_val = ori_val;
         }
 
+        /**
+         * 多语言翻译的Map视图，读写直接作用于所属的翻译表
+         */
         public Map<String, String> getLang_pairs() {
-            if (lang_pairs == null) {
-                lang_pairs = new HashMap<>();
+            if (langTable == null) {
+                langTable = new LangTable(1);
+                langRow = langTable.addRow();
             }
-            return this.lang_pairs;
+            return langTable.row(langRow);
         }
 
         public void setLang_pairs(Map<String, String> lang_pairs) {
-            this.lang_pairs = lang_pairs;
+            Map<String, String> row = getLang_pairs();
+            row.clear();
+            if (lang_pairs != null) row.putAll(lang_pairs);
         }
 
         /**
          * 获取指定索引的语言对（如用于遍历）
          */
         public Map.Entry<String, String> getLangEntryByIndex(int index) {
-            if (lang_pairs == null || lang_pairs.isEmpty() || index < 0 || index >= lang_pairs.size()) {
+            if (langTable == null || index < 0) {
                 return null;
             }
-            Iterator<Map.Entry<String, String>> iterator = lang_pairs.entrySet().iterator();
-            for (int i = 0; i < index; i++) {
-                iterator.next();
+            int language = langTable.nextLanguage(langRow, 0);
+            for (int i = 0; i < index && language >= 0; i++) {
+                language = langTable.nextLanguage(langRow, language + 1);
             }
-            return iterator.next();
+            return language < 0 ? null : new LangTable.LangEntry(langTable, langRow, language);
         }
 
         @Override
@@ -3,22 +3,19 @@ package com.eam.rwtranslator.data.repository;
 import android.content.Context;
 import android.net.Uri;
 import com.eam.rwtranslator.AppConfig;
+import com.eam.rwtranslator.data.cache.ProjectCacheReader;
 import com.eam.rwtranslator.data.model.DataSet;
-import com.eam.rwtranslator.data.model.SectionModel;
 import com.eam.rwtranslator.data.model.IniFileModel;
 import com.eam.rwtranslator.utils.FilesHandler;
+import com.eam.rwtranslator.ui.project.ProjectScanPipeline;
 import com.eam.rwtranslator.ui.project.TranslationConfigManager;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import okhttp3.OkHttpClient;
-import org.ini4j.Wini;
 import timber.log.Timber;
 
 public class ProjectRepository {
@@ -77,9 +74,8 @@ public class ProjectRepository {
         () -> {
           try {
             File projectDir = new File(AppConfig.externalProjectDir, projectName);
-            File cacheFile = new File(AppConfig.externalCacheSerialDir, projectName + ".json");
             FilesHandler.delDir(projectDir);
-            if (cacheFile.exists()) cacheFile.delete();
+            deleteCacheFiles(projectName);
             // 删除后应返回!projectDir.exists()
             return !projectDir.exists();
           } catch (Exception e) {
@@ -92,32 +88,51 @@ public class ProjectRepository {
 
   public CompletableFuture<Boolean> deleteProjectCache(String projectName) {
     return CompletableFuture.supplyAsync(
-        () -> {
-          File cacheFile = new File(AppConfig.externalCacheSerialDir, projectName + ".json");
-          if (cacheFile.exists()) {
-            return cacheFile.delete();
-          }
-          return false;
-        },
+        () -> deleteCacheFiles(projectName),
         ioExecutor);
   }
 
+  // 删除项目的二进制缓存、指纹索引及可能残留的旧版JSON缓存，有文件被删除时返回true
+  private boolean deleteCacheFiles(String projectName) {
+    boolean deleted = false;
+    for (String extension :
+        new String[] {
+          TranslationConfigManager.PROJECT_FILE_EXTENSION,
+          TranslationConfigManager.FINGERPRINT_FILE_EXTENSION,
+          TranslationConfigManager.LEGACY_PROJECT_FILE_EXTENSION
+        }) {
+      File cacheFile = TranslationConfigManager.projectFileFor(projectName, extension);
+      if (cacheFile.exists() && cacheFile.delete()) {
+        deleted = true;
+      }
+    }
+    return deleted;
+  }
+
   public CompletableFuture<TranslationConfigManager> loadProjectData(String projectName) {
+    return loadProjectData(projectName, null);
+  }
+
+  // 加载项目数据，首次导入时通过listener报告扫描进度
+  public CompletableFuture<TranslationConfigManager> loadProjectData(
+      String projectName, ProjectScanPipeline.ProgressListener listener) {
     return CompletableFuture.supplyAsync(
         () -> {
           try {
             File projectDir = new File(AppConfig.externalProjectDir, projectName);
-            TranslationConfigManager project = TranslationConfigManager.getInstance(projectDir);
+            TranslationConfigManager project =
+                TranslationConfigManager.getInstance(projectDir, listener);
 
-            // 处理INI数据装配
+            // 只用索引元数据装配文件列表，各文件内容在打开或翻译时加载
             HashMap<String, IniFileModel> dataMap = new HashMap<>();
-            for (Wini ini : project.getTranslationIniFiles()) {
-              ArrayList<SectionModel> groups = new ArrayList<>();
-              Map<String, List<SectionModel.Pair>> sectionMap =
-                  project.getTranMap(ini);
-              sectionMap.forEach(
-                  (sectionName, pairs) -> groups.add(new SectionModel(sectionName, pairs)));
-              dataMap.put(ini.getFile().getPath(), new IniFileModel(ini, groups));
+            for (ProjectCacheReader.CachedFile cachedFile : project.getCachedFiles()) {
+              dataMap.put(
+                  cachedFile.path(),
+                  new IniFileModel(
+                      new File(cachedFile.path()),
+                      cachedFile.sectionCount(),
+                      cachedFile.pairCount(),
+                      project));
             }
             DataSet.setIniFileModel(dataMap);
             return project;
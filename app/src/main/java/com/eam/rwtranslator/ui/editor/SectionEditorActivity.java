@@ -52,16 +52,26 @@ public class SectionEditorActivity extends AppCompatActivity
         initListeners();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (iniFileModel != null) {
+            iniFileModel.setEditing(false);
+        }
+        super.onDestroy();
+    }
+
     private void initView() {
         mcontext = this;
         iniFileModel = DataSet.getIniFileModel(getIntent().getStringExtra("ClickDatadir"));
+        // 编辑期间保持内容常驻，避免内存回收时丢弃未保存的修改
+        iniFileModel.setEditing(true);
         imgSelectAll = findViewById(R.id.cardview_seclect_all);
         imgInverseSelection = findViewById(R.id.cardview_inverse_selection);
         imgTranslate = findViewById(R.id.cardview_translate);
         imgLLMTranslate = findViewById(R.id.section_act_bottom_appbar_card_ai_translate);
         list = findViewById(R.id.list);
         toolbar = findViewById(R.id.section_editor_toolbar);
-        toolbar.setTitle(FilesHandler.getBaseName(iniFileModel.getRwini().getFile().getName()));
+        toolbar.setTitle(FilesHandler.getBaseName(iniFileModel.getFile().getName()));
         adapter =
                 new SectionEditorAdapter(
                         mcontext,
@@ -183,7 +193,7 @@ public class SectionEditorActivity extends AppCompatActivity
     public void returnData() {
         Intent resultIntent = new Intent();
         Timber.d("isModified:%b", isModified);
-        resultIntent.putExtra("returnDir", iniFileModel.getRwini().getFile().getPath());
+        resultIntent.putExtra("returnDir", iniFileModel.getFile().getPath());
         resultIntent.putExtra("isModified", isModified);
         if (isModified) {
             setResult(RESULT_OK, resultIntent);
@@ -21,8 +21,10 @@ import com.eam.rwtranslator.ui.common.UniversalMultiSelectManager;
 import com.eam.rwtranslator.ui.setting.AppSettings;
 import com.eam.rwtranslator.ui.setting.SettingsFragment;
 import com.eam.rwtranslator.utils.DialogUtils;
+import com.eam.rwtranslator.utils.PlaceholderVerifier;
 import com.eam.rwtranslator.utils.TemplatePlaceholderProcessor;
 import com.eam.rwtranslator.utils.Translator;
+import com.eam.rwtranslator.utils.translator.TextDeduplicator;
 import com.google.android.material.appbar.MaterialToolbar;
 
 import java.util.*;
@@ -547,52 +549,173 @@ public class SectionEditorAdapter extends BaseExpandableListAdapter
         // 原子计数器保证线程安全
         AtomicInteger completedTasks = new AtomicInteger(0);
 
+        // 收集选中的条目，翻译记忆统一批量查询
+        List<SectionModel.Pair> selectedItems = new ArrayList<>(totalTasks[0]);
+        List<TemplatePlaceholderProcessor.Payload> payloads = new ArrayList<>(totalTasks[0]);
+        List<String> textsToTranslate = new ArrayList<>(totalTasks[0]);
         for (SectionModel group : groups) {
             for (SectionModel.Pair item : group.items()) {
                 if (multiSelectManager == null || !multiSelectManager.isMultiSelectMode() || multiSelectManager.isSelected(getPosition(item))) {
-
                     TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(item.getOri_val());
-                    List<String> placeholders = payload.placeholders();
-                    String textForTranslation = payload.maskedText();
+                    selectedItems.add(item);
+                    payloads.add(payload);
+                    textsToTranslate.add(payload.maskedText());
+                }
+            }
+        }
+
+        if (enable_llm) {
+            // LLM走与项目页相同的分批管线，避免每个条目单独发请求
+            translateWithBatch(selectedItems, payloads, textsToTranslate, progressTextView, dialog);
+            return;
+        }
+
+        Translator.TranslationJob job = Translator.translateAll(textsToTranslate, false, new Translator.IndexedTranslateCallBack() {
+            @Override
+            public void onSuccess(int index, String translation, String sourceLanguage, String targetLanguage) {
+                // 选中的条目较少，占位符不完整的译文直接报错，不再重新请求
+                PlaceholderVerifier.Issue issue = PlaceholderVerifier.verify(textsToTranslate.get(index), translation);
+                if (issue != null) {
+                    onError(index, new PlaceholderVerifier.IntegrityException(issue));
+                    return;
+                }
+                String finalTranslation;
+                try {
+                    finalTranslation = TemplatePlaceholderProcessor.restore(translation, payloads.get(index));
+                } catch (TemplatePlaceholderProcessor.PlaceholderMismatchException e) {
+                    onError(index, e);
+                    return;
+                }
+                SectionModel.Pair item = selectedItems.get(index);
+                if (!AppSettings.getIsOverride()) {
+                    var lang_pairs = item.getLang_pairs();
+                    lang_pairs.put(targetLanguage, finalTranslation);
+                } else {
+                    item.setOri_val(finalTranslation);
+                }
+                updateProgress(completedTasks, totalTasks[0], progressTextView, dialog);
+            }
+
+            @Override
+            public void onError(int index, Throwable t) {
+                Timber.e(t);
+                new Handler(context.getMainLooper()).post(() -> Toast.makeText(context, t.toString(), Toast.LENGTH_SHORT).show());
+                updateProgress(completedTasks, totalTasks[0], progressTextView, dialog);
+            }
+        });
 
-                    var translateCallBack = new Translator.TranslateCallBack() {
-                        @Override
-                        public void onSuccess(
-                                String translation, String sourceLanguage, String targetLanguage) {
-                            String finalTranslation = TemplatePlaceholderProcessor.restore(translation, placeholders);
+        // 按返回键取消：尚未发出的请求不再执行，已完成的译文保留
+        dialog.setCancelable(true);
+        dialog.setCanceledOnTouchOutside(false);
+        dialog.setOnCancelListener(d -> {
+            job.cancel();
+            notifyDataSetChanged();
+            if (multiSelectManager != null && multiSelectManager.isMultiSelectMode()) exitMultiSelectMode();
+        });
+    }
 
+    /**
+     * 批量LLM翻译：相同的遮罩后原文只发送一次，按token分批并发请求，每条译文到达即应用到所有出现处
+     */
+    private void translateWithBatch(List<SectionModel.Pair> items, List<TemplatePlaceholderProcessor.Payload> payloads,
+                                    List<String> texts, TextView progressTextView, AlertDialog dialog) {
+        TextDeduplicator<Integer> deduplicator = new TextDeduplicator<>();
+        for (int i = 0; i < texts.size(); i++) {
+            deduplicator.add(texts.get(i), i);
+        }
+        String targetLanguage = AppSettings.getCurrentTargetLanguageCode();
+        int total = items.size();
+        // 只在主线程读写
+        int[] applied = {0};
+        boolean[] delivered = new boolean[deduplicator.uniqueTexts().size()];
+        PlaceholderVerifier.Report report = new PlaceholderVerifier.Report();
+
+        Translator.LLM_batchTranslate(
+                deduplicator.uniqueTexts(),
+                AppSettings.getCurrentFromLanguageCode(),
+                targetLanguage,
+                report,
+                new Translator.BatchTranslateCallBack() {
+                    @Override
+                    public void onItemTranslated(int index, String translation) {
+                        handler.post(() -> {
+                            apply(index, translation);
+                            progressTextView.setText(res.getString(R.string.section_act_loading_dialog_message, applied[0], total));
+                        });
+                    }
+
+                    // 主线程调用，每条只应用一次
+                    private void apply(int index, String translation) {
+                        if (delivered[index]) return;
+                        delivered[index] = true;
+                        for (int i : deduplicator.occurrencesOf(index)) {
+                            applied[0]++;
+                            String finalTranslation;
+                            try {
+                                finalTranslation = TemplatePlaceholderProcessor.restore(translation, payloads.get(i));
+                            } catch (TemplatePlaceholderProcessor.PlaceholderMismatchException e) {
+                                // 占位符对不上的译文不应用，保留原值
+                                Timber.w(e, "Skipping translation of %s", items.get(i).getKey().getKeyName());
+                                continue;
+                            }
+                            SectionModel.Pair item = items.get(i);
                             if (!AppSettings.getIsOverride()) {
-                                var lang_pairs = item.getLang_pairs();
-                                lang_pairs.put(targetLanguage, finalTranslation);
+                                item.getLang_pairs().put(targetLanguage, finalTranslation);
                             } else {
                                 item.setOri_val(finalTranslation);
                             }
-                            updateProgress(completedTasks, totalTasks[0], progressTextView, dialog);
                         }
+                    }
 
-                        @Override
-                        public void onError(Throwable t) {
+                    @Override
+                    public void onItemFailed(int index, Throwable t) {
+                        handler.post(() -> {
+                            delivered[index] = true;
+                            // 多次请求后占位符仍不完整的译文不应用，保留原值
+                            for (int i : deduplicator.occurrencesOf(index)) {
+                                applied[0]++;
+                                Timber.w(t, "Skipping translation of %s", items.get(i).getKey().getKeyName());
+                            }
+                            progressTextView.setText(res.getString(R.string.section_act_loading_dialog_message, applied[0], total));
+                        });
+                    }
 
-                            Timber.e(t);
-                            new Handler(context.getMainLooper()).post(() -> Toast.makeText(context, t.toString(), Toast.LENGTH_SHORT).show());
-                            updateProgress(completedTasks, totalTasks[0], progressTextView, dialog);
-                        }
-                    };
-                    if (enable_llm) {
-                        Translator.LLM_translate(textForTranslation,
-                                AppSettings.getCurrentFromLanguageCode(),
-                                AppSettings.getCurrentTargetLanguageCode(),
-                                translateCallBack);
-                    } else {
-                        Translator.translate(
-                                textForTranslation,
-                                translateCallBack);
+                    @Override
+                    public void onSuccess(List<String> translations, String sourceLanguage, String targetLang) {
+                        Timber.i("Editor batch: %d texts -> %d unique, placeholder integrity: %s",
+                                total, deduplicator.uniqueTexts().size(), report);
+                        handler.post(() -> {
+                            // 兜底：结果列表中已通过校验却没有单独回调过的译文同样应用
+                            for (int index = 0; index < translations.size() && index < delivered.length; index++) {
+                                if (translations.get(index) != null) apply(index, translations.get(index));
+                            }
+                            finishBatch(dialog);
+                            if (report.hasProblems()) {
+                                Toast.makeText(context, res.getString(R.string.translation_integrity_report,
+                                        report.getRetried(), report.getRepaired(), report.getFailed()), Toast.LENGTH_LONG).show();
+                            } else if (deduplicator.duplicateCount() > 0) {
+                                Toast.makeText(context, res.getString(R.string.section_act_batch_dedup_summary,
+                                        total, deduplicator.duplicateCount()), Toast.LENGTH_SHORT).show();
+                            }
+                        });
                     }
-                }
-            }
-        }
 
+                    @Override
+                    public void onError(Throwable t) {
+                        Timber.e(t, "Editor batch translation failed");
+                        // 已到达的译文已经应用，照常刷新
+                        handler.post(() -> {
+                            finishBatch(dialog);
+                            Toast.makeText(context, t.toString(), Toast.LENGTH_SHORT).show();
+                        });
+                    }
+                });
+    }
 
+    private void finishBatch(AlertDialog dialog) {
+        dialog.dismiss();
+        notifyDataSetChanged();
+        if (multiSelectManager != null && multiSelectManager.isMultiSelectMode()) exitMultiSelectMode();
     }
 
     private void updateProgress(AtomicInteger counter, int total, TextView tv, AlertDialog dialog) {
@@ -162,6 +162,9 @@ public class MainActivity extends AppCompatActivity {
               }
             });
     
+    // 观察加载进度文本
+    viewModel.loadingMessage().observe(this, du::updateLoadingText);
+
     // 观察项目导航
     viewModel
         .shouldNavigateToProject()
@@ -45,6 +45,7 @@ public class MainViewModel extends AndroidViewModel {
   private final MutableLiveData<String> _toastMessage = new MutableLiveData<>();
   private final MutableLiveData<Throwable> _errorMessage = new MutableLiveData<>();
   private final MutableLiveData<Boolean> _showLoading = new MutableLiveData<>();
+  private final MutableLiveData<String> _loadingMessage = new MutableLiveData<>();
   private final MutableLiveData<VersionInfo> _newVersion = new MutableLiveData<>();
   private final ProjectRepository repository = new ProjectRepository();
   private final MutableLiveData<List<MainActData>> _projects = new MutableLiveData<>();
@@ -59,6 +60,7 @@ public class MainViewModel extends AndroidViewModel {
   public LiveData<String> toastMessage() { return _toastMessage; }
   public LiveData<Throwable> errorMessage() { return _errorMessage; }
   public LiveData<Boolean> showLoading() { return _showLoading; }
+  public LiveData<String> loadingMessage() { return _loadingMessage; }
   public LiveData<VersionInfo> newVersion() { return _newVersion; }
   public LiveData<Boolean> shouldNavigateToProject() { return _shouldNavigateToProject; }
   
@@ -229,7 +231,11 @@ public class MainViewModel extends AndroidViewModel {
   public void loadProject(String projectName) {
     _showLoading.postValue(true);
     repository
-        .loadProjectData(projectName)
+        .loadProjectData(
+            projectName,
+            (processed, discovered) ->
+                _loadingMessage.postValue(
+                    context.getString(R.string.main_act_scan_progress, processed, discovered)))
         .thenAccept(
             project -> {
               _showLoading.postValue(false);
@@ -302,13 +302,13 @@ public class IniFileManagerActivity extends AppCompatActivity {
         // 将翻译完成的文件自动标记
         for (IniFileModel file : translatedFiles) {
           file.setViewed(true);
-          modifiedList.add(file.getRwini().getFile().getPath());
+          modifiedList.add(file.getFile().getPath());
         }
         // 刷新适配器以显示标记状态
         iniFileManagerAdapter.notifyDataSetChanged();
         
-        if (!IniFileManagerAdapter.translationErrors.isEmpty()) {
-          // 显示错误对话框
+        if (!IniFileManagerAdapter.translationErrors.isEmpty() || !TranslationConfigManager.errorFiles.isEmpty()) {
+          // 显示错误对话框（包括读取失败的文件）
           showErrorFilesDialog();
         } else {
           // 显示翻译完成消息
@@ -320,9 +320,9 @@ public class IniFileManagerActivity extends AppCompatActivity {
     // 设置文件标记监听器
     iniFileManagerAdapter.setOnFileMarkListener((file, isMarked) -> {
       if (isMarked) {
-        modifiedList.add(file.getRwini().getFile().getPath());
+        modifiedList.add(file.getFile().getPath());
       } else {
-        modifiedList.remove(file.getRwini().getFile().getPath());
+        modifiedList.remove(file.getFile().getPath());
       }
     });
     
@@ -336,6 +336,8 @@ public class IniFileManagerActivity extends AppCompatActivity {
     
     // 数据加载完成后，首次恢复上次查看位置
     swipeRecyclerView.post(this::restoreLastViewedPosition);
+    // 接管上次未完成或未写回的后台翻译任务
+    iniFileManagerAdapter.resumeTranslationJobs();
   }
 
   private void setListeners() {
@@ -373,7 +375,7 @@ public class IniFileManagerActivity extends AppCompatActivity {
           saveLastViewedPosition(p1, clickedFile.getIniname());
           Intent intent =
               new Intent(IniFileManagerActivity.this, SectionEditorActivity.class);
-          intent.putExtra("ClickDatadir", clickedFile.getRwini().getFile().getPath());
+          intent.putExtra("ClickDatadir", clickedFile.getFile().getPath());
           startActivityForResult(intent, REQUEST_CODE_SECTION_EDITOR_ACT);
         });
     projectManagerToolbar.setNavigationOnClickListener(v -> ensureExit());
@@ -439,7 +441,7 @@ public class IniFileManagerActivity extends AppCompatActivity {
                 int dir = menuBridge.getDirection(); // -1代表右菜单 1代表左菜单
                 int menuPosition = menuBridge.getPosition();
                 IniFileModel data = iniFileManagerAdapter.getItem(position);
-                File file = data.getRwini().getFile();
+                File file = data.getFile();
                 if (dir == -1) {
                   // 菜单在Item中的Position：
                   switch (menuPosition) {
@@ -486,7 +488,8 @@ public class IniFileManagerActivity extends AppCompatActivity {
                             file.renameTo(newfile);
                             // 更新缓存文件
                             try {
-                              data.getRwini().setFile(newfile);
+                              DataSet.getCurrentProject().renameIniFile(file, newfile);
+                              data.setFile(newfile);
                               DataSet.getCurrentProject().serialize();
                             } catch (Exception err) {
                               Timber.e(err);
@@ -506,7 +509,7 @@ public class IniFileManagerActivity extends AppCompatActivity {
                           showMsg(getString(R.string.project_act_deleted));
                           // 更新缓存文件
                           try {
-                            DataSet.getCurrentProject().getTranslationIniFiles().remove(data.getRwini());
+                            DataSet.getCurrentProject().removeIniFile(file.getPath());
                             DataSet.getCurrentProject().serialize();
                           } catch (Exception err) {
                             Timber.e(err);
@@ -1,8 +1,10 @@
 package com.eam.rwtranslator.ui.project;
 
 import android.annotation.SuppressLint;
+import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.database.SQLException;
 import android.graphics.Color;
 import android.os.Handler;
 import android.os.Looper;
@@ -11,14 +13,24 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.eam.rwtranslator.R;
+import com.eam.rwtranslator.data.job.TranslationJobStore;
+import com.eam.rwtranslator.data.job.TranslationWorker;
+import com.eam.rwtranslator.data.model.DataSet;
 import com.eam.rwtranslator.data.model.IniFileModel;
 import com.eam.rwtranslator.data.model.SectionModel;
 import com.eam.rwtranslator.ui.common.MultiSelectAdapter;
@@ -26,13 +38,21 @@ import com.eam.rwtranslator.ui.common.RecyclerViewMultiSelectAdapter;
 import com.eam.rwtranslator.ui.common.UniversalMultiSelectManager;
 import com.eam.rwtranslator.ui.setting.AppSettings;
 import com.eam.rwtranslator.utils.DialogUtils;
+import com.eam.rwtranslator.utils.PlaceholderVerifier;
 import com.eam.rwtranslator.utils.TemplatePlaceholderProcessor;
 import com.eam.rwtranslator.utils.Translator;
+import com.eam.rwtranslator.utils.translator.OpenAITranslator;
+import com.eam.rwtranslator.utils.translator.TextDeduplicator;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import timber.log.Timber;
 
@@ -46,7 +66,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
         @Override
         public boolean areItemsTheSame(@NonNull IniFileModel oldItem, @NonNull IniFileModel newItem) {
             // 使用文件路径作为唯一标识
-            return oldItem.getRwini().getFile().getPath().equals(newItem.getRwini().getFile().getPath());
+            return oldItem.getFile().getPath().equals(newItem.getFile().getPath());
         }
 
         @Override
@@ -59,11 +79,21 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
                     oldItem.getCachedItemCount() == newItem.getCachedItemCount();
         }
     };
+    // 输入停止这么久后才开始过滤
+    private static final long FILTER_DEBOUNCE_MILLIS = 150;
+    // 过滤在单独的后台线程中进行，不占用翻译线程池
+    private static final ExecutorService filterExecutor = Executors.newSingleThreadExecutor();
     private final Context context;
     private final SparseArray<ViewHolder> visibleHolders = new SparseArray<>();
     private onItemClickListener clickListener;
     private onItemLongClickListener onclickListener;
     private List<IniFileModel> sourceList; // 用于过滤功能的原始列表
+    private final Handler filterHandler = new Handler(Looper.getMainLooper());
+    // 每次输入或列表变化时递增，旧的过滤任务据此放弃
+    private final AtomicInteger filterGeneration = new AtomicInteger();
+    // 只在过滤线程中读写，原始列表变化后重建
+    private IniFileSearchIndex searchIndex;
+    private Runnable pendingFilter;
     private UniversalMultiSelectManager multiSelectManager;
     private OnTranslationCompleteListener translationCompleteListener;
     private OnFileMarkListener fileMarkListener;
@@ -180,27 +210,54 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
         return selectedItems;
     }
 
+    /**
+     * 按文件名和相对路径过滤，支持子序列模糊匹配。输入停止后才在后台线程查询索引，
+     * 新的输入会取消尚未完成的查询，只有最后一次查询的结果会提交到列表
+     */
     public void filterIniFileModel(@NotNull String text) {
+        int generation = cancelFilter();
         if (text.isEmpty()) {
             submitList(new ArrayList<>(sourceList));
             return;
         }
-        // 使用简单高效的循环过滤，避免 parallelStream 带来的线程开销
-        List<IniFileModel> filtered = new ArrayList<>();
-        for (IniFileModel item : sourceList) {
-            if (item.getIniname().contains(text)) filtered.add(item);
+        List<IniFileModel> files = sourceList;
+        BooleanSupplier cancelled = () -> filterGeneration.get() != generation;
+        pendingFilter = () -> filterExecutor.execute(() -> {
+            if (cancelled.getAsBoolean()) return;
+            IniFileSearchIndex index = searchIndex;
+            if (index == null || index.files() != files) {
+                index = searchIndex = new IniFileSearchIndex(files);
+            }
+            List<IniFileModel> filtered = index.search(text, cancelled);
+            if (filtered == null) return;
+            // 使用 submitList 自动进行差分更新
+            filterHandler.post(() -> {
+                if (!cancelled.getAsBoolean()) submitList(filtered);
+            });
+        });
+        filterHandler.postDelayed(pendingFilter, FILTER_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * 取消等待中和进行中的过滤
+     * @return 新的过滤代数
+     */
+    private int cancelFilter() {
+        if (pendingFilter != null) {
+            filterHandler.removeCallbacks(pendingFilter);
+            pendingFilter = null;
         }
-        filtered.sort(Comparator.comparingInt(o -> o.getIniname().indexOf(text)));
-        // 使用 submitList 自动进行差分更新
-        submitList(filtered);
+        return filterGeneration.incrementAndGet();
     }
 
     public void clear() {
-        sourceList.clear();
+        cancelFilter();
+        sourceList = new ArrayList<>();
         submitList(new ArrayList<>());
     }
 
     public void addAll(List<IniFileModel> data) {
+        cancelFilter();
         sourceList = new ArrayList<>(data);
         precomputeCaches(data);
         submitList(new ArrayList<>(data));
@@ -321,7 +378,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
         List<IniFileModel> currentList = getCurrentList();
         if (position >= 0 && position < currentList.size()) {
             // 使用文件名的hashCode作为稳定ID
-            return currentList.get(position).getRwini().getFile().getPath().hashCode();
+            return currentList.get(position).getFile().getPath().hashCode();
         }
         return RecyclerView.NO_ID;
     }
@@ -369,30 +426,58 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
             translationErrors.clear();
         }
 
-        // 如果是LLM翻译，则使用批量翻译
-        if (enable_llm) {
-            translateWithBatch(selecttionList, dialog);
-        } else {
-            translateIndividually(selecttionList, dialog);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Translator.getExecutorService().execute(() -> {
+            List<IniFileModel> loaded = loadAll(selecttionList);
+            mainHandler.post(() -> {
+                if (loaded.isEmpty()) {
+                    // 选中的文件全部读取失败，直接显示错误
+                    dialog.dismiss();
+                    translationCompleteListener.onTranslationComplete(Collections.emptyList());
+                } else if (enable_llm) {
+                    // 如果是LLM翻译，则使用批量翻译
+                    translateWithBatch(loaded, dialog);
+                } else {
+                    translateIndividually(loaded, dialog);
+                }
+            });
+        });
+    }
+
+    /**
+     * 在后台线程加载尚未加载的文件，读取失败的文件记入{@link TranslationConfigManager#errorFiles}并跳过
+     *
+     * @return 内容可用的文件
+     */
+    private static List<IniFileModel> loadAll(List<IniFileModel> files) {
+        List<IniFileModel> loaded = new ArrayList<>(files.size());
+        for (IniFileModel file : files) {
+            try {
+                file.load();
+                loaded.add(file);
+            } catch (IOException e) {
+                Timber.e(e, "Failed to load %s", file.getFile());
+                TranslationConfigManager.errorFiles.put(file.getFile(), e);
+            }
         }
+        return loaded;
     }
 
     // 批量翻译方法（用于OpenAI，支持多INI文件整合翻译）
     private void translateWithBatch(List<IniFileModel> selecttionList, AlertDialog dialog) {
-        // 收集所有待翻译的文本（跨多个INI文件）
-        List<String> textsToTranslate = new ArrayList<>();
-        List<TranslationContext> contexts = new ArrayList<>();
+        // 收集所有待翻译的文本（跨多个INI文件），相同的遮罩后原文只发送一次
+        TextDeduplicator<TranslationContext> deduplicator = new TextDeduplicator<>();
 
         for (IniFileModel iniFile : selecttionList) {
             for (SectionModel section : iniFile.getData()) {
                 for (SectionModel.Pair pair : section.items()) {
                     TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(pair.getOri_val());
-                    textsToTranslate.add(payload.maskedText());
-                    contexts.add(new TranslationContext(iniFile, section, pair, payload.placeholders()));
+                    deduplicator.add(payload.maskedText(), new TranslationContext(iniFile, section, pair, payload));
                 }
             }
         }
 
+        List<String> textsToTranslate = deduplicator.uniqueTexts();
         final int totalTasks = textsToTranslate.size();
         final int totalFiles = selecttionList.size();
 
@@ -400,7 +485,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
         TextView progressTextView = dialog.findViewById(R.id.mainactivityloadingTextView);
         assert progressTextView != null;
         progressTextView.setText(String.format(Locale.getDefault(), "Translating %d files, %d texts (0/%d)...",
-                totalFiles, totalTasks, totalTasks));
+                totalFiles, deduplicator.totalCount(), totalTasks));
 
         // 无任务直接返回
         if (totalTasks == 0) {
@@ -408,34 +493,89 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
             return;
         }
 
+        String targetLanguage = AppSettings.getCurrentTargetLanguageCode();
+        // 已收到译文的文件，中途失败时这些文件的结果仍然保留；只在主线程读写
+        Set<IniFileModel> touchedFiles = new LinkedHashSet<>();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        PlaceholderVerifier.Report report = new PlaceholderVerifier.Report();
+
         // 使用支持分批的批量翻译
         Translator.LLM_batchTranslate(
                 textsToTranslate,
                 AppSettings.getCurrentFromLanguageCode(),
-                AppSettings.getCurrentTargetLanguageCode(),
+                targetLanguage,
+                report,
                 new Translator.BatchTranslateCallBack() {
                     @Override
-                    public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
+                    public void onItemTranslated(int index, String translation) {
+                        // 每条译文到达即应用（已通过占位符校验），分发给该原文的每一处出现；
+                        // 回调来自网络线程，切到主线程修改数据，避免与列表绑定和完成回调并发
+                        mainHandler.post(() -> {
+                            for (TranslationContext ctx : deduplicator.occurrencesOf(index)) {
+                                String finalTranslation;
+                                try {
+                                    finalTranslation = TemplatePlaceholderProcessor.restore(translation, ctx.payload);
+                                } catch (TemplatePlaceholderProcessor.PlaceholderMismatchException e) {
+                                    recordError(ctx, e);
+                                    continue;
+                                }
+
+                                // 更新翻译结果
+                                if (!AppSettings.getIsOverride()) {
+                                    ctx.pair.getLang_pairs().put(targetLanguage, finalTranslation);
+                                } else {
+                                    ctx.pair.setOri_val(finalTranslation);
+                                }
+                                touchedFiles.add(ctx.iniFile);
+                            }
+                        });
+                    }
 
-                        // 应用翻译结果
-                        for (int i = 0; i < translations.size() && i < contexts.size(); i++) {
-                            TranslationContext ctx = contexts.get(i);
-                            String translation = translations.get(i);
-                            String finalTranslation = TemplatePlaceholderProcessor.restore(translation, ctx.placeholders);
+                    @Override
+                    public void onItemFailed(int index, Throwable t) {
+                        // 多次请求后占位符仍不完整的译文不应用，记入错误列表
+                        mainHandler.post(() -> {
+                            for (TranslationContext ctx : deduplicator.occurrencesOf(index)) {
+                                recordError(ctx, t);
+                            }
+                        });
+                    }
 
-                            // 更新翻译结果
-                            if (!AppSettings.getIsOverride()) {
-                                ctx.pair.getLang_pairs().put(tgtLang, finalTranslation);
-                            } else {
-                                ctx.pair.setOri_val(finalTranslation);
+                    @Override
+                    public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
+                        // 统计去重节省的token和请求数
+                        int savedTokens = 0;
+                        for (String duplicate : deduplicator.duplicateTexts()) {
+                            savedTokens += OpenAITranslator.estimateItemTokens(duplicate);
+                        }
+                        int savedRequests = 0;
+                        if (deduplicator.duplicateCount() > 0) {
+                            List<String> allTexts = new ArrayList<>(deduplicator.totalCount());
+                            for (int i = 0; i < totalTasks; i++) {
+                                for (int n = 0; n < deduplicator.occurrencesOf(i).size(); n++) {
+                                    allTexts.add(textsToTranslate.get(i));
+                                }
                             }
+                            savedRequests = OpenAITranslator.countRequests(allTexts, tgtLang)
+                                    - OpenAITranslator.countRequests(textsToTranslate, tgtLang);
                         }
+                        Timber.i("Batch dedup: %d texts -> %d unique, saved ~%d tokens and %d requests",
+                                deduplicator.totalCount(), totalTasks, savedTokens, savedRequests);
+                        Timber.i("Placeholder integrity: %s", report);
+                        final int tokensSaved = savedTokens;
+                        final int requestsSaved = savedRequests;
 
                         // 更新UI
-                        new Handler(Looper.getMainLooper()).post(() -> {
-                            progressTextView.setText(String.format(Locale.getDefault(), "Translation completed! %d files, %d texts",
-                                    totalFiles, totalTasks));
+                        mainHandler.post(() -> {
+                            String summary = String.format(Locale.getDefault(),
+                                    "Translation completed! %d files, %d texts (%d duplicates merged, ~%d tokens and %d requests saved)",
+                                    totalFiles, deduplicator.totalCount(), deduplicator.duplicateCount(), tokensSaved, requestsSaved);
+                            progressTextView.setText(summary);
                             dialog.dismiss();
+                            if (deduplicator.duplicateCount() > 0) {
+                                Toast.makeText(context, summary, Toast.LENGTH_LONG).show();
+                            }
+                            showIntegrityReport(report);
                             // ListAdapter 会自动通过 DiffUtil 更新变化的项
                             notifyItemRangeChanged(0, getItemCount());
                             if (multiSelectManager.isMultiSelectMode()) multiSelectManager.exitMultiSelectMode();
@@ -446,7 +586,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
                     @Override
                     public void onError(Throwable t) {
                         Timber.e(t, "Batch translation failed");
-                        new Handler(Looper.getMainLooper()).post(() -> {
+                        mainHandler.post(() -> {
                             progressTextView.setText("Translation failed: " + t.getMessage());
 
                             new DialogUtils(context).createSimpleDialog(
@@ -455,17 +595,23 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
                                     (dialog1, which) -> dialog1.dismiss()
                             ).show();
                             dialog.dismiss();
+                            // 已到达的译文已经写入，照常标记这些文件
+                            if (!touchedFiles.isEmpty()) {
+                                notifyItemRangeChanged(0, getItemCount());
+                                if (multiSelectManager.isMultiSelectMode()) multiSelectManager.exitMultiSelectMode();
+                                translationCompleteListener.onTranslationComplete(new ArrayList<>(touchedFiles));
+                            }
                         });
                     }
 
                     @Override
                     public void onProgress(int batchIndex, int totalBatches, int completedTexts, int totalTexts) {
                         // 更新进度显示
-                        new Handler(Looper.getMainLooper()).post(() -> {
+                        mainHandler.post(() -> {
                             if (totalBatches > 1) {
                                 progressTextView.setText(String.format(Locale.getDefault(),
-                                        "Translating %d files: Batch %d/%d (%d/%d texts)...",
-                                        totalFiles, batchIndex + 1, totalBatches, completedTexts, totalTexts));
+                                        "Translating %d files in %d batches (%d/%d texts)...",
+                                        totalFiles, totalBatches, completedTexts, totalTexts));
                             } else {
                                 progressTextView.setText(String.format(Locale.getDefault(),
                                         "Translating %d files (%d/%d texts)...",
@@ -477,101 +623,239 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
         );
     }
 
-    // 逐个翻译方法（用于非OpenAI的翻译器）
+    // 逐个翻译方法（用于非OpenAI的翻译器），作为可恢复的后台任务执行，Activity销毁或进程被杀后仍可继续
     private void translateIndividually(List<IniFileModel> selecttionList, AlertDialog dialog) {
-        // 预计算总任务数
-        final int[] totalTasks = {0};
-        for (IniFileModel iniFile : selecttionList) {
-            for (SectionModel section : iniFile.getData()) {
-                for (SectionModel.Pair ignored : section.items()) {
-                    totalTasks[0]++;
+        String project = DataSet.getCurrentProject().projectName;
+        boolean override = AppSettings.getIsOverride();
+        Translator.Settings settings = Translator.Settings.current();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Translator.getExecutorService().execute(() -> {
+            // 收集所有待翻译的文本，连同所在位置一起写入任务队列
+            List<TranslationJobStore.Item> items = new ArrayList<>();
+            for (IniFileModel iniFile : selecttionList) {
+                List<SectionModel> sections = iniFile.getData();
+                for (int s = 0; s < sections.size(); s++) {
+                    SectionModel section = sections.get(s);
+                    for (int k = 0; k < section.items().size(); k++) {
+                        SectionModel.Pair pair = section.items().get(k);
+                        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(pair.getOri_val());
+                        items.add(new TranslationJobStore.Item(items.size(), iniFile.getFile().getPath(), s, k,
+                                section.name(), pair.getKey().getKeyName(), pair.getOri_val(),
+                                payload.maskedText(), 0));
+                    }
                 }
             }
-        }
+            String jobId = null;
+            String failure = null;
+            if (!items.isEmpty()) {
+                try {
+                    jobId = TranslationJobStore.getInstance().create(project, override, settings, items);
+                } catch (SQLException e) {
+                    Timber.e(e, "Failed to create translation job");
+                    failure = e.getMessage();
+                }
+            }
+            String createdJobId = jobId;
+            String error = failure;
+            mainHandler.post(() -> {
+                // 无任务直接返回
+                if (createdJobId == null) {
+                    dialog.dismiss();
+                    if (error != null) {
+                        Toast.makeText(context, context.getString(R.string.project_act_operation_failed, error),
+                                Toast.LENGTH_SHORT).show();
+                    }
+                    return;
+                }
+                if (context instanceof Activity activity) {
+                    TranslationWorker.requestNotificationPermission(activity);
+                }
+                TranslationWorker.enqueue(context, createdJobId);
+                observeJob(createdJobId, dialog);
+            });
+        });
+    }
 
-        // 获取进度文本视图
+    /**
+     * 重新打开项目时接管尚未写回的后台任务：仍在运行的继续显示进度，已结束的直接写回结果，
+     * 任务记录已被WorkManager清理的重新提交，从未完成的条目继续
+     */
+    public void resumeTranslationJobs() {
+        if (DataSet.getCurrentProject() == null) return;
+        String project = DataSet.getCurrentProject().projectName;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Translator.getExecutorService().execute(() -> {
+            List<TranslationJobStore.Job> jobs = TranslationJobStore.getInstance().jobs(project);
+            for (TranslationJobStore.Job job : jobs) {
+                List<WorkInfo> infos;
+                try {
+                    infos = WorkManager.getInstance(context)
+                            .getWorkInfosForUniqueWork(TranslationWorker.uniqueWorkName(job.id())).get();
+                } catch (ExecutionException | InterruptedException e) {
+                    Timber.w(e, "Failed to query translation job %s", job.id());
+                    continue;
+                }
+                boolean finished = !infos.isEmpty() && infos.get(infos.size() - 1).getState().isFinished();
+                Timber.i("Resuming translation job %s (finished: %b)", job.id(), finished);
+                mainHandler.post(() -> {
+                    if (finished) {
+                        applyJob(job.id());
+                        return;
+                    }
+                    if (infos.isEmpty()) TranslationWorker.enqueue(context, job.id());
+                    AlertDialog dialog = new DialogUtils(context).createLoadingDialog("Resuming...");
+                    dialog.show();
+                    observeJob(job.id(), dialog);
+                });
+            }
+        });
+    }
+
+    /**
+     * 在对话框中显示后台任务的进度，任务结束后写回结果；按返回键取消任务，已完成的译文保留
+     */
+    @SuppressLint("SetTextI18n")
+    private void observeJob(String jobId, AlertDialog dialog) {
         TextView progressTextView = dialog.findViewById(R.id.mainactivityloadingTextView);
         assert progressTextView != null;
-        progressTextView.setText("Translating (0/" + totalTasks[0] + ")...");
+        LiveData<List<WorkInfo>> workInfos = WorkManager.getInstance(context)
+                .getWorkInfosForUniqueWorkLiveData(TranslationWorker.uniqueWorkName(jobId));
+        workInfos.observe((LifecycleOwner) context, new Observer<>() {
+            @Override
+            public void onChanged(List<WorkInfo> infos) {
+                if (infos == null || infos.isEmpty()) return;
+                WorkInfo info = infos.get(infos.size() - 1);
+                if (info.getState().isFinished()) {
+                    workInfos.removeObserver(this);
+                    dialog.dismiss();
+                    applyJob(jobId);
+                    return;
+                }
+                Data progress = info.getProgress();
+                int total = progress.getInt(TranslationWorker.KEY_TOTAL, 0);
+                if (total == 0) return;
+                String stats = progress.getString(TranslationWorker.KEY_STATS);
+                progressTextView.setText("Translating (" + progress.getInt(TranslationWorker.KEY_COMPLETED, 0)
+                        + "/" + total + ")..." + (stats == null || stats.isEmpty() ? "" : "\n" + stats));
+            }
+        });
 
-        // 无任务直接返回
-        if (totalTasks[0] == 0) {
-            dialog.dismiss();
-            return;
-        }
-        // 原子计数器跟踪完成数
-        AtomicInteger completedTasks = new AtomicInteger(0);
-        // 遍历选中的IniFileModel进行翻译
-        for (IniFileModel iniFile : selecttionList) {
-            for (SectionModel section : iniFile.getData()) {
-                for (SectionModel.Pair pair : section.items()) {
-                    TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(pair.getOri_val());
-                    List<String> placeholders = payload.placeholders();
-                    String textForTranslation = payload.maskedText();
-
-                    var translateCallBack = new Translator.TranslateCallBack() {
-                        @Override
-                        public void onSuccess(String translation, String srcLang, String tgtLang) {
-                            String finalTranslation = TemplatePlaceholderProcessor.restore(translation, placeholders);
-                            // 更新翻译结果
-                            if (!AppSettings.getIsOverride()) {
-                                pair.getLang_pairs().put(tgtLang, finalTranslation);
-                            } else {
-                                pair.setOri_val(finalTranslation);
-                            }
-                            updateProgress(completedTasks, totalTasks[0], progressTextView, dialog, selecttionList);
-                        }
+        dialog.setCancelable(true);
+        dialog.setCanceledOnTouchOutside(false);
+        dialog.setOnCancelListener(d -> {
+            Timber.i("Cancelling translation job %s", jobId);
+            TranslationWorker.cancel(context, jobId);
+        });
+    }
 
-                        @Override
-                        public void onError(Throwable t) {
-                            updateProgress(completedTasks, totalTasks[0], progressTextView, dialog, selecttionList);
-
-                            // 记录详细的日志信息
-                            String filePath = iniFile.getRwini().getFile().getAbsolutePath();
-                            String keyName = pair.getKey().getKeyName();
-                            String originalValue = pair.getOri_val();
-
-                            Timber.e(t, "Translation error for file: %s, section: %s, key: %s, value: %s",
-                                    filePath, section.name(), keyName, originalValue);
-
-                            // 添加到翻译错误列表
-                            synchronized (translationErrors) {
-                                translationErrors.add(new TranslationError(
-                                        filePath,
-                                        section.name(),
-                                        keyName,
-                                        originalValue,
-                                        t
-                                ));
-                            }
-                        }
-                    };
-                    Translator.translate(
-                            textForTranslation,
-                            translateCallBack);
+    /**
+     * 把任务中已完成的结果写回INI模型并删除任务，失败的条目加入错误列表
+     */
+    private void applyJob(String jobId) {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Translator.getExecutorService().execute(() -> {
+            TranslationJobStore store = TranslationJobStore.getInstance();
+            TranslationJobStore.Job job = store.job(jobId);
+            if (job == null) return;
+            List<TranslationJobStore.Finished> finished = store.finished(jobId);
+            PlaceholderVerifier.Report report = store.integrity(jobId);
+            // 在后台加载涉及的文件并定位条目，读取失败的文件记入错误列表
+            Map<String, IniFileModel> files = new HashMap<>();
+            List<SectionModel.Pair> pairs = new ArrayList<>(finished.size());
+            for (TranslationJobStore.Finished result : finished) {
+                String path = result.item().file();
+                if (!files.containsKey(path)) {
+                    IniFileModel iniFile = DataSet.getIniFileModel(path);
+                    if (iniFile != null && !loadAll(List.of(iniFile)).isEmpty()) {
+                        // 写回前不允许释放内容
+                        iniFile.setModified(true);
+                    } else {
+                        iniFile = null;
+                    }
+                    files.put(path, iniFile);
                 }
+                IniFileModel iniFile = files.get(path);
+                pairs.add(iniFile == null ? null : findPair(iniFile, result.item()));
             }
+            mainHandler.post(() -> {
+                Set<IniFileModel> touchedFiles = new LinkedHashSet<>();
+                int applied = 0;
+                for (int i = 0; i < finished.size(); i++) {
+                    TranslationJobStore.Item item = finished.get(i).item();
+                    SectionModel.Pair pair = pairs.get(i);
+                    if (pair == null) {
+                        Timber.w("Translation target no longer exists: %s [%s] %s", item.file(), item.section(), item.key());
+                        continue;
+                    }
+                    touchedFiles.add(files.get(item.file()));
+                    TranslationJobStore.Outcome outcome = finished.get(i).outcome();
+                    if (outcome.error() != null) {
+                        synchronized (translationErrors) {
+                            translationErrors.add(new TranslationError(item.file(), item.section(), item.key(),
+                                    item.original(), new IOException(outcome.error())));
+                        }
+                        continue;
+                    }
+                    // 译文在后台已通过占位符校验并还原
+                    String translation = outcome.translation();
+                    if (job.override()) {
+                        pair.setOri_val(translation);
+                    } else {
+                        pair.getLang_pairs().put(outcome.targetLanguage(), translation);
+                    }
+                    applied++;
+                }
+                Timber.i("Applied %d/%d results of translation job %s, placeholder integrity: %s",
+                        applied, finished.size(), jobId, report);
+                showIntegrityReport(report);
+                touchedFiles.forEach(file -> file.setModified(true));
+                Translator.getExecutorService().execute(() -> store.delete(jobId));
+                // ListAdapter 会自动通过 DiffUtil 更新变化的项
+                notifyItemRangeChanged(0, getItemCount());
+                if (multiSelectManager.isMultiSelectMode()) multiSelectManager.exitMultiSelectMode();
+                translationCompleteListener.onTranslationComplete(new ArrayList<>(touchedFiles));
+            });
+        });
+    }
+
+    /**
+     * 有条目被重新请求或最终失败时提示校验结果
+     */
+    private void showIntegrityReport(PlaceholderVerifier.Report report) {
+        if (!report.hasProblems()) return;
+        Toast.makeText(context, context.getString(R.string.translation_integrity_report,
+                report.getRetried(), report.getRepaired(), report.getFailed()), Toast.LENGTH_LONG).show();
+    }
+
+    private static void recordError(TranslationContext ctx, Throwable t) {
+        String filePath = ctx.iniFile.getFile().getAbsolutePath();
+        Timber.w(t, "Translation error for file: %s, section: %s, key: %s",
+                filePath, ctx.section.name(), ctx.pair.getKey().getKeyName());
+        synchronized (translationErrors) {
+            translationErrors.add(new TranslationError(filePath, ctx.section.name(), ctx.pair.getKey().getKeyName(),
+                    ctx.pair.getOri_val(), t));
         }
     }
 
-    // 进度更新方法
-    @SuppressLint({"SetTextI18n", "NotifyDataSetChanged"})
-    private void updateProgress(AtomicInteger counter, int total, TextView tv, AlertDialog dialog, List<IniFileModel> translatedFiles) {
-        int current = counter.incrementAndGet();
-        new Handler(Looper.getMainLooper())
-                .post(
-                        () -> {
-                            tv.setText("Translating (" + current + "/" + total + ")...");
-                            if (current == total) {
-                                dialog.dismiss();
-                                // ListAdapter 会自动通过 DiffUtil 更新变化的项
-                                notifyItemRangeChanged(0, getItemCount());
-                                if (multiSelectManager.isMultiSelectMode())
-                                    multiSelectManager.exitMultiSelectMode();
-                                // 通知翻译完成
-                                translationCompleteListener.onTranslationComplete(translatedFiles);
-                            }
-                        });
+    /**
+     * 按位置定位任务条目对应的键，文件在任务期间被编辑过时再按分组名和键名查找
+     */
+    private static SectionModel.Pair findPair(IniFileModel iniFile, TranslationJobStore.Item item) {
+        List<SectionModel> sections = iniFile.getData();
+        if (item.sectionIndex() < sections.size()) {
+            SectionModel section = sections.get(item.sectionIndex());
+            if (section.name().equals(item.section()) && item.itemIndex() < section.items().size()) {
+                SectionModel.Pair pair = section.items().get(item.itemIndex());
+                if (pair.getKey().getKeyName().equals(item.key())) return pair;
+            }
+        }
+        for (SectionModel section : sections) {
+            if (!section.name().equals(item.section())) continue;
+            for (SectionModel.Pair pair : section.items()) {
+                if (pair.getKey().getKeyName().equals(item.key())) return pair;
+            }
+        }
+        return null;
     }
 
     /**
@@ -590,6 +874,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
     }
 
     public void setMData(List<IniFileModel> data) {
+        cancelFilter();
         sourceList = new ArrayList<>(data);
         precomputeCaches(data);
         submitList(new ArrayList<>(data));
@@ -764,7 +1049,7 @@ public class IniFileManagerAdapter extends ListAdapter<IniFileModel, RecyclerVie
 
     // 翻译上下文类，用于批量翻译
         private record TranslationContext(IniFileModel iniFile, SectionModel section, SectionModel.Pair pair,
-                                          List<String> placeholders) {
+                                          TemplatePlaceholderProcessor.Payload payload) {
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,242 @@
+package com.eam.rwtranslator.ui.project;
+
+import androidx.annotation.Nullable;
+
+import com.eam.rwtranslator.data.model.IniFileModel;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 文件列表的搜索索引，按文件名和相对于项目公共目录的路径（均转为小写）建立n-gram倒排表：
+ * 单字符倒排表用于缩小子序列（模糊）匹配的候选范围，三字符倒排表用于缩小子串匹配的候选范围。
+ * 结果按匹配程度排序：文件名完全相同、文件名前缀、文件名子串、路径子串、文件名子序列、路径子序列，
+ * 同一档内匹配位置靠前或跨度小的在前，其余保持原顺序。
+ * 不是线程安全的，只应在同一个后台线程中查询。
+ */
+final class IniFileSearchIndex {
+    // 每检查多少个候选查询一次是否已取消
+    private static final int CANCEL_CHECK_STEP = 256;
+    private static final int[] NO_IDS = new int[0];
+
+    private final List<IniFileModel> files;
+    private final IniFileModel[] models;
+    // 小写的相对路径，文件名是其末尾部分
+    private final String[] paths;
+    private final int[] nameStarts;
+    private final Map<Character, int[]> unigrams;
+    private final Map<Long, int[]> trigrams;
+
+    // 上一次完成的查询及其结果，输入内容只在末尾追加时据此缩小候选范围
+    private String lastQuery;
+    private int[] lastMatches;
+
+    /**
+     * @param files 文件列表，索引只保存其快照，之后列表的变化不会反映到索引中
+     */
+    IniFileSearchIndex(List<IniFileModel> files) {
+        this.files = files;
+        models = files.toArray(new IniFileModel[0]);
+        paths = new String[models.length];
+        nameStarts = new int[models.length];
+        int rootLength = commonDirectoryLength(models);
+        Map<Character, IdList> unigramLists = new HashMap<>();
+        Map<Long, IdList> trigramLists = new HashMap<>();
+        for (int id = 0; id < models.length; id++) {
+            File file = models[id].getFile();
+            String path = file == null ? models[id].getIniname() : file.getPath().substring(rootLength);
+            path = path.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
+            paths[id] = path;
+            nameStarts[id] = path.lastIndexOf('/') + 1;
+            for (int i = 0; i < path.length(); i++) {
+                unigramLists.computeIfAbsent(path.charAt(i), k -> new IdList()).add(id);
+                if (i + 3 <= path.length()) {
+                    trigramLists.computeIfAbsent(trigram(path, i), k -> new IdList()).add(id);
+                }
+            }
+        }
+        unigrams = new HashMap<>(unigramLists.size() * 2);
+        unigramLists.forEach((c, list) -> unigrams.put(c, list.toArray()));
+        trigrams = new HashMap<>(trigramLists.size() * 2);
+        trigramLists.forEach((t, list) -> trigrams.put(t, list.toArray()));
+    }
+
+    /**
+     * 建立索引时的文件列表，用于判断索引是否过期
+     */
+    List<IniFileModel> files() {
+        return files;
+    }
+
+    /**
+     * 按匹配程度排序返回匹配的文件，不区分大小写。
+     *
+     * @param cancelled 返回true时放弃本次查询
+     * @return 匹配的文件，查询被取消时返回null
+     */
+    @Nullable
+    List<IniFileModel> search(String text, BooleanSupplier cancelled) {
+        String query = text.toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new ArrayList<>(files);
+        }
+        // 满足新查询的文件一定满足它的任意前缀，可直接在上次的结果中查找
+        int[] candidates = lastQuery != null && query.startsWith(lastQuery) ? lastMatches : null;
+        for (int i = 0; i < query.length() && (candidates == null || candidates.length > 0); i++) {
+            int[] ids = unigrams.get(query.charAt(i));
+            candidates = ids == null ? NO_IDS : candidates == null ? ids : intersect(candidates, ids);
+        }
+        // 三字符倒排表命中的才可能包含整个查询串，其余候选只需检查子序列
+        int[] substrings = query.length() < 3 ? candidates : substringCandidates(query, candidates);
+
+        long[] ranked = new long[candidates.length];
+        int matched = 0;
+        int next = 0;
+        for (int c = 0; c < candidates.length; c++) {
+            if (c % CANCEL_CHECK_STEP == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            int id = candidates[c];
+            while (next < substrings.length && substrings[next] < id) next++;
+            boolean maybeSubstring = next < substrings.length && substrings[next] == id;
+            long rank = rank(id, query, maybeSubstring);
+            if (rank >= 0) ranked[matched++] = rank;
+        }
+        Arrays.sort(ranked, 0, matched);
+
+        int[] matches = new int[matched];
+        List<IniFileModel> result = new ArrayList<>(matched);
+        for (int i = 0; i < matched; i++) {
+            int id = (int) ranked[i];
+            matches[i] = id;
+            result.add(models[id]);
+        }
+        Arrays.sort(matches);
+        lastQuery = query;
+        lastMatches = matches;
+        return result;
+    }
+
+    private int[] substringCandidates(String query, int[] candidates) {
+        int[] ids = candidates;
+        for (int i = 0; i + 3 <= query.length() && ids.length > 0; i++) {
+            int[] postings = trigrams.get(trigram(query, i));
+            ids = postings == null ? NO_IDS : intersect(ids, postings);
+        }
+        return ids;
+    }
+
+    /**
+     * 排序键：高16位为匹配档次，其次16位为位置或跨度，低32位为原顺序
+     *
+     * @return 不匹配时返回-1
+     */
+    private long rank(int id, String query, boolean maybeSubstring) {
+        String path = paths[id];
+        int nameStart = nameStarts[id];
+        int tier;
+        int detail;
+        int position = maybeSubstring ? path.indexOf(query, nameStart) : -1;
+        if (position >= 0) {
+            position -= nameStart;
+            tier = position > 0 ? 2 : path.length() - nameStart == query.length() ? 0 : 1;
+            detail = position;
+        } else if (maybeSubstring && (position = path.indexOf(query)) >= 0) {
+            tier = 3;
+            detail = position;
+        } else if ((detail = subsequenceSpan(path, nameStart, query)) >= 0) {
+            tier = 4;
+        } else if ((detail = subsequenceSpan(path, 0, query)) >= 0) {
+            tier = 5;
+        } else {
+            return -1;
+        }
+        return (long) tier << 48 | (long) Math.min(detail, 0xFFFF) << 32 | id;
+    }
+
+    /**
+     * query是否为path从from开始部分的子序列
+     *
+     * @return 匹配部分的跨度，不匹配时返回-1
+     */
+    private static int subsequenceSpan(String path, int from, String query) {
+        int first = -1;
+        int position = from;
+        for (int i = 0; i < query.length(); i++) {
+            position = path.indexOf(query.charAt(i), position);
+            if (position < 0) return -1;
+            if (first < 0) first = position;
+            position++;
+        }
+        return position - first;
+    }
+
+    private static long trigram(String text, int start) {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+    }
+
+    /**
+     * 两个升序id数组的交集
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 所有文件所在目录的公共前缀长度，路径相对于此目录显示和匹配
+     */
+    private static int commonDirectoryLength(IniFileModel[] models) {
+        String common = null;
+        for (IniFileModel model : models) {
+            File parent = model.getFile() == null ? null : model.getFile().getParentFile();
+            if (parent == null) return 0;
+            String directory = parent.getPath() + File.separatorChar;
+            if (common == null) {
+                common = directory;
+                continue;
+            }
+            int length = 0;
+            int limit = Math.min(common.length(), directory.length());
+            while (length < limit && common.charAt(length) == directory.charAt(length)) length++;
+            common = common.substring(0, common.lastIndexOf(File.separatorChar, length - 1) + 1);
+        }
+        return common == null ? 0 : common.length();
+    }
+
+    /**
+     * 建立索引时使用的升序id列表，同一文件连续加入时只记录一次
+     */
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
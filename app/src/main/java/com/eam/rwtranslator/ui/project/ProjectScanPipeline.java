@@ -0,0 +1,207 @@
+package com.eam.rwtranslator.ui.project;
+
+import com.eam.rwtranslator.data.cache.FileStamp;
+import com.eam.rwtranslator.utils.FilesHandler;
+import com.eam.rwtranslator.utils.TranslationKeyMatcher;
+import com.eam.rwtranslator.utils.TranslationKeys;
+import com.eam.rwtranslator.utils.ini.IniDocument;
+import com.eam.rwtranslator.utils.ini.RWIniFileLoader;
+
+import org.ini4j.Wini;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import timber.log.Timber;
+
+/**
+ * 项目扫描流水线：目录遍历 -> 字节级预筛选 -> 仅对命中文件完整解析。
+ * 遍历在调用线程上进行，发现的文件立即提交到有界的work-stealing线程池，遍历与解析同时进行。
+ */
+public final class ProjectScanPipeline {
+    private static final int MAX_PARALLELISM = 8;
+    // 每处理多少个文件回调一次进度
+    private static final int PROGRESS_STEP = 25;
+
+    /**
+     * 扫描进度回调，可能在工作线程中调用。
+     */
+    public interface ProgressListener {
+        /**
+         * @param processed  已处理的文件数
+         * @param discovered 目前已发现的文件数，目录遍历结束前会持续增长
+         */
+        void onProgress(int processed, int discovered);
+    }
+
+    private final Map<File, Exception> errorFiles;
+    private final ProgressListener listener;
+    private final ConcurrentHashMap<String, Wini> results = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<TranslationKeys>> seenKeys = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, FileStamp> fileStamps = new ConcurrentHashMap<>();
+    private final Set<String> unchangedFiles = ConcurrentHashMap.newKeySet();
+    private Map<String, FileStamp> knownStamps = Collections.emptyMap();
+    private final AtomicInteger discovered = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+
+    /**
+     * @param errorFiles 解析失败的文件及异常，需为线程安全的Map
+     * @param listener   进度回调，可为null
+     */
+    public ProjectScanPipeline(Map<File, Exception> errorFiles, ProgressListener listener) {
+        this.errorFiles = errorFiles;
+        this.listener = listener;
+    }
+
+    /**
+     * 遍历目录并扫描其中的.ini/.template文件。
+     *
+     * @return 文件路径到含翻译键的INI的映射
+     */
+    public Map<String, Wini> scan(File rootDir) {
+        ExecutorService executor = createExecutor();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            FilesHandler.walkIniFiles(rootDir, file -> futures.add(submit(executor, file)));
+            awaitAll(futures);
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * 扫描给定的文件列表。
+     */
+    public Map<String, Wini> scan(Collection<File> files) {
+        ExecutorService executor = createExecutor();
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        try {
+            for (File file : files) {
+                futures.add(submit(executor, file));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * 预筛选阶段在每个命中文件中发现的翻译键，后续阶段只需检查这些键。
+     */
+    public Map<String, Set<TranslationKeys>> getSeenKeys() {
+        return seenKeys;
+    }
+
+    /**
+     * 所有成功读取的文件（包括不含翻译键的文件）的指纹，由扫描时已读取的内容计算，无需再次读盘。
+     */
+    public Map<String, FileStamp> getFileStamps() {
+        return fileStamps;
+    }
+
+    /**
+     * 设置上次扫描的文件指纹。内容与之相同的文件只更新指纹，不再解析，并记入 {@link #getUnchangedFiles()}。
+     */
+    public void setKnownStamps(Map<String, FileStamp> knownStamps) {
+        this.knownStamps = knownStamps;
+    }
+
+    /**
+     * 修改时间变化但内容与已知指纹相同的文件。
+     */
+    public Set<String> getUnchangedFiles() {
+        return unchangedFiles;
+    }
+
+    private Future<?> submit(ExecutorService executor, File file) {
+        discovered.incrementAndGet();
+        return executor.submit(() -> process(file));
+    }
+
+    private void process(File file) {
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            FileStamp stamp = FileStamp.of(file, content);
+            fileStamps.put(file.getPath(), stamp);
+            if (stamp.sameContent(knownStamps.get(file.getPath()))) {
+                unchangedFiles.add(file.getPath());
+                return;
+            }
+            // 字节级预筛选：没有任何翻译键的文件直接跳过，不做解码和解析
+            int keyMask = TranslationKeyMatcher.getInstance().scan(content);
+            if (keyMask == 0) {
+                return;
+            }
+            Set<TranslationKeys> keys = TranslationKeyMatcher.toKeys(keyMask);
+            IniDocument document = RWIniFileLoader.parse(file, content);
+            if (containsTranslationKeys(document, keys)) {
+                results.put(file.getPath(), RWIniFileLoader.asWini(document));
+                seenKeys.put(file.getPath(), keys);
+            }
+        } catch (Exception err) {
+            // 记录异常信息
+            Timber.e(err, " Exception occurred while parsing ini file:%s", file.getAbsolutePath());
+            errorFiles.put(file, err);
+        } finally {
+            int done = processed.incrementAndGet();
+            if (done % PROGRESS_STEP == 0) {
+                reportProgress(done);
+            }
+        }
+    }
+
+    private void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Project scan interrupted", e);
+            } catch (ExecutionException e) {
+                // process()已捕获解析异常，这里只会是意外错误
+                Timber.e(e.getCause());
+            }
+        }
+        reportProgress(processed.get());
+    }
+
+    private void reportProgress(int done) {
+        if (listener != null) {
+            listener.onProgress(done, discovered.get());
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        int parallelism = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLELISM));
+        return Executors.newWorkStealingPool(parallelism);
+    }
+
+    /**
+     * 判断文档中是否存在任一可翻译键
+     */
+    static boolean containsTranslationKeys(IniDocument document, Set<TranslationKeys> candidates) {
+        for (String sectionName : document.sectionNames()) {
+            Map<String, String> section = document.section(sectionName);
+            for (TranslationKeys tranKey : candidates) {
+                if (section.containsKey(tranKey.getKeyName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -2,6 +2,12 @@ package com.eam.rwtranslator.ui.project;
 
 
 import com.eam.rwtranslator.AppConfig;
+import com.eam.rwtranslator.data.cache.FileStamp;
+import com.eam.rwtranslator.data.cache.FingerprintIndex;
+import com.eam.rwtranslator.data.cache.ProjectCacheReader;
+import com.eam.rwtranslator.data.cache.ProjectCacheWriter;
+import com.eam.rwtranslator.data.model.IniFileModel;
+import com.eam.rwtranslator.data.model.LangTable;
 import com.eam.rwtranslator.data.model.SectionModel;
 import com.eam.rwtranslator.utils.FilesHandler;
 import com.eam.rwtranslator.utils.TranslationKeys;
@@ -9,15 +15,11 @@ import com.eam.rwtranslator.utils.deserializer.FileDeserializer;
 import com.eam.rwtranslator.utils.deserializer.HashMapWiniDeserializer;
 import com.eam.rwtranslator.utils.deserializer.WiniDeserializer;
 import com.eam.rwtranslator.utils.ini.RWIniFileLoader;
-import com.eam.rwtranslator.utils.serializer.FileSerializer;
-import com.eam.rwtranslator.utils.serializer.HashMapWiniSerializer;
-import com.eam.rwtranslator.utils.serializer.WiniSerializer;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 
-import org.ini4j.Ini;
 import org.ini4j.Wini;
 
 import java.io.*;
@@ -28,13 +30,19 @@ import java.util.concurrent.*;
 import timber.log.Timber;
 
 /**
- * 项目翻译配置管理类，负责INI文件的加载、序列化、反序列化、多语言键值对管理等。
+ * 项目翻译配置管理类，负责INI文件的加载、项目缓存读写、多语言键值对管理等。
+ * 打开项目时只读取缓存索引，各文件的Wini在首次访问时才从缓存加载。
  */
-public class TranslationConfigManager {
+public class TranslationConfigManager implements IniFileModel.ContentLoader {
     // 用于记录加载异常的INI文件,异常，信息
     public static final Map<File, Exception> errorFiles = Collections.synchronizedMap(new HashMap<>());
-    private static final String PROJECT_FILE_EXTENSION = ".json";
-    // INI文件映射
+    // 二进制项目缓存，格式见ProjectCacheFormat
+    public static final String PROJECT_FILE_EXTENSION = ".rwcache";
+    // 旧版Gson JSON缓存，打开时迁移为二进制缓存
+    public static final String LEGACY_PROJECT_FILE_EXTENSION = ".json";
+    // 项目文件指纹索引，格式见FingerprintIndex
+    public static final String FINGERPRINT_FILE_EXTENSION = ".rwindex";
+    // 已加载的INI文件映射，未加载的文件只存在于缓存索引中
     public HashMap<String, Wini> translationIniFiles;
     // 项目名
     public String projectName;
@@ -44,6 +52,13 @@ public class TranslationConfigManager {
     public File projectFile;
     // 线程池
     private transient ExecutorService executorService;
+    // 扫描时预筛选到的翻译键，按文件路径索引，用于跳过不存在的键
+    private transient Map<String, Set<TranslationKeys>> translationKeyHints;
+    // 项目中所有INI文件最近一次读取时的指纹，写缓存时文件未变化则直接复用，与缓存一同持久化
+    private final transient Map<String, FileStamp> fileStamps = new ConcurrentHashMap<>();
+    // 当前项目缓存及其文件索引，按文件路径索引
+    private transient ProjectCacheReader cacheReader;
+    private final transient Map<String, ProjectCacheReader.CachedFile> cachedFiles = new LinkedHashMap<>();
 
     /**
      * 无参构造函数，主要用于反序列化。
@@ -54,15 +69,33 @@ public class TranslationConfigManager {
     }
 
     public TranslationConfigManager(File projectRootDir, HashMap<String, Wini> translationIniFiles) throws IOException {
+        this(projectRootDir, translationIniFiles, Collections.emptyMap());
+    }
+
+    /**
+     * @param fileStamps 扫描时已得到的文件指纹，写缓存时不再重新读取这些文件
+     */
+    public TranslationConfigManager(File projectRootDir, HashMap<String, Wini> translationIniFiles,
+                                    Map<String, FileStamp> fileStamps) throws IOException {
         this.executorService = Executors.newFixedThreadPool(10);
         this.translationIniFiles = translationIniFiles;
         this.projectRootDir = projectRootDir;
-        this.projectFile =
-                new File(
-                        AppConfig.externalCacheSerialDir, projectRootDir.getName() + PROJECT_FILE_EXTENSION);
+        this.projectFile = projectFileFor(projectRootDir.getName(), PROJECT_FILE_EXTENSION);
+        this.fileStamps.putAll(fileStamps);
         serialize();
     }
 
+    /**
+     * 项目缓存文件路径。
+     *
+     * @param projectName 项目名
+     * @param extension   {@link #PROJECT_FILE_EXTENSION}、{@link #FINGERPRINT_FILE_EXTENSION}
+     *                    或 {@link #LEGACY_PROJECT_FILE_EXTENSION}
+     */
+    public static File projectFileFor(String projectName, String extension) {
+        return new File(AppConfig.externalCacheSerialDir, projectName + extension);
+    }
+
     /**
      * 根据项目根目录获取项目实例。
      *
@@ -72,67 +105,219 @@ public class TranslationConfigManager {
 
     public static TranslationConfigManager getInstance(File projectRootDir)
             throws IOException, ClassNotFoundException {
+        return getInstance(projectRootDir, null);
+    }
+
+    /**
+     * 根据项目根目录获取项目实例，首次导入时通过listener报告扫描进度。
+     *
+     * @param projectRootDir 项目根目录
+     * @param listener       扫描进度回调，可为null
+     * @return 项目实例
+     */
+    public static TranslationConfigManager getInstance(File projectRootDir,
+                                                       ProjectScanPipeline.ProgressListener listener)
+            throws IOException, ClassNotFoundException {
 
-        File projectFile =
-                new File(
-                        AppConfig.externalCacheSerialDir, projectRootDir.getName() + PROJECT_FILE_EXTENSION);
+        File projectFile = projectFileFor(projectRootDir.getName(), PROJECT_FILE_EXTENSION);
+        File legacyFile = projectFileFor(projectRootDir.getName(), LEGACY_PROJECT_FILE_EXTENSION);
 
         if (projectFile.exists()) {
-            return deserialize(projectFile);
-        } else {
-            var translationIniFiles = loadTranslationIniFiles(FilesHandler.LeachFilename(projectRootDir));
-            projectFile.createNewFile();
+            try {
+                TranslationConfigManager manager = readProjectCache(projectRootDir, projectFile);
+                manager.reconcile(listener);
+                return manager;
+            } catch (IOException e) {
+                // 缓存损坏或版本不符，丢弃后重新扫描
+                Timber.w(e, "Discarding unreadable project cache %s", projectFile.getAbsolutePath());
+                projectFile.delete();
+            }
+        } else if (legacyFile.exists()) {
+            TranslationConfigManager manager = deserialize(legacyFile);
+            manager.projectFile = projectFile;
+            manager.serialize();
+            manager.translationIniFiles.clear();
+            legacyFile.delete();
+            return manager;
+        }
+        // 清空异常文件列表，准备新的加载过程
+        errorFiles.clear();
+        ProjectScanPipeline pipeline = new ProjectScanPipeline(errorFiles, listener);
+        var translationIniFiles = new HashMap<>(pipeline.scan(projectRootDir));
+
+        TranslationConfigManager manager =
+                new TranslationConfigManager(projectRootDir, translationIniFiles, pipeline.getFileStamps());
+        manager.translationKeyHints = pipeline.getSeenKeys();
+        // 扫描结果已写入缓存，释放完整解析的Wini，之后按需从缓存加载
+        manager.translationIniFiles.clear();
+        return manager;
+    }
+
+    /*
+    从二进制缓存恢复项目，只读取索引，不读取任何INI文件
+    */
+    private static TranslationConfigManager readProjectCache(File projectRootDir, File projectFile)
+            throws IOException {
+        TranslationConfigManager manager = new TranslationConfigManager();
+        manager.projectRootDir = projectRootDir;
+        manager.projectFile = projectFile;
+        manager.translationIniFiles = new HashMap<>();
+        manager.openCache();
+        File fingerprintFile = manager.fingerprintFile();
+        if (fingerprintFile.exists()) {
+            try {
+                manager.fileStamps.putAll(FingerprintIndex.read(fingerprintFile));
+            } catch (IOException e) {
+                // 指纹丢失时只会把不含翻译键的文件当作新文件重新筛选一次
+                Timber.w(e, "Ignoring unreadable fingerprint index %s", fingerprintFile.getName());
+            }
+        }
+        Timber.d("Loaded project cache %s: %d files", projectFile.getName(), manager.cachedFiles.size());
+        return manager;
+    }
 
-            return new TranslationConfigManager(projectRootDir, translationIniFiles);
+    /*
+    对比磁盘文件与指纹索引：未变化的文件沿用缓存，变化和新增的文件重新扫描，已删除的文件移出项目。
+    大小和修改时间一致即视为未变化；不一致时由扫描流水线比较内容哈希，内容相同则不再解析
+    */
+    private void reconcile(ProjectScanPipeline.ProgressListener listener) throws IOException {
+        Map<String, FileStamp> knownStamps = new HashMap<>(fileStamps);
+        Set<String> deleted = new HashSet<>(knownStamps.keySet());
+        List<File> candidates = new ArrayList<>();
+        FilesHandler.walkIniFiles(projectRootDir, file -> {
+            deleted.remove(file.getPath());
+            FileStamp stamp = knownStamps.get(file.getPath());
+            if (stamp == null || !stamp.matches(file)) {
+                candidates.add(file);
+            }
+        });
+        if (candidates.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+
+        errorFiles.clear();
+        ProjectScanPipeline pipeline = new ProjectScanPipeline(errorFiles, listener);
+        pipeline.setKnownStamps(knownStamps);
+        Map<String, Wini> rescanned = pipeline.scan(candidates);
+        fileStamps.putAll(pipeline.getFileStamps());
+        translationKeyHints = pipeline.getSeenKeys();
+
+        int changed = 0;
+        for (File file : candidates) {
+            String path = file.getPath();
+            if (pipeline.getUnchangedFiles().contains(path)) {
+                continue;
+            }
+            changed++;
+            Wini ini = rescanned.get(path);
+            if (ini != null) {
+                cachedFiles.remove(path);
+                translationIniFiles.put(path, ini);
+            } else {
+                // 不再含翻译键或解析失败
+                removeIniFile(path);
+            }
+        }
+        for (String path : deleted) {
+            fileStamps.remove(path);
+            removeIniFile(path);
+        }
+        Timber.d("Reconciled project %s: %d candidates, %d changed, %d deleted",
+                projectRootDir.getName(), candidates.size(), changed, deleted.size());
+
+        serialize();
+        // 变化的文件已写入缓存，释放完整解析的Wini
+        translationIniFiles.clear();
+    }
+
+    private File fingerprintFile() {
+        return projectFileFor(projectRootDir.getName(), FINGERPRINT_FILE_EXTENSION);
+    }
+
+    private void openCache() throws IOException {
+        cacheReader = ProjectCacheReader.open(projectFile);
+        cachedFiles.clear();
+        for (ProjectCacheReader.CachedFile cachedFile : cacheReader.files()) {
+            cachedFiles.put(cachedFile.path(), cachedFile);
+            fileStamps.put(cachedFile.path(), cachedFile.stamp());
         }
     }
 
     /**
-     * 获取含有多语言键值对的文件
+     * 缓存索引中的文件，包含路径和统计数，可在不加载内容的情况下展示文件列表。
+     */
+    public synchronized List<ProjectCacheReader.CachedFile> getCachedFiles() {
+        return new ArrayList<>(cachedFiles.values());
+    }
+
+    /**
+     * 获取指定路径的Wini，未加载时从缓存加载。缓存中的Wini只含可翻译键，保存时才解析对应源文件。
      *
-     * @param files 文件列表
-     * @return 含有多语言键值对的INI配置文件列表
+     * @return 不属于本项目时返回null
      */
-    public static HashMap<String, Wini> loadTranslationIniFiles(ArrayList<File> files) {
-        // 清空异常文件列表，准备新的加载过程
-        errorFiles.clear();
+    public synchronized Wini getIni(String path) throws IOException {
+        Wini ini = translationIniFiles.get(path);
+        if (ini == null) {
+            ProjectCacheReader.CachedFile cachedFile = cachedFiles.get(path);
+            if (cachedFile != null) {
+                ini = cacheReader.readIni(cachedFile);
+                translationIniFiles.put(path, ini);
+            }
+        }
+        return ini;
+    }
+
+    @Override
+    public Wini loadIni(File file) throws IOException {
+        Wini ini = getIni(file.getPath());
+        if (ini == null) {
+            throw new FileNotFoundException("Not part of project: " + file.getPath());
+        }
+        return ini;
+    }
+
+    @Override
+    public ArrayList<SectionModel> loadSections(Wini ini) {
+        ArrayList<SectionModel> groups = new ArrayList<>();
+        getTranMap(ini).forEach((sectionName, pairs) -> groups.add(new SectionModel(sectionName, pairs)));
+        return groups;
+    }
 
-        HashMap<String, Wini> translationIniFilesMap = new HashMap<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (File file : files) {
-            CompletableFuture<Void> future =
-                    CompletableFuture.supplyAsync(
-                                    () -> {
-                                        try {
-                                            Wini ini = RWIniFileLoader.load(file);
-                                            for (Ini.Section section : ini.values()) {
-                                                for (TranslationKeys tranKey : TranslationKeys.values()) {
-                                                    if (section.containsKey(tranKey.getKeyName())) {
-                                                        translationIniFilesMap.put(file.getPath(), ini);
-                                                        return ini;
-                                                    }
-                                                }
-                                            }
-                                        } catch (Exception err) {
-                                            // 记录异常信息
-                                            Timber.e(err, " Exception occurred while parsing ini file:%s", file.getAbsolutePath());
-                                            synchronized (errorFiles) {
-                                                errorFiles.put(file, err);
-                                            }
-                                        }
-                                        return null;
-                                    })
-                            .thenAccept(ini -> {
-                            });
-
-            futures.add(future);
+    /**
+     * 释放已加载的Wini。仅当缓存中的内容与磁盘文件一致时释放，保证之后能从缓存还原。
+     */
+    @Override
+    public synchronized void releaseIni(File file) {
+        ProjectCacheReader.CachedFile cachedFile = cachedFiles.get(file.getPath());
+        if (cachedFile != null && cachedFile.stamp().matches(file)) {
+            translationIniFiles.remove(file.getPath());
         }
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
 
+    /**
+     * 重命名项目中的INI文件，调用前磁盘上的文件应已重命名。
+     */
+    public synchronized void renameIniFile(File from, File to) throws IOException {
+        Wini ini = getIni(from.getPath());
+        translationIniFiles.remove(from.getPath());
+        cachedFiles.remove(from.getPath());
+        if (ini != null) {
+            ini.setFile(to);
+            translationIniFiles.put(to.getPath(), ini);
+        }
+    }
 
-        return translationIniFilesMap;
+    /**
+     * 从项目中移除INI文件。
+     */
+    public synchronized void removeIniFile(String path) {
+        translationIniFiles.remove(path);
+        cachedFiles.remove(path);
     }
 
+    /*
+    读取旧版JSON缓存，仅用于迁移
+    */
     private static TranslationConfigManager deserialize(File metafile)
             throws IOException {
         try (Reader reader = new FileReader(metafile)) {
@@ -181,7 +366,13 @@ public class TranslationConfigManager {
      * @param map 键值对映射表
      */
     public boolean setPairs(String dir, Map<String, Map<String, String>> map) {
-        final Wini ini = translationIniFiles.get(dir);
+        final Wini ini;
+        try {
+            ini = getIni(dir);
+        } catch (IOException e) {
+            Timber.e(e);
+            return false;
+        }
         if (ini == null) {
 
             return false; // 如果ini为null，返回false表示未找到对应索引的ini对象
@@ -190,14 +381,14 @@ public class TranslationConfigManager {
             submitTask(
                     () -> {
                         try {
+                            // 只提交已存在节的修改，未变化的值不会触发重写
+                            Map<String, Map<String, String>> changes = new LinkedHashMap<>();
                             for (String sectionName : map.keySet()) {
-                                Wini.Section section = ini.get(sectionName);
-                                if (section != null) {
-                                    Map<String, String> keyMap = map.get(sectionName);
-                                    section.putAll(keyMap);
+                                if (ini.get(sectionName) != null) {
+                                    changes.put(sectionName, map.get(sectionName));
                                 }
                             }
-                            RWIniFileLoader.store(ini);
+                            RWIniFileLoader.store(ini, changes);
                         } catch (IOException e) {
                             Timber.e(e);
                             throw new RuntimeException(e); // 抛出运行时异常
@@ -213,10 +404,13 @@ public class TranslationConfigManager {
     }
 
     public Map<String, List<SectionModel.Pair>> getTranMap(Wini ini) {
-        Map<String, List<SectionModel.Pair>> map = new HashMap<>();
+        Map<String, List<SectionModel.Pair>> map = new LinkedHashMap<>();
+        Collection<TranslationKeys> keys = candidateKeys(ini);
+        // 同一文件的条目共用一张多语言翻译表
+        LangTable langTable = new LangTable();
 
         for (Wini.Section section : ini.values()) {
-            List<SectionModel.Pair> pairs = createPairsFromSection(section);
+            List<SectionModel.Pair> pairs = createPairsFromSection(section, keys, langTable);
             if (!pairs.isEmpty()) {
                 map.put(section.getName(), pairs);
             }
@@ -224,57 +418,90 @@ public class TranslationConfigManager {
         return map;
     }
 
+    /*
+    有扫描阶段的预筛选结果时只检查出现过的键，否则检查全部键
+    */
+    private Collection<TranslationKeys> candidateKeys(Wini ini) {
+        if (translationKeyHints != null && ini.getFile() != null) {
+            Set<TranslationKeys> hinted = translationKeyHints.get(ini.getFile().getPath());
+            if (hinted != null) {
+                return hinted;
+            }
+        }
+        return Arrays.asList(TranslationKeys.values());
+    }
+
   /*
   单独创建一个pair对象
   */
 
     /**
-     * 从Section对象创建Pair集合
+     * 从Section对象创建Pair集合。只遍历一次节中实际存在的键：
+     * 翻译键记下原文，"键名_语言"形式的键按键名分桶，语言后缀不限于已知的语言列表
      */
-    private List<SectionModel.Pair> createPairsFromSection(Wini.Section section) {
-        SectionModel.Pair pair = null;
-        List<SectionModel.Pair> list = new LinkedList<>();
-        for (TranslationKeys key : TranslationKeys.values()) {
-            if (section.containsKey(key.getKeyName())) {
-                String value = section.get(key.getKeyName());
-                // 过滤掉值为内置变量引用的键
-                if (!value.startsWith("i:gui")) {
-                    pair = new SectionModel.Pair();
-                    pair.setKey(key);
-                    pair.setOri_val(value);
-                    Map<String, String> langPairs = createLangPairs(section, key);
-                    if (!langPairs.isEmpty()) {
-                        pair.setLang_pairs(langPairs);
-                    }
-                    list.add(pair);
-                }
+    private List<SectionModel.Pair> createPairsFromSection(Map<String, String> section,
+                                                          Collection<TranslationKeys> keys, LangTable langTable) {
+        // 按TranslationKeys序号存放：原文，以及交替排列的语言后缀和译文
+        String[] values = null;
+        List<String>[] langEntries = null;
+        for (Map.Entry<String, String> entry : section.entrySet()) {
+            String name = entry.getKey();
+            int split = name.indexOf('_');
+            TranslationKeys key = TranslationKeys.fromKeyName(name, split < 0 ? name.length() : split);
+            if (key == null || split == name.length() - 1) {
+                continue;
+            }
+            if (values == null) {
+                values = new String[TranslationKeys.values().length];
+            }
+            if (split < 0) {
+                values[key.ordinal()] = entry.getValue();
+                continue;
             }
+            if (langEntries == null) {
+                @SuppressWarnings("unchecked")
+                List<String>[] created = new List[values.length];
+                langEntries = created;
+            }
+            List<String> bucket = langEntries[key.ordinal()];
+            if (bucket == null) {
+                bucket = langEntries[key.ordinal()] = new ArrayList<>(4);
+            }
+            bucket.add(name.substring(split + 1));
+            bucket.add(entry.getValue());
+        }
+        if (values == null) {
+            return Collections.emptyList();
         }
 
-        return list;
-    }
-
-    /*
-    为指定节的键根据Lang_Suffix创建多语言映射Map
-    */
-    private Map<String, String> createLangPairs(Wini.Section section, TranslationKeys key) {
-        Map<String, String> langPairs = new HashMap<>();
-        for (String suffix : TranslationKeys.LANGUAGE_CODE_TO_ENGLISH_NAME.keySet()) {
-            String langKey = key.getKeyName() + '_' + suffix;
-            if (section.containsKey(langKey)) {
-                langPairs.put(suffix, section.get(langKey));
+        List<SectionModel.Pair> list = new ArrayList<>();
+        for (TranslationKeys key : keys) {
+            String value = values[key.ordinal()];
+            // 过滤掉值为内置变量引用的键
+            if (value != null && !value.startsWith("i:gui")) {
+                SectionModel.Pair pair = new SectionModel.Pair(langTable, key, value);
+                List<String> bucket = langEntries == null ? null : langEntries[key.ordinal()];
+                if (bucket != null) {
+                    Map<String, String> langPairs = pair.getLang_pairs();
+                    for (int i = 0; i < bucket.size(); i += 2) {
+                        if (bucket.get(i + 1) != null) langPairs.put(bucket.get(i), bucket.get(i + 1));
+                    }
+                }
+                list.add(pair);
             }
         }
-
-        return langPairs;
+        return list;
     }
 
     /**
-     * 获取INI配置文件列表。
+     * 获取INI配置文件列表，会加载缓存中的全部文件。
      *
      * @return INI配置文件列表
      */
-    public ArrayList<Wini> getTranslationIniFiles() {
+    public synchronized ArrayList<Wini> getTranslationIniFiles() throws IOException {
+        for (String path : cachedFiles.keySet()) {
+            getIni(path);
+        }
         return new ArrayList<>(this.translationIniFiles.values());
     }
 
@@ -343,17 +570,41 @@ public class TranslationConfigManager {
         }
     }
 
-    public void serialize() throws IOException {
-        try (Writer writer = new FileWriter(projectFile)) {
-            GsonBuilder gsonBuilder = new GsonBuilder();
-            gsonBuilder.registerTypeAdapter(Wini.class, new WiniSerializer());
-            gsonBuilder.registerTypeAdapter(File.class, new FileSerializer());
-            // 为HashMap<String, Wini>注册类型适配器
-            Type mapType = new TypeToken<HashMap<String, Wini>>() {
-            }.getType();
-            gsonBuilder.registerTypeAdapter(mapType, new HashMapWiniSerializer());
-            Gson gson = gsonBuilder.create();
-            gson.toJson(this, writer);
+    /**
+     * 将项目写入二进制缓存，只保存可翻译条目及文件指纹，同时更新指纹索引。已不存在的文件会被移出缓存。
+     * 已加载的文件按内存中的内容写入，未加载的文件直接复制原缓存记录。
+     */
+    public synchronized void serialize() throws IOException {
+        ProjectCacheWriter writer = new ProjectCacheWriter();
+        for (Wini ini : translationIniFiles.values()) {
+            File file = ini.getFile();
+            if (file == null || !file.exists()) {
+                continue;
+            }
+            writer.addFile(file.getPath(), stampFor(file), getTranMap(ini));
+        }
+        for (ProjectCacheReader.CachedFile cachedFile : cachedFiles.values()) {
+            if (translationIniFiles.containsKey(cachedFile.path()) || !new File(cachedFile.path()).exists()) {
+                continue;
+            }
+            FileStamp stamp = fileStamps.getOrDefault(cachedFile.path(), cachedFile.stamp());
+            writer.addFile(cachedFile.path(), stamp, cacheReader.readSections(cachedFile));
+        }
+        writer.writeTo(projectFile);
+        FingerprintIndex.write(fingerprintFile(), fileStamps);
+        // 旧映射仍指向被替换前的文件，重新打开以读取新索引
+        openCache();
+    }
+
+    /*
+    大小和修改时间未变时复用已有指纹，否则重新读取文件计算
+    */
+    private FileStamp stampFor(File file) throws IOException {
+        FileStamp stamp = fileStamps.get(file.getPath());
+        if (stamp == null || !stamp.matches(file)) {
+            stamp = FileStamp.read(file);
+            fileStamps.put(file.getPath(), stamp);
         }
+        return stamp;
     }
 }
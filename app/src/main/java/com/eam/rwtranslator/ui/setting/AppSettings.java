@@ -32,6 +32,15 @@ public class AppSettings {
     private static String apiHost = OpenAITranslator.DEFAULT_API_HOST;
 
     private static int maxTokensPerRequest = 8000;
+    // 批量翻译同时发出的请求数
+    private static int llmConcurrency = 4;
+    // 每个API端点每分钟的请求数/token数上限，0为不限
+    private static int llmRequestsPerMinute = 0;
+    private static int llmTokensPerMinute = 0;
+    // 大请求体使用gzip压缩发送（需API端点支持Content-Encoding: gzip）
+    private static boolean llmGzipRequests = false;
+    // 使用流式响应，译文逐条到达
+    private static boolean llmStreaming = true;
     private static String apiKey = "";
 
     private static String customExportPath;
@@ -49,6 +58,12 @@ public class AppSettings {
     private static final String KEY_API_HOST = "api_host_key";
     private static  final String KEY_API_KEY = "api_key_key";
     private static final String KEY_MAX_TOKENS_PER_REQUEST = "max_tokens_per_request_key";
+    private static final String KEY_LLM_CONCURRENCY = "llm_concurrency_key";
+    private static final String KEY_LLM_REQUESTS_PER_MINUTE = "llm_requests_per_minute_key";
+    private static final String KEY_LLM_TOKENS_PER_MINUTE = "llm_tokens_per_minute_key";
+    private static final String KEY_LLM_GZIP_REQUESTS = "llm_gzip_requests_key";
+    private static final String KEY_LLM_STREAMING = "llm_streaming_key";
+    public static final int MAX_LLM_CONCURRENCY = 16;
     private static final String KEY_LLM_MODEL_INDEX = "llm_model_key";
 
 
@@ -67,6 +82,11 @@ public class AppSettings {
             apiHost = preferences.getString(KEY_API_HOST, apiHost);
             apiKey = preferences.getString(KEY_API_KEY, apiKey);
             maxTokensPerRequest = preferences.getInt(KEY_MAX_TOKENS_PER_REQUEST, maxTokensPerRequest);
+            llmConcurrency = preferences.getInt(KEY_LLM_CONCURRENCY, llmConcurrency);
+            llmRequestsPerMinute = preferences.getInt(KEY_LLM_REQUESTS_PER_MINUTE, llmRequestsPerMinute);
+            llmTokensPerMinute = preferences.getInt(KEY_LLM_TOKENS_PER_MINUTE, llmTokensPerMinute);
+            llmGzipRequests = preferences.getBoolean(KEY_LLM_GZIP_REQUESTS, llmGzipRequests);
+            llmStreaming = preferences.getBoolean(KEY_LLM_STREAMING, llmStreaming);
             llmModelName = preferences.getString(KEY_LLM_MODEL_INDEX, llmModelName);
             llmStylePrompt = preferences.getString(KEY_LLM_STYLE_PROMPT, llmStylePrompt);
         }
@@ -124,6 +144,43 @@ public class AppSettings {
             maxTokensPerRequest = tokensLimit;
         }
     }
+    public static int getLlmConcurrency() {
+        return llmConcurrency;
+    }
+
+    public static void setLlmConcurrency(int concurrency) {
+        if (concurrency > 0 && concurrency <= MAX_LLM_CONCURRENCY) {
+            llmConcurrency = concurrency;
+        }
+    }
+    public static int getLlmRequestsPerMinute() {
+        return llmRequestsPerMinute;
+    }
+
+    public static void setLlmRequestsPerMinute(int requestsPerMinute) {
+        llmRequestsPerMinute = Math.max(0, requestsPerMinute);
+    }
+    public static int getLlmTokensPerMinute() {
+        return llmTokensPerMinute;
+    }
+
+    public static void setLlmTokensPerMinute(int tokensPerMinute) {
+        llmTokensPerMinute = Math.max(0, tokensPerMinute);
+    }
+    public static boolean getLlmGzipRequests() {
+        return llmGzipRequests;
+    }
+
+    public static void setLlmGzipRequests(boolean gzipRequests) {
+        llmGzipRequests = gzipRequests;
+    }
+    public static boolean getLlmStreaming() {
+        return llmStreaming;
+    }
+
+    public static void setLlmStreaming(boolean streaming) {
+        llmStreaming = streaming;
+    }
     public static String getLlmModelName() {
         return llmModelName;
     }
@@ -150,6 +207,11 @@ public class AppSettings {
                 .putString(KEY_API_HOST, apiHost)
                 .putString(KEY_API_KEY, apiKey)
                 .putInt(KEY_MAX_TOKENS_PER_REQUEST, maxTokensPerRequest)
+                .putInt(KEY_LLM_CONCURRENCY, llmConcurrency)
+                .putInt(KEY_LLM_REQUESTS_PER_MINUTE, llmRequestsPerMinute)
+                .putInt(KEY_LLM_TOKENS_PER_MINUTE, llmTokensPerMinute)
+                .putBoolean(KEY_LLM_GZIP_REQUESTS, llmGzipRequests)
+                .putBoolean(KEY_LLM_STREAMING, llmStreaming)
                 .putString(KEY_LLM_MODEL_INDEX, llmModelName)
                 .putString(KEY_LLM_STYLE_PROMPT, llmStylePrompt)
                 .apply();
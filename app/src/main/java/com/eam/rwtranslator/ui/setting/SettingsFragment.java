@@ -11,6 +11,8 @@ import androidx.preference.*;
 
 import com.eam.rwtranslator.AppConfig;
 import com.eam.rwtranslator.R;
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.utils.Translator;
 import com.eam.rwtranslator.utils.UrlUtils;
 import com.eam.rwtranslator.utils.translator.OpenAITranslator;
 import com.takisoft.preferencex.PreferenceFragmentCompat;
@@ -20,6 +22,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 import scala.App;
 import timber.log.Timber;
@@ -65,6 +68,14 @@ public class SettingsFragment extends PreferenceFragmentCompat {
                             showMsg(getString(R.string.setting_act_clear_message));
                             return true;
                         });
+        projectCategory
+                .findPreference("clean_translation_memory")
+                .setOnPreferenceClickListener(
+                        p1 -> {
+                            Translator.getExecutorService().execute(() -> TranslationMemory.getInstance().clear());
+                            showMsg(getString(R.string.setting_act_clear_message));
+                            return true;
+                        });
 
         // 设置自定义导出路径点击处理
         projectCategory.findPreference("custom_export_path")
@@ -79,6 +90,9 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         EditTextPreference apiHostPref = LLMCategory.findPreference("llm_api_host");
         EditTextPreference apiKeyPref = LLMCategory.findPreference("llm_api_key");
         EditTextPreference maxTokensPref = LLMCategory.findPreference("llm_max_tokens");
+        EditTextPreference concurrencyPref = LLMCategory.findPreference("llm_concurrency");
+        EditTextPreference rpmPref = LLMCategory.findPreference("llm_requests_per_minute");
+        EditTextPreference tpmPref = LLMCategory.findPreference("llm_tokens_per_minute");
         ListPreference modelPref = LLMCategory.findPreference("llm_model");
         Preference refreshModelsPref = LLMCategory.findPreference("llm_refresh_models");
         EditTextPreference customizeModelPref = LLMCategory.findPreference("custom_llm_model_id");
@@ -122,6 +136,30 @@ public class SettingsFragment extends PreferenceFragmentCompat {
             });
         }
 
+        // 设置并发数和限流改变监听
+        bindIntPreference(concurrencyPref, AppSettings.getLlmConcurrency(), 1, AppSettings.MAX_LLM_CONCURRENCY,
+                AppSettings::setLlmConcurrency);
+        bindIntPreference(rpmPref, AppSettings.getLlmRequestsPerMinute(), 0, Integer.MAX_VALUE,
+                AppSettings::setLlmRequestsPerMinute);
+        bindIntPreference(tpmPref, AppSettings.getLlmTokensPerMinute(), 0, Integer.MAX_VALUE,
+                AppSettings::setLlmTokensPerMinute);
+        SwitchPreferenceCompat gzipPref = LLMCategory.findPreference("llm_gzip_requests");
+        if (gzipPref != null) {
+            gzipPref.setChecked(AppSettings.getLlmGzipRequests());
+            gzipPref.setOnPreferenceChangeListener((preference, newValue) -> {
+                AppSettings.setLlmGzipRequests((boolean) newValue);
+                return true;
+            });
+        }
+        SwitchPreferenceCompat streamingPref = LLMCategory.findPreference("llm_streaming");
+        if (streamingPref != null) {
+            streamingPref.setChecked(AppSettings.getLlmStreaming());
+            streamingPref.setOnPreferenceChangeListener((preference, newValue) -> {
+                AppSettings.setLlmStreaming((boolean) newValue);
+                return true;
+            });
+        }
+
         // 设置Model改变监听
         String modelName = AppSettings.getLlmModelName();
         if (modelPref != null) {
@@ -221,6 +259,29 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         Toast.makeText(getActivity(), message, Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * 绑定整数输入项：显示当前值，输入超出[min, max]时拒绝
+     */
+    private void bindIntPreference(EditTextPreference pref, int current, int min, int max, IntConsumer setter) {
+        if (pref == null) return;
+        pref.setText(String.valueOf(current));
+        pref.setOnPreferenceChangeListener((preference, newValue) -> {
+            try {
+                int value = Integer.parseInt(newValue.toString());
+                if (value >= min && value <= max) {
+                    setter.accept(value);
+                    return true;
+                }
+                showMsg("Value must be between " + min + " and " + max);
+                return false;
+            } catch (NumberFormatException e) {
+                showMsg("Invalid number format");
+                Timber.e(e);
+                return false;
+            }
+        });
+    }
+
     private void openDirectoryPicker() {
         Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
         intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
@@ -55,6 +55,13 @@ public class DialogUtils {
         return loadingDialog;
   }
 
+  // 更新当前加载对话框的提示文本，对话框未显示时忽略
+  public void updateLoadingText(String loadingtext) {
+    if (loadingDialog == null || !loadingDialog.isShowing()) return;
+    TextView textView = loadingDialog.findViewById(R.id.mainactivityloadingTextView);
+    if (textView != null) textView.setText(loadingtext);
+  }
+
   public AlertDialog createSimpleDialog(
       String title, String message, DialogInterface.OnClickListener positiveButtonListener,DialogInterface.OnClickListener negativeButtonListener) {
 
@@ -12,6 +12,7 @@ import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -36,32 +37,37 @@ public class FilesHandler {
 
     public static ArrayList<File> LeachFilename(File directory) {
         ArrayList<File> files = new ArrayList<>();
+        walkIniFiles(directory, files::add);
+        return files;
+    }
 
-        if (directory.exists() && directory.isDirectory()) {
-            Queue<File> queue = new LinkedList<>();
-            queue.add(directory);
-
-            while (!queue.isEmpty()) {
-                File currentDirectory = queue.poll();
-                File[] subFiles = currentDirectory.listFiles();
-
-                if (subFiles != null) {
-                    Arrays.sort(subFiles, Comparator.comparing(File::getName));
-                    for (File subFile : subFiles) {
-                        if (subFile.isDirectory()) {
-                            queue.add(subFile);
-                        } else {
-                            String fileName = subFile.getName();
-                            if (fileName.endsWith(".ini") || fileName.endsWith(".template")) {
-                                files.add(subFile.getAbsoluteFile());
-                            }
-                        }
-                    }
+    /**
+     * 按目录层级遍历.ini/.template文件，同一目录内按文件名排序，每发现一个文件立即回调。
+     */
+    public static void walkIniFiles(File directory, Consumer<File> consumer) {
+        if (!directory.exists() || !directory.isDirectory()) {
+            return;
+        }
+        Queue<File> queue = new ArrayDeque<>();
+        queue.add(directory);
+        while (!queue.isEmpty()) {
+            File[] subFiles = queue.poll().listFiles();
+            if (subFiles == null) {
+                continue;
+            }
+            Arrays.sort(subFiles, Comparator.comparing(File::getName));
+            for (File subFile : subFiles) {
+                if (subFile.isDirectory()) {
+                    queue.add(subFile);
+                } else if (isIniFile(subFile.getName())) {
+                    consumer.accept(subFile.getAbsoluteFile());
                 }
             }
         }
+    }
 
-        return files;
+    private static boolean isIniFile(String fileName) {
+        return fileName.endsWith(".ini") || fileName.endsWith(".template");
     }
 
     public static Integer[] indexofByArray(ArrayList<String> list, String dst) {
@@ -0,0 +1,250 @@
+package com.eam.rwtranslator.utils;
+
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Checks that a translation of a masked text kept its placeholders intact before it is restored.
+ * <p>
+ * Every mask of the source must appear exactly once and no unknown mask may appear; masks may be
+ * reordered, since {@link TemplatePlaceholderProcessor#restore} puts each placeholder back by index.
+ * A mask must not end up inside a template the translator opened, the number of ${ and %{ openers must
+ * stay the same, and the net balance of plain braces must not change. Checks only compare the two masked
+ * texts, so one scan of each is enough and the placeholders themselves are never materialized.
+ * Private-use characters of a text that was sent unmasked are literal and are not checked.
+ */
+public final class PlaceholderVerifier {
+    /**
+     * How many times a text is requested before a translation that fails verification is given up on.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    public enum Issue {
+        MISSING_MASK,
+        DUPLICATE_MASK,
+        UNKNOWN_MASK,
+        BROKEN_NESTING,
+        UNBALANCED_BRACES
+    }
+
+    private PlaceholderVerifier() {
+    }
+
+    /**
+     * @param masked      the masked source text that was sent for translation
+     * @param translation the translation of {@code masked}
+     * @return the first problem found, or null if the translation can be restored safely
+     */
+    @Nullable
+    public static Issue verify(String masked, String translation) {
+        return verify(masked, translation, null);
+    }
+
+    @Nullable
+    private static Issue verify(String masked, String translation, @Nullable boolean[] reordered) {
+        int expected = TemplatePlaceholderProcessor.placeholderCount(masked);
+        if (translation == null) {
+            return expected == 0 ? null : Issue.MISSING_MASK;
+        }
+        long source = shape(masked);
+
+        long seen = 0;
+        boolean[] seenMany = expected > Long.SIZE ? new boolean[expected] : null;
+        int found = 0;
+        int last = -1;
+        boolean duplicate = false;
+        boolean unknown = false;
+        boolean nested = false;
+        int depth = 0;
+        int openers = 0;
+        int plain = 0;
+        int length = translation.length();
+        for (int i = 0; i < length; i++) {
+            char c = translation.charAt(i);
+            if ((c == '$' || c == '%') && i + 1 < length && translation.charAt(i + 1) == '{') {
+                depth++;
+                openers++;
+                i++;
+                continue;
+            }
+            if (c == '{') {
+                plain++;
+            } else if (c == '}') {
+                if (depth > 0) depth--;
+                else plain--;
+            }
+            int index = TemplatePlaceholderProcessor.maskIndex(c);
+            if (index < 0 || expected == 0) continue;
+            // 遮罩落在译文新开的模板里，还原后会变成另一个占位符的一部分
+            if (depth > 0) nested = true;
+            if (index >= expected) {
+                unknown = true;
+                continue;
+            }
+            boolean repeated;
+            if (seenMany != null) {
+                repeated = seenMany[index];
+                seenMany[index] = true;
+            } else {
+                repeated = (seen & 1L << index) != 0;
+                seen |= 1L << index;
+            }
+            if (repeated) {
+                duplicate = true;
+                continue;
+            }
+            if (index < last && reordered != null) reordered[0] = true;
+            last = index;
+            found++;
+        }
+
+        if (found < expected) return Issue.MISSING_MASK;
+        if (duplicate) return Issue.DUPLICATE_MASK;
+        if (unknown) return Issue.UNKNOWN_MASK;
+        if (nested || openers != (int) (source >>> 32)) return Issue.BROKEN_NESTING;
+        if (plain + depth != (int) source) return Issue.UNBALANCED_BRACES;
+        return null;
+    }
+
+    /**
+     * Number of template openers in the high half and net brace balance in the low half.
+     */
+    private static long shape(String text) {
+        int depth = 0;
+        int openers = 0;
+        int plain = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c == '$' || c == '%') && i + 1 < length && text.charAt(i + 1) == '{') {
+                depth++;
+                openers++;
+                i++;
+            } else if (c == '{') {
+                plain++;
+            } else if (c == '}') {
+                if (depth > 0) depth--;
+                else plain--;
+            }
+        }
+        return (long) openers << 32 | (plain + depth) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * A translation that still failed verification after {@link #MAX_ATTEMPTS} requests.
+     */
+    public static final class IntegrityException extends IllegalArgumentException {
+        private final Issue issue;
+
+        public IntegrityException(Issue issue) {
+            super("Placeholder check failed: " + issue.name().toLowerCase(Locale.ROOT));
+            this.issue = issue;
+        }
+
+        public Issue getIssue() {
+            return issue;
+        }
+    }
+
+    /**
+     * Integrity counts for one translation run or job. Thread-safe, and plain enough to be stored as JSON.
+     */
+    public static final class Report {
+        private int checked;
+        private int passed;
+        private int reordered;
+        private int retried;
+        private int repaired;
+        // 按Issue序号统计：每次校验发现的问题，以及最终放弃的条目
+        private int[] issues = new int[Issue.values().length];
+        private int[] failed = new int[Issue.values().length];
+
+        /**
+         * Verifies one translation and counts the result.
+         *
+         * @param attempt 1 for the first request of a text, higher for re-requests
+         */
+        @Nullable
+        public Issue check(String masked, String translation, int attempt) {
+            boolean[] moved = {false};
+            Issue issue = verify(masked, translation, moved);
+            synchronized (this) {
+                checked++;
+                if (issue != null) {
+                    issues()[issue.ordinal()]++;
+                } else {
+                    passed++;
+                    if (moved[0]) reordered++;
+                    if (attempt > 1) repaired++;
+                }
+            }
+            return issue;
+        }
+
+        public synchronized void retried(int count) {
+            retried += count;
+        }
+
+        public synchronized void failed(Issue issue) {
+            failed()[issue.ordinal()]++;
+        }
+
+        public synchronized int getRetried() {
+            return retried;
+        }
+
+        public synchronized int getRepaired() {
+            return repaired;
+        }
+
+        public synchronized int getFailed() {
+            int total = 0;
+            for (int count : failed()) total += count;
+            return total;
+        }
+
+        /**
+         * Whether anything had to be re-requested or was given up on.
+         */
+        public synchronized boolean hasProblems() {
+            return retried > 0 || getFailed() > 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                    "checked=%d passed=%d reordered=%d retried=%d repaired=%d failed=%d",
+                    checked, passed, reordered, retried, repaired, getFailed()));
+            Issue[] values = Issue.values();
+            for (int i = 0; i < values.length; i++) {
+                if (issues()[i] > 0) {
+                    builder.append(' ').append(values[i].name().toLowerCase(Locale.ROOT)).append('=')
+                            .append(issues()[i]).append('/').append(failed()[i]);
+                }
+            }
+            return builder.toString();
+        }
+
+        // 从旧版本JSON读出的数组可能缺项
+        private int[] issues() {
+            if (issues == null || issues.length < Issue.values().length) {
+                issues = grow(issues);
+            }
+            return issues;
+        }
+
+        private int[] failed() {
+            if (failed == null || failed.length < Issue.values().length) {
+                failed = grow(failed);
+            }
+            return failed;
+        }
+
+        private static int[] grow(@Nullable int[] counts) {
+            int[] grown = new int[Issue.values().length];
+            if (counts != null) System.arraycopy(counts, 0, grown, 0, Math.min(counts.length, grown.length));
+            return grown;
+        }
+    }
+}
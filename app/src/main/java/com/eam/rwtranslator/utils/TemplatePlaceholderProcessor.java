@@ -3,110 +3,274 @@ package com.eam.rwtranslator.utils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import timber.log.Timber;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
 /**
- * Utility to protect ${var} placeholders during translation.
+ * Utility to protect ${var} and %{var} placeholders during translation.
+ * <p>
+ * Every outermost placeholder is replaced by a single private-use mask character and recorded as a
+ * [start, end) span into the source text, so no placeholder substrings are created unless a caller
+ * asks for them. The n-th placeholder gets the mask {@code PLACEHOLDER_MASK + n}, so a translation
+ * may move placeholders around and each one still comes back in the right place. Both directions
+ * make a single pass and reuse per-thread buffers; texts without placeholders are returned as-is.
+ * <p>
+ * Texts that already contain a private-use character are left unmasked, since their own characters
+ * could not be told apart from masks. A masked text therefore carries masks 0..n-1 in order and nothing
+ * else from the private-use range, which is how {@link #placeholderCount(String)} recognizes one.
  */
 public final class TemplatePlaceholderProcessor {
-    private  static  final String PLACEHOLDER_MASK = "\uE000";
-    private static final Pattern PRIVATE_UNICODE = Pattern.compile(Pattern.quote(PLACEHOLDER_MASK));
+    static final char PLACEHOLDER_MASK = '\uE000';
+    // 私用区 U+E000..U+F8FF，超出数量的占位符不再遮罩
+    static final int MAX_PLACEHOLDERS = 0xF8FF - PLACEHOLDER_MASK + 1;
+    private static final int[] NO_SPANS = new int[0];
+    // 超过此容量的缓冲区不再复用，避免个别超长文本长期占用内存
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private TemplatePlaceholderProcessor() {
     }
+
     @Contract("null -> new")
     public static @NotNull Payload mask(String text) {
-        if (text == null || text.isEmpty()) {
-            return new Payload(text, Collections.emptyList());
+        if (text == null || text.indexOf('{') < 0) {
+            return new Payload(text, text, NO_SPANS);
         }
-
-        List<String> placeholders = new ArrayList<>();
-        Deque<Integer> stack = new ArrayDeque<>();
-        Deque<Character> typeStack = new ArrayDeque<>();
-        int lastIndex=0;
-        StringBuilder maskedText = new StringBuilder();
-
-        for (int i = 0; i < text.length(); i++) {
+        Scratch scratch = SCRATCH.get();
+        int[] spans = scratch.spans;
+        int count = 0;
+        int depth = 0;
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
             char current = text.charAt(i);
-
-            // 检查是否是 ${ 或 %{
-            if (i + 1 < text.length() && (current == '$' || current == '%') && text.charAt(i + 1) == '{') {
-                stack.push(i); // 记录起始位置
-                typeStack.push(current); // 记录类型
-                i++; // 跳过下一个字符 '{'
-                continue;
+            // ${ 或 %{ 开始一层，只记录最外层的起点
+            if ((current == '$' || current == '%') && i + 1 < length && text.charAt(i + 1) == '{') {
+                if (depth++ == 0) start = i;
+                i++;
+            } else if (current == '}' && depth > 0 && --depth == 0 && count < 2 * MAX_PLACEHOLDERS) {
+                if (count + 2 > spans.length) {
+                    spans = scratch.spans = Arrays.copyOf(spans, spans.length * 2);
+                }
+                spans[count++] = start;
+                spans[count++] = i + 1;
             }
+        }
+        if (count == 0 || containsMask(text)) {
+            return new Payload(text, text, NO_SPANS);
+        }
 
-            if (current == '}' && !stack.isEmpty()) {
-                int start = stack.pop();
-                char type = typeStack.pop();
+        StringBuilder masked = scratch.builder(length);
+        int last = 0;
+        for (int s = 0; s < count; s += 2) {
+            masked.append(text, last, spans[s]).append(maskOf(s / 2));
+            last = spans[s + 1];
+        }
+        masked.append(text, last, length);
+        return new Payload(text, masked.toString(), Arrays.copyOf(spans, count));
+    }
 
-                // 如果栈为空，说明这是最外层的括号
-                if (stack.isEmpty()) {
-                    String content = text.substring(start, i + 1);
-                    placeholders.add(content);
+    /**
+     * Puts the placeholders of {@code payload} back into its translation.
+     *
+     * @throws PlaceholderMismatchException if the translation does not contain every mask exactly once
+     */
+    public static String restore(String translatedText, Payload payload) {
+        return restore(translatedText, payload.source, payload.spans, null);
+    }
 
-                    // 将前面的文本添加到结果中
-                    maskedText.append(text, lastIndex, start);
-                    // 添加掩码
-                    maskedText.append(PLACEHOLDER_MASK);
-                    lastIndex = i + 1;
+    /**
+     * Same as {@link #restore(String, Payload)} for placeholders that were stored as strings.
+     *
+     * @throws PlaceholderMismatchException if the translation does not contain every mask exactly once
+     */
+    public static String restore(String translatedText, List<String> placeholders) {
+        return restore(translatedText, null, NO_SPANS, placeholders == null ? Collections.emptyList() : placeholders);
+    }
 
-                    Timber.d("Masked placeholder: %s", content);
-                }
-            }
+    /**
+     * Number of mask characters in a text.
+     */
+    public static int countMasks(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (maskIndex(text.charAt(i)) >= 0) count++;
         }
+        return count;
+    }
 
-        // 添加剩余文本
-        if (lastIndex < text.length()) {
-            maskedText.append(text, lastIndex, text.length());
+    /**
+     * Number of placeholders masked in a text produced by {@link #mask(String)}: the masks when they are
+     * exactly 0..n-1 in order, otherwise 0, as the text was sent unmasked and its private-use characters
+     * are literal.
+     */
+    public static int placeholderCount(String masked) {
+        int count = 0;
+        for (int i = 0; i < masked.length(); i++) {
+            int index = maskIndex(masked.charAt(i));
+            if (index < 0) continue;
+            if (index != count) return 0;
+            count++;
         }
+        return count;
+    }
 
-        Timber.d("Total placeholders masked: %d", placeholders.size());
-        Timber.d("maskText: %s", maskedText.toString());
+    private static boolean containsMask(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (maskIndex(text.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
 
-        return new Payload(maskedText.toString(), placeholders);
+    /**
+     * The mask character standing for the placeholder at {@code index}.
+     */
+    public static char maskOf(int index) {
+        return (char) (PLACEHOLDER_MASK + index);
     }
 
+    /**
+     * The placeholder index a mask character stands for, or -1 if {@code c} is not a mask.
+     */
+    public static int maskIndex(char c) {
+        return c >= PLACEHOLDER_MASK && c < PLACEHOLDER_MASK + MAX_PLACEHOLDERS ? c - PLACEHOLDER_MASK : -1;
+    }
 
-    public static String restore(String translatedText, List<String> placeholders) {
-        if (translatedText == null || translatedText.isEmpty() || placeholders == null || placeholders.isEmpty()) {
+    private static String restore(String translatedText, String source, int[] spans, List<String> placeholders) {
+        if (translatedText == null) {
+            return null;
+        }
+        int expected = placeholders != null ? placeholders.size() : spans.length / 2;
+        // 没有占位符时文本中的私用区字符都是原文自带的
+        if (expected == 0) {
             return translatedText;
         }
-        Matcher matcher = PRIVATE_UNICODE.matcher(translatedText);
-        StringBuffer buffer = new StringBuffer();
-        int index = 0;
-        while (matcher.find() && index < placeholders.size()) {
-            matcher.appendReplacement(buffer, Matcher.quoteReplacement(placeholders.get(index++)));
-            Timber.d("Restored placeholder: %s", placeholders.get(index - 1));
+        int found = countMasks(translatedText);
+        if (found != expected) {
+            throw new PlaceholderMismatchException(expected, found);
+        }
+
+        StringBuilder restored = SCRATCH.get().builder(translatedText.length() + 16 * expected);
+        // 数量一致时，出现未知或重复的遮罩说明另有遮罩丢失
+        long seen = 0;
+        boolean[] seenMany = expected > Long.SIZE ? new boolean[expected] : null;
+        int last = 0;
+        for (int i = 0; i < translatedText.length(); i++) {
+            int index = maskIndex(translatedText.charAt(i));
+            if (index < 0) continue;
+            boolean duplicate;
+            if (index >= expected) {
+                duplicate = true;
+            } else if (seenMany != null) {
+                duplicate = seenMany[index];
+                seenMany[index] = true;
+            } else {
+                duplicate = (seen & 1L << index) != 0;
+                seen |= 1L << index;
+            }
+            if (duplicate) {
+                throw new PlaceholderMismatchException(expected, found, String.format(Locale.ROOT,
+                        "Placeholder mask %d of %d is unknown or repeated in translation", index, expected));
+            }
+            restored.append(translatedText, last, i);
+            if (placeholders != null) {
+                restored.append(placeholders.get(index));
+            } else {
+                restored.append(source, spans[2 * index], spans[2 * index + 1]);
+            }
+            last = i + 1;
+        }
+        restored.append(translatedText, last, translatedText.length());
+        return restored.toString();
+    }
+
+    /**
+     * The translation lost, duplicated or gained placeholder masks.
+     */
+    public static final class PlaceholderMismatchException extends IllegalArgumentException {
+        private final int expected;
+        private final int actual;
+
+        PlaceholderMismatchException(int expected, int actual) {
+            this(expected, actual,
+                    String.format(Locale.ROOT, "Expected %d placeholders in translation, found %d", expected, actual));
+        }
+
+        PlaceholderMismatchException(int expected, int actual, String message) {
+            super(message);
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public int getExpected() {
+            return expected;
+        }
+
+        public int getActual() {
+            return actual;
         }
-        matcher.appendTail(buffer);
-        Timber.d("restoreText: %s", buffer.toString());
-        return buffer.toString();
     }
 
     public static final class Payload {
+        private final String source;
         private final String maskedText;
-        private final List<String> placeholders;
+        // 每个占位符在原文中的 [start, end) 区间，按出现顺序排列
+        private final int[] spans;
+        private List<String> placeholders;
 
-        private Payload(String maskedText, List<String> placeholders) {
+        private Payload(String source, String maskedText, int[] spans) {
+            this.source = source;
             this.maskedText = maskedText;
-            this.placeholders = placeholders;
+            this.spans = spans;
         }
 
         public String maskedText() {
             return maskedText;
         }
 
+        public int placeholderCount() {
+            return spans.length / 2;
+        }
+
+        public String placeholder(int index) {
+            return source.substring(spans[2 * index], spans[2 * index + 1]);
+        }
+
+        /**
+         * The placeholders as strings, created on first use.
+         */
         public List<String> placeholders() {
+            if (placeholders == null) {
+                if (spans.length == 0) {
+                    placeholders = Collections.emptyList();
+                } else {
+                    List<String> list = new ArrayList<>(placeholderCount());
+                    for (int i = 0; i < placeholderCount(); i++) list.add(placeholder(i));
+                    placeholders = Collections.unmodifiableList(list);
+                }
+            }
             return placeholders;
         }
 
         public boolean hasPlaceholders() {
-            return !placeholders.isEmpty();
+            return spans.length > 0;
+        }
+    }
+
+    private static final class Scratch {
+        int[] spans = new int[16];
+        StringBuilder builder = new StringBuilder(256);
+
+        StringBuilder builder(int capacity) {
+            if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+                builder = new StringBuilder(Math.max(256, capacity));
+            }
+            builder.setLength(0);
+            builder.ensureCapacity(capacity);
+            return builder;
         }
     }
 }
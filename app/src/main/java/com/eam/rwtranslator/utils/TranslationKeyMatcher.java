@@ -0,0 +1,146 @@
+package com.eam.rwtranslator.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Queue;
+
+/**
+ * 基于Aho-Corasick自动机的翻译键字节级匹配器。
+ * 直接扫描文件原始字节，不做字符串解码；只有出现在键位置（行首空白之后、紧跟 '=' 或 ':'）的键名才计入结果。
+ */
+public final class TranslationKeyMatcher {
+    private static final TranslationKeys[] KEYS = TranslationKeys.values();
+    private static final TranslationKeyMatcher INSTANCE = new TranslationKeyMatcher();
+
+    // 字节 -> 字符类，键名中未出现的字节都归入0类
+    private final int[] byteClass = new int[256];
+    private final int classCount;
+    // 状态转移表：transitions[state * classCount + class]
+    private final int[] transitions;
+    // 每个状态上结束的键（含失败链上的输出），按KEYS下标存放的位掩码
+    private final int[] outputs;
+    private final int[] keyLengths = new int[KEYS.length];
+
+    private TranslationKeyMatcher() {
+        byte[][] patterns = new byte[KEYS.length][];
+        int nextClass = 1;
+        int maxStates = 1;
+        for (int i = 0; i < KEYS.length; i++) {
+            patterns[i] = KEYS[i].getKeyName().getBytes(StandardCharsets.UTF_8);
+            keyLengths[i] = patterns[i].length;
+            maxStates += patterns[i].length;
+            for (byte b : patterns[i]) {
+                if (byteClass[b & 0xFF] == 0) {
+                    byteClass[b & 0xFF] = nextClass++;
+                }
+            }
+        }
+        classCount = nextClass;
+
+        int[] trie = new int[maxStates * classCount];
+        Arrays.fill(trie, -1);
+        int[] out = new int[maxStates];
+        int stateCount = 1;
+        for (int i = 0; i < patterns.length; i++) {
+            int state = 0;
+            for (byte b : patterns[i]) {
+                int slot = state * classCount + byteClass[b & 0xFF];
+                if (trie[slot] < 0) {
+                    trie[slot] = stateCount++;
+                }
+                state = trie[slot];
+            }
+            out[state] |= 1 << i;
+        }
+
+        // 广度优先补全失败转移，得到确定性自动机
+        int[] fail = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classCount; c++) {
+            int next = trie[c];
+            if (next < 0) {
+                trie[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out[state] |= out[fail[state]];
+            for (int c = 0; c < classCount; c++) {
+                int slot = state * classCount + c;
+                int next = trie[slot];
+                int fallback = trie[fail[state] * classCount + c];
+                if (next < 0) {
+                    trie[slot] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+        transitions = Arrays.copyOf(trie, stateCount * classCount);
+        outputs = Arrays.copyOf(out, stateCount);
+    }
+
+    public static TranslationKeyMatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 扫描原始字节，返回出现在键位置上的翻译键位掩码（第i位对应 {@code TranslationKeys.values()[i]}）。
+     */
+    public int scan(byte[] content) {
+        int seen = 0;
+        int state = 0;
+        for (int i = 0; i < content.length; i++) {
+            state = transitions[state * classCount + byteClass[content[i] & 0xFF]];
+            int matched = outputs[state] & ~seen;
+            while (matched != 0) {
+                int keyIndex = Integer.numberOfTrailingZeros(matched);
+                matched &= matched - 1;
+                if (isKeyPosition(content, i + 1 - keyLengths[keyIndex], i + 1)) {
+                    seen |= 1 << keyIndex;
+                }
+            }
+        }
+        return seen;
+    }
+
+    public static EnumSet<TranslationKeys> toKeys(int mask) {
+        EnumSet<TranslationKeys> keys = EnumSet.noneOf(TranslationKeys.class);
+        while (mask != 0) {
+            keys.add(KEYS[Integer.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1;
+        }
+        return keys;
+    }
+
+    /*
+    键名前只能是行首或空白，之后可以有空白，然后必须是分隔符
+    */
+    private static boolean isKeyPosition(byte[] content, int start, int end) {
+        for (int i = start - 1; i >= 0; i--) {
+            byte b = content[i];
+            if (b == '\n') {
+                break;
+            }
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        for (int i = end; i < content.length; i++) {
+            byte b = content[i];
+            if (b == '=' || b == ':') {
+                return true;
+            }
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -32,6 +32,23 @@ public enum TranslationKeys {
     public String getKeyName() {
         return this.keyName;
     }
+
+    private static final TranslationKeys[] VALUES = values();
+
+    /**
+     * 按键名查找，只比较name的前length个字符，便于直接匹配"键名_语言"中的键名部分
+     *
+     * @return 对应的翻译键，不是翻译键时返回null
+     */
+    public static TranslationKeys fromKeyName(String name, int length) {
+        for (TranslationKeys key : VALUES) {
+            if (key.keyName.length() == length && name.startsWith(key.keyName)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
     public static final Map<String, String> LANGUAGE_CODE_TO_ENGLISH_NAME= new HashMap<>();
     public static final Map<String, String> ENGLISH_NAME_TO_LANGUAGE_CODE= new HashMap<>();
     static {
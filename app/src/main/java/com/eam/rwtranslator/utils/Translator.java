@@ -1,7 +1,6 @@
 package com.eam.rwtranslator.utils;
 
 import androidx.annotation.NonNull;
-import androidx.collection.LruCache;
 import androidx.core.content.ContextCompat;
 import androidx.core.util.Pair;
 
@@ -16,18 +15,37 @@ import app.nekogram.translator.GoogleAppTranslator;
 import app.nekogram.translator.YandexTranslator;
 
 import com.eam.rwtranslator.AppConfig;
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.data.memory.TranslationScope;
 import com.eam.rwtranslator.ui.setting.AppSettings;
 import com.eam.rwtranslator.utils.translator.BaseLLMTranslator;
 import com.eam.rwtranslator.utils.translator.OpenAITranslator;
+import com.eam.rwtranslator.utils.translator.ProviderScheduler;
+import com.eam.rwtranslator.utils.translator.SegmentBatcher;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import timber.log.Timber;
 
 public class Translator {
     public interface TranslateTaskCallBack {
@@ -47,7 +65,7 @@ public class Translator {
         
         /**
          * 进度更新回调（可选实现，用于多批次翻译时的进度报告）
-         * @param batchIndex 当前批次索引（从0开始）
+         * @param batchIndex 本次完成的条目所在批次（从0开始，批次并发时不按顺序）
          * @param totalBatches 总批次数
          * @param completedTexts 已完成的文本数量
          * @param totalTexts 总文本数量
@@ -55,6 +73,81 @@ public class Translator {
         default void onProgress(int batchIndex, int totalBatches, int completedTexts, int totalTexts) {
             // 默认空实现，子类可选择性覆盖以显示进度
         }
+
+        /**
+         * 单条译文到达回调（可选实现），每条只回调一次且在onSuccess之前，可能在不同线程上调用；
+         * 请求中途失败时已回调的条目仍然有效
+         * @param index 文本在queries中的下标
+         * @param translation 译文
+         */
+        default void onItemTranslated(int index, String translation) {
+        }
+
+        /**
+         * 单条译文多次请求后仍未通过占位符校验（可选实现），该条目不会再回调onItemTranslated
+         * @param index 文本在queries中的下标
+         * @param t {@link PlaceholderVerifier.IntegrityException}
+         */
+        default void onItemFailed(int index, Throwable t) {
+        }
+    }
+
+    /**
+     * 多条文本逐条翻译时的回调，index为文本在列表中的位置
+     */
+    public interface IndexedTranslateCallBack {
+        void onSuccess(int index, String translation, String sourceLanguage, String targetLanguage);
+
+        void onError(int index, Throwable t);
+    }
+
+    /**
+     * translateAll提交的一组请求，cancel()后尚未发出的请求不再执行，也不再回调。
+     * 同时统计各文本的去向：翻译记忆命中、发出请求、或与进行中的相同请求合并
+     */
+    public static final class TranslationJob {
+        private final List<Future<?>> futures = new ArrayList<>();
+        private boolean cancelled;
+        private final AtomicInteger memoryHits = new AtomicInteger();
+        private final AtomicInteger requested = new AtomicInteger();
+        private final AtomicInteger coalesced = new AtomicInteger();
+
+        public int getMemoryHits() {
+            return memoryHits.get();
+        }
+
+        public int getRequested() {
+            return requested.get();
+        }
+
+        public int getCoalesced() {
+            return coalesced.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "memory=%d requested=%d coalesced=%d",
+                    memoryHits.get(), requested.get(), coalesced.get());
+        }
+
+        synchronized void add(Future<?> future) {
+            if (cancelled) {
+                future.cancel(false);
+            } else {
+                futures.add(future);
+            }
+        }
+
+        public synchronized void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            for (Future<?> future : futures) future.cancel(false);
+            futures.clear();
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
     }
 
     public static final String PROVIDER_GOOGLE = "google";
@@ -69,21 +162,51 @@ public class Translator {
 
     private static final ListeningExecutorService executorService =
             MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
-    private static final LruCache<Pair<String, String>, Pair<String, String>> cache =
-            new LruCache<>(200);
 
     public static ListeningExecutorService getExecutorService() {
         return executorService;
     }
 
+    /**
+     * 一次翻译使用的翻译服务、语言和DeepL风格，后台任务按创建时保存的设置继续，不受之后修改设置的影响
+     */
+    public record Settings(String provider, String fromLanguage, String targetLanguage, int deepLFormality) {
+
+        public static Settings current() {
+            return new Settings(AppSettings.translationProvider, AppSettings.getCurrentFromLanguageCode(),
+                    AppSettings.getCurrentTargetLanguageCode(), AppSettings.deepLFormality);
+        }
+    }
+
+    /**
+     * 当前翻译器对应的翻译记忆作用域，LLM翻译器按模型区分
+     */
+    public static TranslationScope memoryScope(String fl, String tl) {
+        return memoryScope(AppSettings.translationProvider, fl, tl);
+    }
+
+    /**
+     * 指定翻译器对应的翻译记忆作用域
+     */
+    public static TranslationScope memoryScope(String provider, String fl, String tl) {
+        if (PROVIDER_OPENAI.equals(provider)) {
+            provider = provider + "/" + AppSettings.getLlmModelName();
+        }
+        return new TranslationScope(provider, fl, tl);
+    }
+
     public static BaseTranslator getCurrentTranslator() {
         return getTranslator(AppSettings.translationProvider);
     }
 
     public static BaseTranslator getTranslator(String type) {
+        return getTranslator(type, AppSettings.deepLFormality);
+    }
+
+    public static BaseTranslator getTranslator(String type, int deepLFormality) {
         return switch (type) {
             case PROVIDER_DEEPL -> {
-                DeepLTranslator.setFormality(AppSettings.deepLFormality);
+                DeepLTranslator.setFormality(deepLFormality);
                 yield DeepLTranslator.getInstance();
             }
             case PROVIDER_MICROSOFT -> MicrosoftTranslator.getInstance();
@@ -122,7 +245,7 @@ public class Translator {
         if (!translator.supportLanguage(language)) {
             translateCallBack.onError(new UnsupportedTargetLanguageException(language));
         } else {
-            startTask(translator, query, fl, language, translateCallBack);
+            startTask(AppSettings.translationProvider, translator, query, fl, language, translateCallBack);
         }
     }
 
@@ -131,26 +254,196 @@ public class Translator {
         llmTranslator.translate(query, fl, tl, translateCallBack);
     }
 
+    public static TranslationJob translateAll(List<String> queries, boolean enableLlm, IndexedTranslateCallBack callBack) {
+        return translateAll(queries, null, enableLlm, callBack);
+    }
+
     /**
-     * 批量LLM翻译，将多个文本合并为一个请求
+     * 翻译多个文本：先在后台批量查询翻译记忆，命中的直接回调，未命中的再提交翻译。
+     * 传统翻译器的短文本经{@link SegmentBatcher}合并为多行请求，请求经{@link ProviderScheduler}
+     * 按服务限制并发和速率，回调在主线程执行。
      * @param queries 待翻译的文本列表
+     * @param groups 每条文本的分组（如所属文件），各分组轮流出队；为null时不分组
+     * @param enableLlm 是否使用LLM翻译器
+     * @param callBack 按文本下标回调，取消后不再回调
+     * @return 可取消的任务
+     */
+    public static TranslationJob translateAll(List<String> queries, List<?> groups, boolean enableLlm,
+                                              IndexedTranslateCallBack callBack) {
+        return translateAll(Settings.current(), queries, groups, enableLlm, callBack);
+    }
+
+    /**
+     * 按指定的设置翻译多个文本，见{@link #translateAll(List, List, boolean, IndexedTranslateCallBack)}
+     */
+    public static TranslationJob translateAll(Settings settings, List<String> queries, List<?> groups,
+                                              boolean enableLlm, IndexedTranslateCallBack callBack) {
+        TranslationJob job = new TranslationJob();
+        String fl = settings.fromLanguage();
+        String tl = settings.targetLanguage();
+        String provider = settings.provider();
+        BaseTranslator translator = getTranslator(provider, settings.deepLFormality());
+        if (!enableLlm && !translator.supportLanguage(tl)) {
+            for (int i = 0; i < queries.size(); i++) {
+                callBack.onError(i, new UnsupportedTargetLanguageException(tl));
+            }
+            return job;
+        }
+        TranslationScope scope = memoryScope(provider, fl, tl);
+        Executor mainExecutor = ContextCompat.getMainExecutor(AppConfig.applicationContext);
+        ListenableFuture<Map<String, TranslationMemory.Entry>> lookup =
+                getExecutorService().submit(() -> TranslationMemory.getInstance().lookup(queries, scope));
+        job.add(lookup);
+        Futures.addCallback(lookup, new FutureCallback<>() {
+            @Override
+            public void onSuccess(Map<String, TranslationMemory.Entry> remembered) {
+                // 查询在取消前完成、回调在取消后才执行时同样不再回调
+                if (job.isCancelled()) return;
+                Timber.d("Translation memory: %d/%d hits", remembered.size(), queries.size());
+                List<Integer> misses = new ArrayList<>();
+                for (int i = 0; i < queries.size(); i++) {
+                    TranslationMemory.Entry entry = remembered.get(queries.get(i));
+                    if (entry != null) {
+                        // 回调中可能取消任务
+                        if (job.isCancelled()) return;
+                        job.memoryHits.incrementAndGet();
+                        callBack.onSuccess(i, entry.translation(),
+                                entry.sourceLanguage() == null ? fl : translator.convertLanguageCode(entry.sourceLanguage(), ""),
+                                tl);
+                    } else {
+                        misses.add(i);
+                    }
+                }
+                dispatch(misses);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                if (job.isCancelled()) return;
+                Timber.w(t, "Translation memory lookup failed");
+                List<Integer> all = new ArrayList<>(queries.size());
+                for (int i = 0; i < queries.size(); i++) all.add(i);
+                dispatch(all);
+            }
+
+            private void dispatch(List<Integer> indices) {
+                if (enableLlm) {
+                    for (int index : indices) {
+                        ((BaseLLMTranslator) translator).translate(queries.get(index), fl, tl, single(index));
+                    }
+                    return;
+                }
+                // 与进行中的相同请求合并，其余按分组合并请求，同一文件中相邻的文本放在同一请求里
+                Map<Object, List<InFlight>> byGroup = new LinkedHashMap<>();
+                for (int index : indices) {
+                    InFlight flight = subscribe(new FlightKey(provider, queries.get(index), fl, tl),
+                            job, translator, single(index), mainExecutor);
+                    if (flight != null) {
+                        byGroup.computeIfAbsent(groups == null ? null : groups.get(index), g -> new ArrayList<>()).add(flight);
+                    }
+                }
+                SegmentBatcher.Limits limits = SegmentBatcher.limitsFor(provider);
+                int requests = 0;
+                for (Map.Entry<Object, List<InFlight>> entry : byGroup.entrySet()) {
+                    Object group = entry.getKey();
+                    List<InFlight> flights = entry.getValue();
+                    List<String> texts = new ArrayList<>(flights.size());
+                    for (InFlight flight : flights) texts.add(flight.key.query());
+                    for (int[] batch : SegmentBatcher.pack(texts, limits)) {
+                        requests++;
+                        if (batch.length == 1) {
+                            launchSingle(provider, translator, group, flights.get(batch[0]));
+                            continue;
+                        }
+                        List<InFlight> batchFlights = new ArrayList<>(batch.length);
+                        for (int i : batch) batchFlights.add(flights.get(i));
+                        launchBatch(provider, translator, group, batchFlights);
+                    }
+                }
+                Timber.d("Translating %d texts in %d requests (%s)", indices.size(), requests, job);
+            }
+
+            private TranslateCallBack single(int index) {
+                return new TranslateCallBack() {
+                    @Override
+                    public void onSuccess(String translation, String sourceLanguage, String targetLanguage) {
+                        callBack.onSuccess(index, translation, sourceLanguage, targetLanguage);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        callBack.onError(index, t);
+                    }
+                };
+            }
+        }, mainExecutor);
+        return job;
+    }
+
+    /**
+     * 批量LLM翻译，将多个文本合并为一个请求。
+     * 每条译文到达时校验占位符，未通过的条目在本轮结束后从翻译记忆中删除并只重新请求这些条目，
+     * 最多请求{@link PlaceholderVerifier#MAX_ATTEMPTS}次，仍未通过的回调onItemFailed
+     * @param queries 待翻译的文本列表（已遮罩占位符）
      * @param fl 源语言
      * @param tl 目标语言
-     * @param batchCallBack 批量翻译回调
+     * @param report 校验统计，多轮请求累计
+     * @param batchCallBack 批量翻译回调，onItemTranslated只收到通过校验的译文
      */
-    public static void LLM_batchTranslate(List<String> queries, String fl, String tl, BatchTranslateCallBack batchCallBack) {
-        BaseTranslator translator = getCurrentTranslator();
-        
+    public static void LLM_batchTranslate(List<String> queries, String fl, String tl, PlaceholderVerifier.Report report,
+                                          BatchTranslateCallBack batchCallBack) {
         // 只有OpenAI翻译器支持真正的批量翻译
-        OpenAITranslator openAITranslator = (OpenAITranslator) translator;
-        openAITranslator.batchTranslate(queries, fl, tl, new OpenAITranslator.BatchTranslateCallback() {
+        LLM_batchTranslate((OpenAITranslator) getCurrentTranslator(), queries, fl, tl, report, batchCallBack);
+    }
+
+    /**
+     * 使用指定的LLM翻译器批量翻译，重新请求时沿用同一个翻译器
+     */
+    static void LLM_batchTranslate(OpenAITranslator translator, List<String> queries, String fl, String tl,
+                                   PlaceholderVerifier.Report report, BatchTranslateCallBack batchCallBack) {
+        List<Integer> indices = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) indices.add(i);
+        batchRound(translator, queries, indices, fl, tl, 1, report, new AtomicReferenceArray<>(queries.size()),
+                batchCallBack);
+    }
+
+    private static void batchRound(OpenAITranslator openAITranslator, List<String> queries, List<Integer> indices,
+                                   String fl, String tl, int attempt, PlaceholderVerifier.Report report,
+                                   AtomicReferenceArray<String> accepted, BatchTranslateCallBack batchCallBack) {
+        List<String> texts = new ArrayList<>(indices.size());
+        for (int index : indices) texts.add(queries.get(index));
+        // 本轮未通过校验的条目：在texts中的位置 -> 问题
+        Map<Integer, PlaceholderVerifier.Issue> rejected = new ConcurrentHashMap<>();
+        openAITranslator.batchTranslate(texts, fl, tl, new OpenAITranslator.BatchTranslateCallback() {
             @Override
             public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
-                batchCallBack.onSuccess(translations, srcLang, tgtLang);
+                if (rejected.isEmpty()) {
+                    batchCallBack.onSuccess(acceptedList(accepted), srcLang, tgtLang);
+                    return;
+                }
+                List<Integer> retry = new ArrayList<>(rejected.size());
+                for (int position : new TreeSet<>(rejected.keySet())) retry.add(indices.get(position));
+                if (attempt < PlaceholderVerifier.MAX_ATTEMPTS) {
+                    report.retried(retry.size());
+                    Timber.i("Placeholder check rejected %d translations, requesting again (attempt %d)",
+                            retry.size(), attempt + 1);
+                    List<String> stale = new ArrayList<>(retry.size());
+                    for (int index : retry) stale.add(queries.get(index));
+                    getExecutorService().execute(() -> {
+                        // 有问题的译文已经写入翻译记忆，删除后重新请求才会真正发给模型
+                        TranslationMemory.getInstance().remove(stale, memoryScope(fl, tl));
+                        batchRound(openAITranslator, queries, retry, fl, tl, attempt + 1, report, accepted,
+                                batchCallBack);
+                    });
+                    return;
+                }
+                failRejected();
+                batchCallBack.onSuccess(acceptedList(accepted), srcLang, tgtLang);
             }
 
             @Override
             public void onError(Throwable t) {
+                failRejected();
                 batchCallBack.onError(t);
             }
 
@@ -159,9 +452,35 @@ public class Translator {
                 // 传递进度回调
                 batchCallBack.onProgress(batchIndex, totalBatches, completedTexts, totalTexts);
             }
+
+            @Override
+            public void onItemTranslated(int position, String translation) {
+                int index = indices.get(position);
+                PlaceholderVerifier.Issue issue = report.check(queries.get(index), translation, attempt);
+                if (issue != null) {
+                    rejected.put(position, issue);
+                    return;
+                }
+                accepted.set(index, translation);
+                batchCallBack.onItemTranslated(index, translation);
+            }
+
+            private void failRejected() {
+                for (Map.Entry<Integer, PlaceholderVerifier.Issue> entry : rejected.entrySet()) {
+                    report.failed(entry.getValue());
+                    batchCallBack.onItemFailed(indices.get(entry.getKey()),
+                            new PlaceholderVerifier.IntegrityException(entry.getValue()));
+                }
+            }
         });
     }
 
+    private static List<String> acceptedList(AtomicReferenceArray<String> accepted) {
+        List<String> translations = new ArrayList<>(accepted.length());
+        for (int i = 0; i < accepted.length(); i++) translations.add(accepted.get(i));
+        return translations;
+    }
+
     private static class UnsupportedTargetLanguageException extends IllegalArgumentException {
         public UnsupportedTargetLanguageException(String targetLanguage) {
             super("Unsupported Target Language: " + targetLanguage);
@@ -169,41 +488,193 @@ public class Translator {
     }
 
     private static void startTask(
+            String provider,
             BaseTranslator translator,
             String query,
             String fromLang,
             String toLang,
             TranslateCallBack translateCallBack) {
-        var result = cache.get(Pair.create(query, toLang + "|" + AppSettings.translationProvider));
-        if (result != null) {
-            translateCallBack.onSuccess(
-                    result.first,
-                    result.second == null ? fromLang : translator.convertLanguageCode(result.second, ""),
-                    toLang);
-        } else {
-            TranslateTask translateTask =
-                    new TranslateTask(translator, query, fromLang, toLang, translateCallBack);
-            ListenableFuture<Pair<String, String>> future = getExecutorService().submit(translateTask);
-            Futures.addCallback(
-                    future, translateTask, ContextCompat.getMainExecutor(AppConfig.applicationContext));
+        InFlight flight = subscribe(new FlightKey(provider, query, fromLang, toLang), null, translator,
+                translateCallBack, ContextCompat.getMainExecutor(AppConfig.applicationContext));
+        if (flight != null) {
+            launchSingle(provider, translator, null, flight);
+        }
+    }
+
+    private record FlightKey(String provider, String query, String fl, String tl) {
+    }
+
+    /**
+     * 进行中的请求：相同文本、语言和翻译服务的后续请求共享其结果，全部订阅者取消后才取消请求
+     */
+    private static final class InFlight {
+        final FlightKey key;
+        final SettableFuture<Pair<String, String>> result = SettableFuture.create();
+        int subscribers;
+
+        InFlight(FlightKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final Map<FlightKey, InFlight> IN_FLIGHT = new HashMap<>();
+
+    /**
+     * 订阅相同请求的结果，没有进行中的请求时新建，结果在executor上回调
+     * @param job 所属任务，为null时不统计也不随任务取消
+     * @return 新建的请求，需由调用方发出；已有进行中的请求时返回null
+     */
+    private static InFlight subscribe(FlightKey key, TranslationJob job, BaseTranslator translator,
+                                      TranslateCallBack callBack, Executor executor) {
+        InFlight flight;
+        boolean created = false;
+        synchronized (IN_FLIGHT) {
+            flight = IN_FLIGHT.get(key);
+            if (flight == null || flight.result.isCancelled()) {
+                flight = new InFlight(key);
+                IN_FLIGHT.put(key, flight);
+                created = true;
+            }
+            flight.subscribers++;
+        }
+        InFlight subscribed = flight;
+        if (created) {
+            flight.result.addListener(() -> {
+                synchronized (IN_FLIGHT) {
+                    IN_FLIGHT.remove(key, subscribed);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        // 各订阅者取消自己的视图，不影响其他订阅者
+        ListenableFuture<Pair<String, String>> view = Futures.nonCancellationPropagating(flight.result);
+        view.addListener(() -> {
+            if (view.isCancelled()) release(subscribed);
+        }, MoreExecutors.directExecutor());
+        Futures.addCallback(view, new Delivery(translator, key.fl(), key.tl(), callBack), executor);
+        if (job != null) {
+            (created ? job.requested : job.coalesced).incrementAndGet();
+            job.add(view);
+        }
+        return created ? flight : null;
+    }
+
+    private static void release(InFlight flight) {
+        boolean last;
+        synchronized (IN_FLIGHT) {
+            last = --flight.subscribers == 0;
+        }
+        if (last) {
+            flight.result.cancel(false);
+        }
+    }
+
+    private static void launchSingle(String provider, BaseTranslator translator, Object group, InFlight flight) {
+        FlightKey key = flight.key;
+        TranslateTask task = new TranslateTask(translator, key.query(), key.fl(), key.tl(),
+                memoryScope(provider, key.fl(), key.tl()));
+        // 请求结果转交给订阅者，订阅者全部取消时请求随之取消
+        flight.result.setFuture(ProviderScheduler.getInstance().submit(provider, group, task));
+    }
+
+    /**
+     * 多条文本合并为一次请求，译文行数对不上时改为逐条请求
+     */
+    private static void launchBatch(String provider, BaseTranslator translator, Object group, List<InFlight> flights) {
+        FlightKey first = flights.get(0).key;
+        List<String> texts = new ArrayList<>(flights.size());
+        for (InFlight flight : flights) texts.add(flight.key.query());
+        ListenableFuture<Pair<List<String>, String>> future = ProviderScheduler.getInstance().submit(provider, group,
+                new BatchTranslateTask(translator, texts, first.fl(), first.tl(),
+                        memoryScope(provider, first.fl(), first.tl())));
+        // 所有条目都取消后取消合并请求
+        AtomicInteger live = new AtomicInteger(flights.size());
+        for (InFlight flight : flights) {
+            flight.result.addListener(() -> {
+                if (flight.result.isCancelled() && live.decrementAndGet() == 0) future.cancel(false);
+            }, MoreExecutors.directExecutor());
+        }
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(Pair<List<String>, String> result) {
+                for (int i = 0; i < flights.size(); i++) {
+                    flights.get(i).result.set(Pair.create(result.first.get(i), result.second));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                if (t instanceof SegmentMismatchException) {
+                    Timber.w("%s, translating %d texts one by one", t.getMessage(), flights.size());
+                    for (InFlight flight : flights) {
+                        if (!flight.result.isDone()) launchSingle(provider, translator, group, flight);
+                    }
+                    return;
+                }
+                for (InFlight flight : flights) flight.result.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static String sourceCode(BaseTranslator translator, String fl) {
+        // 为不同的翻译器设置正确的自动检测语言代码
+        if (translator instanceof MicrosoftTranslator || translator instanceof YandexTranslator) {
+            return null;
+        }
+        return translator.convertLanguageCode(fl, "");
+    }
+
+    /**
+     * 合并请求的译文行数与原文不一致
+     */
+    private static class SegmentMismatchException extends IllegalStateException {
+        SegmentMismatchException(int expected) {
+            super("Segment count mismatch, expected " + expected);
+        }
+    }
+
+    private record BatchTranslateTask(BaseTranslator translator, List<String> texts, String fl, String tl,
+                                      TranslationScope scope) implements Callable<Pair<List<String>, String>> {
+
+        @Override
+        public Pair<List<String>, String> call() {
+            Result result = translator.translate(SegmentBatcher.join(texts), sourceCode(translator, fl),
+                    translator.convertLanguageCode(tl, ""));
+            List<String> translations = SegmentBatcher.split(result.translation, texts.size());
+            if (translations == null) {
+                throw new SegmentMismatchException(texts.size());
+            }
+            Map<String, TranslationMemory.Entry> entries = new HashMap<>();
+            for (int i = 0; i < texts.size(); i++) {
+                entries.put(texts.get(i), new TranslationMemory.Entry(translations.get(i), result.sourceLanguage));
+            }
+            TranslationMemory.getInstance().putAll(entries, scope);
+            return Pair.create(translations, result.sourceLanguage);
         }
     }
 
     private record TranslateTask(BaseTranslator translator, String query, String fl, String tl,
-                                 TranslateCallBack translateCallBack)
-            implements Callable<Pair<String, String>>, FutureCallback<Pair<String, String>> {
+                                 TranslationScope scope) implements Callable<Pair<String, String>> {
 
         @Override
         public Pair<String, String> call() {
-            String from =translator.convertLanguageCode(fl, "");
-            // 为不同的翻译器设置正确的自动检测语言代码
-            if (translator instanceof MicrosoftTranslator || translator instanceof YandexTranslator) {
-               from=null;
+            // 翻译记忆在工作线程中查询，避免主线程读库
+            TranslationMemory memory = TranslationMemory.getInstance();
+            TranslationMemory.Entry remembered = memory.get(query, scope);
+            if (remembered != null) {
+                return Pair.create(remembered.translation(), remembered.sourceLanguage());
             }
             var to = translator.convertLanguageCode(tl, "");
-            Result result = translator.translate(query, from, to);
+            Result result = translator.translate(query, sourceCode(translator, fl), to);
+            memory.put(query, new TranslationMemory.Entry(result.translation, result.sourceLanguage), scope);
             return Pair.create(result.translation, result.sourceLanguage);
         }
+    }
+
+    /**
+     * 把请求结果（译文，源语言）转交给单个订阅者
+     */
+    private record Delivery(BaseTranslator translator, String fl, String tl, TranslateCallBack translateCallBack)
+            implements FutureCallback<Pair<String, String>> {
 
         @Override
         public void onSuccess(Pair<String, String> result) {
@@ -211,11 +682,13 @@ public class Translator {
                     result.first,
                     result.second == null ? fl : translator.convertLanguageCode(result.second, ""),
                     tl);
-            cache.put(Pair.create(query, tl + "|" + AppSettings.translationProvider), result);
         }
 
         @Override
         public void onFailure(@NonNull Throwable t) {
+            if (t instanceof CancellationException) {
+                return;
+            }
             translateCallBack.onError(t);
         }
     }
@@ -3,106 +3,201 @@ package com.eam.rwtranslator.utils.ini;
 import org.ini4j.Profile;
 import org.ini4j.Wini;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
-final class IniDocument {
+/**
+ * Comment-preserving INI document with a native section/key model.
+ * <p>
+ * The model is built in the same streaming pass that records the line segments, so callers can
+ * inspect sections and values without going through ini4j. {@link #toWini()} produces an ini4j
+ * view for code that still works with {@link Wini}.
+ */
+public final class IniDocument {
+    private static final int READ_BUFFER_SIZE = 8192;
+
     private final File file;
     private final List<Segment> segments;
+    private final Map<String, LinkedHashMap<String, String>> sections;
+    private final Map<String, Map<String, Segment>> entryIndex;
+    private final Map<String, LinkedHashMap<String, String>> dirty = new LinkedHashMap<>();
+    private BitSet runEnds;
     private final String newline;
     private final boolean endsWithNewline;
 
-    private IniDocument(File file, List<Segment> segments, String newline, boolean endsWithNewline) {
+    private IniDocument(File file, List<Segment> segments, Map<String, LinkedHashMap<String, String>> sections,
+                        Map<String, Map<String, Segment>> entryIndex, BitSet runEnds,
+                        String newline, boolean endsWithNewline) {
         this.file = file;
         this.segments = segments;
+        this.sections = sections;
+        this.entryIndex = entryIndex;
+        this.runEnds = runEnds;
         this.newline = newline;
         this.endsWithNewline = endsWithNewline;
     }
 
     static IniDocument parse(File file) throws IOException {
-        String content = file.exists()
-            ? readUtf8File(file)
-            : "";
-        String newline = detectLineSeparator(content);
-        boolean endsWithNewline = content.endsWith("\n");
-        List<String> lines = splitLines(content);
-        List<Segment> segments = new ArrayList<>();
-        String currentSection = "";
-        PendingTriple pending = null;
-        int placeholderIndex = 0;
-
-        for (String line : lines) {
-            if (pending != null) {
-                pending.consumeNextLine(line);
-                if (pending.isClosed()) {
-                    segments.add(pending.toSegment());
-                    pending = null;
-                }
-                continue;
+        Parser parser = new Parser();
+        if (file.exists()) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                parser.consume(reader);
             }
+        }
+        return parser.finish(file);
+    }
 
-            String trimmed = line.trim();
-            if (trimmed.isEmpty() || trimmed.startsWith(";") || trimmed.startsWith("#")) {
-                segments.add(new RawSegment(line));
-                continue;
-            }
+    /**
+     * Parses content that has already been read from {@code file}, avoiding a second read.
+     */
+    static IniDocument parse(File file, byte[] content) throws IOException {
+        Parser parser = new Parser();
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            parser.consume(reader);
+        }
+        return parser.finish(file);
+    }
 
-            if (trimmed.startsWith("[") && trimmed.contains("]")) {
-                currentSection = trimmed.substring(1, trimmed.indexOf(']')).trim();
-                segments.add(new SectionSegment(line, currentSection));
-                continue;
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the section names in file order.
+     */
+    public Set<String> sectionNames() {
+        return Collections.unmodifiableSet(sections.keySet());
+    }
+
+    /**
+     * Returns the key/value view of a section, or {@code null} when the section does not exist.
+     */
+    public Map<String, String> section(String name) {
+        LinkedHashMap<String, String> values = sections.get(name);
+        return values == null ? null : Collections.unmodifiableMap(values);
+    }
+
+    public String get(String section, String key) {
+        LinkedHashMap<String, String> values = sections.get(section);
+        return values == null ? null : values.get(key);
+    }
+
+    public boolean containsKey(String section, String key) {
+        LinkedHashMap<String, String> values = sections.get(section);
+        return values != null && values.containsKey(key);
+    }
+
+    /**
+     * Builds an ini4j view of the parsed values. The returned instance is detached from this
+     * document; use {@link RWIniFileLoader#asWini(IniDocument)} to keep the pair linked for store.
+     */
+    public Wini toWini() {
+        Wini wini = RWIniFileLoader.createEmpty();
+        for (Map.Entry<String, LinkedHashMap<String, String>> entry : sections.entrySet()) {
+            Profile.Section section = wini.add(entry.getKey());
+            for (Map.Entry<String, String> option : entry.getValue().entrySet()) {
+                section.add(option.getKey(), option.getValue());
             }
+        }
+        wini.setFile(file);
+        return wini;
+    }
 
-            int delimiter = findDelimiter(line);
-            if (delimiter < 0) {
-                if (looksLikeBareKey(trimmed)) {
-                    segments.add(new BareEntrySegment(currentSection, trimmed, line));
-                } else {
-                    segments.add(new RawSegment(line));
+    /**
+     * Updates a value in the model and marks the entry dirty. Nothing is written until
+     * {@link #write()}; setting a value equal to the current one is a no-op.
+     */
+    synchronized void put(String section, String key, String value) {
+        LinkedHashMap<String, String> values = sections.computeIfAbsent(section, name -> new LinkedHashMap<>());
+        if (values.containsKey(key) && Objects.equals(values.get(key), value)) {
+            return;
+        }
+        values.put(key, value);
+        dirty.computeIfAbsent(section, name -> new LinkedHashMap<>()).put(key, value);
+    }
+
+    synchronized boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Marks every value of the ini4j view that differs from the model as dirty, then writes.
+     */
+    synchronized void write(Wini wini) throws IOException {
+        if (wini != null) {
+            for (String sectionName : wini.keySet()) {
+                Profile.Section section = wini.get(sectionName);
+                if (section == null) {
+                    continue;
+                }
+                for (String key : section.keySet()) {
+                    String value = section.get(key);
+                    if (value != null) {
+                        put(sectionName, key, value);
+                    }
                 }
-                continue;
             }
+        }
+        write();
+    }
 
-            String key = line.substring(0, delimiter).trim();
-            if (key.isEmpty()) {
-                segments.add(new RawSegment(line));
-                continue;
-            }
+    /**
+     * Writes pending changes. Only dirty entries are re-rendered, every other segment keeps its
+     * current text, and the in-memory state is patched so the file never has to be read back.
+     */
+    synchronized void write() throws IOException {
+        write(false);
+    }
 
-            EntryParseResult parseResult = parseEntryLine(line, delimiter, currentSection, key, newline,
-                    buildPlaceholder(placeholderIndex));
-            if (parseResult.entrySegment != null) {
-                segments.add(parseResult.entrySegment);
-                if (parseResult.entrySegment.style == ValueStyle.TRIPLE_QUOTED) {
-                    placeholderIndex++;
+    /**
+     * @param forwardScan place new keys with the original forward scan from every segment instead of
+     *                    the run-boundary index; kept as the reference for IniDocumentBenchmarkTest
+     */
+    synchronized void write(boolean forwardScan) throws IOException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<String, LinkedHashMap<String, String>> added = new LinkedHashMap<>();
+        for (Map.Entry<String, LinkedHashMap<String, String>> sectionChanges : dirty.entrySet()) {
+            String sectionName = sectionChanges.getKey();
+            Map<String, Segment> indexed = entryIndex.get(sectionName);
+            for (Map.Entry<String, String> change : sectionChanges.getValue().entrySet()) {
+                Segment segment = indexed == null ? null : indexed.get(change.getKey());
+                if (segment instanceof EntrySegment entrySegment) {
+                    entrySegment.update(change.getValue());
+                } else if (segment instanceof BareEntrySegment) {
+                    replaceSegment(segment, EntrySegment.create(sectionName, change.getKey(), change.getValue()));
+                } else {
+                    added.computeIfAbsent(sectionName, name -> new LinkedHashMap<>())
+                            .put(change.getKey(), change.getValue());
                 }
-            } else if (parseResult.pendingTriple != null) {
-                pending = parseResult.pendingTriple;
-                placeholderIndex++;
-            } else {
-                segments.add(new RawSegment(line));
             }
         }
-
-        if (pending != null) {
-            segments.add(pending.forceClose());
+        if (!added.isEmpty()) {
+            insertNewEntries(added, forwardScan);
         }
-
-        return new IniDocument(file, segments, newline, endsWithNewline);
+        writeUtf8File(file, render());
+        dirty.clear();
     }
 
-    String toSanitizedContent() {
+    private String render() {
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < segments.size(); i++) {
-            builder.append(segments.get(i).sanitizedText());
+            builder.append(segments.get(i).text());
             if (i < segments.size() - 1 || endsWithNewline) {
                 builder.append(newline);
             }
@@ -110,96 +205,120 @@ final class IniDocument {
         return builder.toString();
     }
 
-    void restoreRawValues(Wini wini) {
-        if (wini == null) {
-            return;
-        }
-        for (Segment segment : segments) {
-            if (segment instanceof EntrySegment entry && entry.style == ValueStyle.TRIPLE_QUOTED) {
-                Profile.Section section = wini.get(entry.section);
-                if (section == null) {
-                    continue;
-                }
-                String current = section.get(entry.key);
-                if (current != null && current.contains(entry.placeholder)) {
-                    section.put(entry.key, current.replace(entry.placeholder, entry.tripleContent));
-                }
-            }
-        }
+    private void replaceSegment(Segment previous, EntrySegment replacement) {
+        // Same section before and after, so the run boundaries stay valid.
+        segments.set(segments.indexOf(previous), replacement);
+        indexEntry(replacement.section, replacement.key, replacement);
     }
 
-    void write(Wini wini) throws IOException {
-        Map<String, LinkedHashMap<String, String>> snapshot = snapshotValues(wini);
-        List<String> outputLines = new ArrayList<>();
-        Set<String> seenSections = new LinkedHashSet<>();
+    private void insertNewEntries(Map<String, LinkedHashMap<String, String>> added, boolean forwardScan) {
+        List<Segment> rebuilt = new ArrayList<>(segments.size() + added.size() * 2);
         String activeSection = null;
-
         for (int i = 0; i < segments.size(); i++) {
             Segment segment = segments.get(i);
-            outputLines.add(segment.render(snapshot));
-            if (segment instanceof SectionSegment sectionSegment) {
-                activeSection = sectionSegment.sectionName;
-                seenSections.add(activeSection);
-            } else if (segment instanceof EntrySegment entrySegment) {
-                activeSection = entrySegment.section;
-                seenSections.add(activeSection);
-            } else if (segment instanceof BareEntrySegment bareEntrySegment) {
-                activeSection = bareEntrySegment.section;
-                seenSections.add(activeSection);
+            rebuilt.add(segment);
+            if (forwardScan) {
+                String anchor = anchorSection(segment);
+                if (anchor != null) {
+                    activeSection = anchor;
+                }
+                if (shouldFlushSection(activeSection, i, added)) {
+                    appendEntries(rebuilt, rebuilt.size(), activeSection, added.remove(activeSection));
+                }
+                continue;
             }
-
-            if (shouldFlushSection(activeSection, i, snapshot)) {
-                outputLines.addAll(renderRemainingEntries(activeSection, snapshot));
+            if (!runEnds.get(i)) {
+                continue;
+            }
+            String section = anchorSection(segment);
+            LinkedHashMap<String, String> values = section == null || section.isEmpty() ? null : added.remove(section);
+            if (values != null) {
+                appendEntries(rebuilt, rebuilt.size(), section, values);
             }
         }
 
-        outputLines.addAll(renderRemainingSections(snapshot, seenSections));
+        LinkedHashMap<String, String> globalValues = added.remove("");
+        if (globalValues != null) {
+            int firstSection = rebuilt.size();
+            for (int i = 0; i < rebuilt.size(); i++) {
+                if (rebuilt.get(i) instanceof SectionSegment) {
+                    firstSection = i;
+                    break;
+                }
+            }
+            appendEntries(rebuilt, firstSection, "", globalValues);
+        }
 
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < outputLines.size(); i++) {
-            builder.append(outputLines.get(i));
-            if (i < outputLines.size() - 1 || endsWithNewline) {
-                builder.append(newline);
+        boolean firstNewSection = true;
+        for (Map.Entry<String, LinkedHashMap<String, String>> entry : added.entrySet()) {
+            if (!firstNewSection) {
+                rebuilt.add(new RawSegment(""));
             }
+            rebuilt.add(new SectionSegment("[" + entry.getKey() + "]", entry.getKey()));
+            appendEntries(rebuilt, rebuilt.size(), entry.getKey(), entry.getValue());
+            firstNewSection = false;
         }
-        writeUtf8File(file, builder.toString());
+
+        segments.clear();
+        segments.addAll(rebuilt);
+        RunBoundaries boundaries = new RunBoundaries();
+        for (int i = 0; i < segments.size(); i++) {
+            boundaries.accept(i, segments.get(i));
+        }
+        runEnds = boundaries.finish();
     }
 
-    private static String readUtf8File(File file) throws IOException {
-        byte[] bytes = Files.readAllBytes(file.toPath());
-        return new String(bytes, StandardCharsets.UTF_8);
+    private void appendEntries(List<Segment> target, int position, String section, Map<String, String> values) {
+        int insertAt = position;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            EntrySegment created = EntrySegment.create(section, value.getKey(), value.getValue());
+            target.add(insertAt++, created);
+            indexEntry(section, value.getKey(), created);
+        }
     }
 
-    private static void writeUtf8File(File file, String content) throws IOException {
-        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    private void indexEntry(String section, String key, Segment segment) {
+        entryIndex.computeIfAbsent(section, name -> new LinkedHashMap<>()).put(key, segment);
     }
 
-    private static String detectLineSeparator(String content) {
-        int index = content.indexOf('\n');
-        if (index > 0 && content.charAt(index - 1) == '\r') {
-            return "\r\n";
+    /**
+     * Whether segment {@code currentIndex} ends the current run of {@code section}, found by scanning
+     * ahead to the next anchor. Quadratic in the number of comment lines; only used by
+     * {@link #write(boolean)} as a reference.
+     */
+    private boolean shouldFlushSection(String section, int currentIndex,
+                                       Map<String, LinkedHashMap<String, String>> remaining) {
+        if (section == null || section.isEmpty()) {
+            return false;
+        }
+        LinkedHashMap<String, String> values = remaining.get(section);
+        if (values == null || values.isEmpty()) {
+            return false;
+        }
+        for (int i = currentIndex + 1; i < segments.size(); i++) {
+            String next = anchorSection(segments.get(i));
+            if (next != null) {
+                return !section.equals(next);
+            }
         }
-        return "\n";
+        return true;
     }
 
-    private static List<String> splitLines(String content) {
-        List<String> result = new ArrayList<>();
-        if (content.isEmpty()) {
-            return result;
+    private static String anchorSection(Segment segment) {
+        if (segment instanceof SectionSegment sectionSegment) {
+            return sectionSegment.sectionName;
         }
-        int lineStart = 0;
-        for (int i = 0; i < content.length(); i++) {
-            char c = content.charAt(i);
-            if (c == '\n') {
-                int end = (i > 0 && content.charAt(i - 1) == '\r') ? i - 1 : i;
-                result.add(content.substring(lineStart, end));
-                lineStart = i + 1;
-            }
+        if (segment instanceof EntrySegment entrySegment) {
+            return entrySegment.section;
         }
-        if (lineStart < content.length()) {
-            result.add(content.substring(lineStart));
+        if (segment instanceof BareEntrySegment bareEntrySegment) {
+            return bareEntrySegment.section;
         }
-        return result;
+        return null;
+    }
+
+    private static void writeUtf8File(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
     }
 
     private static int findDelimiter(String line) {
@@ -217,43 +336,43 @@ final class IniDocument {
     }
 
     private static EntryParseResult parseEntryLine(String line, int delimiter, String section, String key,
-                                                   String newline, String placeholder) {
+                                                   String newline) {
         String afterDelimiter = line.substring(delimiter + 1);
         int valueStart = firstNonWhitespaceIndex(afterDelimiter);
         int prefixEnd = delimiter + 1 + (valueStart >= 0 ? valueStart : afterDelimiter.length());
         String beforeValue = line.substring(0, prefixEnd);
         String remainder = valueStart >= 0 ? afterDelimiter.substring(valueStart) : "";
         if (remainder.startsWith("\"\"\"")) {
-            return handleTriple(line, section, key, beforeValue, remainder.substring(3), newline, placeholder, "");
+            return handleTriple(line, section, key, beforeValue, remainder.substring(3), newline, "");
         }
 
         int inlineTripleIndex = findInlineTripleQuote(remainder);
         if (inlineTripleIndex >= 0) {
             String prefix = remainder.substring(0, inlineTripleIndex);
             return handleTriple(line, section, key, beforeValue,
-                    remainder.substring(inlineTripleIndex + 3), newline, placeholder, prefix);
+                    remainder.substring(inlineTripleIndex + 3), newline, prefix);
         }
 
         ValueSplit split = splitValueAndComment(remainder);
         ValueStyle style = determineStyle(split.valueToken);
         EntrySegment segment = new EntrySegment(section, key, beforeValue, split.suffix,
-            line, style, placeholder, "", split.valueToken, "");
+            line, style, "", split.valueToken, "");
         return new EntryParseResult(segment, null);
     }
 
     private static EntryParseResult handleTriple(String originalLine, String section, String key,
                                                  String beforeValue, String afterStart, String newline,
-                                                 String placeholder, String inlinePrefix) {
+                                                 String inlinePrefix) {
         int closingIndex = afterStart.indexOf("\"\"\"");
         if (closingIndex >= 0) {
             String content = afterStart.substring(0, closingIndex);
             String suffix = afterStart.substring(closingIndex + 3);
                 EntrySegment segment = new EntrySegment(section, key, beforeValue, suffix,
-                    originalLine, ValueStyle.TRIPLE_QUOTED, placeholder, content, null, inlinePrefix);
+                    originalLine, ValueStyle.TRIPLE_QUOTED, content, null, inlinePrefix);
             return new EntryParseResult(segment, null);
         }
         PendingTriple pending = new PendingTriple(section, key, beforeValue, inlinePrefix,
-                newline, placeholder, originalLine);
+                newline, originalLine);
         pending.appendInitial(afterStart);
         return new EntryParseResult(null, pending);
     }
@@ -324,10 +443,6 @@ final class IniDocument {
         return -1;
     }
 
-    private static String buildPlaceholder(int index) {
-        return "__RW_RAW_" + index + "__";
-    }
-
     private static boolean looksLikeBareKey(String text) {
         if (text.isEmpty()) {
             return false;
@@ -341,100 +456,6 @@ final class IniDocument {
         return true;
     }
 
-    private static Map<String, LinkedHashMap<String, String>> snapshotValues(Wini wini) {
-        Map<String, LinkedHashMap<String, String>> snapshot = new LinkedHashMap<>();
-        if (wini == null) {
-            return snapshot;
-        }
-        for (String sectionName : wini.keySet()) {
-            Profile.Section section = wini.get(sectionName);
-            LinkedHashMap<String, String> values = new LinkedHashMap<>();
-            if (section != null) {
-                for (String key : section.keySet()) {
-                    values.put(key, section.get(key));
-                }
-            }
-            snapshot.put(sectionName, values);
-        }
-        return snapshot;
-    }
-
-    private boolean shouldFlushSection(String section, int currentIndex,
-                                       Map<String, LinkedHashMap<String, String>> remaining) {
-        if (section == null || section.isEmpty()) {
-            return false;
-        }
-        LinkedHashMap<String, String> values = remaining.get(section);
-        if (values == null || values.isEmpty()) {
-            return false;
-        }
-        for (int i = currentIndex + 1; i < segments.size(); i++) {
-            Segment next = segments.get(i);
-            if (next instanceof SectionSegment sectionSegment) {
-                return !section.equals(sectionSegment.sectionName);
-            }
-            if (next instanceof EntrySegment entrySegment) {
-                return !section.equals(entrySegment.section);
-            }
-            if (next instanceof BareEntrySegment bareEntrySegment) {
-                return !section.equals(bareEntrySegment.section);
-            }
-        }
-        return true;
-    }
-
-    private static List<String> renderRemainingEntries(String section,
-                                                       Map<String, LinkedHashMap<String, String>> remaining) {
-        List<String> lines = new ArrayList<>();
-        LinkedHashMap<String, String> values = remaining.get(section);
-        if (values == null) {
-            return lines;
-        }
-        List<String> keys = new ArrayList<>(values.keySet());
-        for (String key : keys) {
-            String value = values.remove(key);
-            lines.add(defaultEntryLine(key, value));
-        }
-        return lines;
-    }
-
-    private static List<String> renderRemainingSections(Map<String, LinkedHashMap<String, String>> remaining,
-                                                        Set<String> seenSections) {
-        List<String> lines = new ArrayList<>();
-        for (Map.Entry<String, LinkedHashMap<String, String>> entry : remaining.entrySet()) {
-            if (entry.getValue().isEmpty()) {
-                continue;
-            }
-            if (!entry.getKey().isEmpty()) {
-                boolean alreadySeen = seenSections.contains(entry.getKey());
-                if (!lines.isEmpty() || alreadySeen) {
-                    lines.add("");
-                }
-                lines.add("[" + entry.getKey() + "]");
-            }
-            List<String> keys = new ArrayList<>(entry.getValue().keySet());
-            for (String key : keys) {
-                String value = entry.getValue().remove(key);
-                lines.add(defaultEntryLine(key, value));
-            }
-        }
-        return lines;
-    }
-
-    private static String removeSnapshotValue(Map<String, LinkedHashMap<String, String>> values,
-                                              String section, String key) {
-        String sectionKey = (section == null) ? "" : section;
-        LinkedHashMap<String, String> sectionValues = values.get(sectionKey);
-        String removed = sectionValues != null ? sectionValues.remove(key) : null;
-        if (removed == null && !sectionKey.isEmpty()) {
-            LinkedHashMap<String, String> globalValues = values.get("");
-            if (globalValues != null) {
-                removed = globalValues.remove(key);
-            }
-        }
-        return removed;
-    }
-
     private static String defaultEntryLine(String key, String value) {
         if (value == null) {
             value = "";
@@ -457,9 +478,7 @@ final class IniDocument {
     }
 
     private sealed interface Segment permits RawSegment, SectionSegment, EntrySegment, BareEntrySegment {
-        String sanitizedText();
-
-        String render(Map<String, LinkedHashMap<String, String>> values);
+        String text();
     }
 
     private static final class RawSegment implements Segment {
@@ -470,12 +489,7 @@ final class IniDocument {
         }
 
         @Override
-        public String sanitizedText() {
-            return line;
-        }
-
-        @Override
-        public String render(Map<String, LinkedHashMap<String, String>> values) {
+        public String text() {
             return line;
         }
     }
@@ -490,12 +504,7 @@ final class IniDocument {
         }
 
         @Override
-        public String sanitizedText() {
-            return line;
-        }
-
-        @Override
-        public String render(Map<String, LinkedHashMap<String, String>> values) {
+        public String text() {
             return line;
         }
     }
@@ -507,13 +516,13 @@ final class IniDocument {
         private final String suffix;
         private final String originalLiteral;
         private final ValueStyle style;
-        private final String placeholder;
         private final String tripleContent;
         private final String originalValueToken;
         private final String inlinePrefix;
+        private String text;
 
         private EntrySegment(String section, String key, String beforeValue, String suffix,
-                             String originalLiteral, ValueStyle style, String placeholder,
+                             String originalLiteral, ValueStyle style,
                              String tripleContent, String originalValueToken, String inlinePrefix) {
             this.section = section;
             this.key = key;
@@ -521,30 +530,51 @@ final class IniDocument {
             this.suffix = suffix;
             this.originalLiteral = originalLiteral;
             this.style = style;
-            this.placeholder = placeholder;
             this.tripleContent = tripleContent;
             this.originalValueToken = originalValueToken;
             this.inlinePrefix = inlinePrefix == null ? "" : inlinePrefix;
+            this.text = originalLiteral;
         }
 
-        @Override
-        public String sanitizedText() {
+        private static EntrySegment create(String section, String key, String value) {
+            String safeValue = value == null ? "" : value;
+            String line = defaultEntryLine(key, safeValue);
+            String beforeValue = key + " = ";
+            if (safeValue.contains("\n") || safeValue.contains("\r")) {
+                return new EntrySegment(section, key, beforeValue, "", line, ValueStyle.TRIPLE_QUOTED,
+                        safeValue, null, "");
+            }
+            ValueStyle style = line.startsWith("\"", beforeValue.length())
+                    ? ValueStyle.DOUBLE_QUOTED
+                    : ValueStyle.UNQUOTED;
+            return new EntrySegment(section, key, beforeValue, "", line, style, "", null, "");
+        }
+
+        /**
+         * Value as ini4j would report it: the trimmed text after the delimiter, with the body of a
+         * triple-quoted literal taken verbatim.
+         */
+        private String value() {
             if (style == ValueStyle.TRIPLE_QUOTED) {
-                return beforeValue + inlinePrefix + placeholder + suffix;
+                return inlinePrefix.stripLeading() + tripleContent + suffix.stripTrailing();
             }
-            return originalLiteral;
+            return originalLiteral.substring(beforeValue.length()).trim();
         }
 
         @Override
-        public String render(Map<String, LinkedHashMap<String, String>> values) {
-            String value = removeSnapshotValue(values, section, key);
-            if (value == null) {
-                return originalLiteral;
-            }
-                boolean originalUsedEscapedBreaks = originalValueToken != null
+        public String text() {
+            return text;
+        }
+
+        private void update(String value) {
+            text = value == null ? originalLiteral : renderValue(value);
+        }
+
+        private String renderValue(String value) {
+            boolean originalUsedEscapedBreaks = originalValueToken != null
                     && (originalValueToken.contains("\\n") || originalValueToken.contains("\\r"));
-                boolean containsLineBreak = value.contains("\n") || value.contains("\r");
-                if (style != ValueStyle.TRIPLE_QUOTED && containsLineBreak && !originalUsedEscapedBreaks) {
+            boolean containsLineBreak = value.contains("\n") || value.contains("\r");
+            if (style != ValueStyle.TRIPLE_QUOTED && containsLineBreak && !originalUsedEscapedBreaks) {
                 return beforeValue + "\"\"\"" + value + "\"\"\"" + suffix;
             }
             ValueStyle targetStyle = style;
@@ -607,13 +637,7 @@ final class IniDocument {
         }
 
         @Override
-        public String sanitizedText() {
-            return line;
-        }
-
-        @Override
-        public String render(Map<String, LinkedHashMap<String, String>> values) {
-            removeSnapshotValue(values, section, key);
+        public String text() {
             return line;
         }
     }
@@ -636,7 +660,6 @@ final class IniDocument {
         private final String beforeValue;
         private final String inlinePrefix;
         private final String newline;
-        private final String placeholder;
         private final StringBuilder literalBuilder;
         private final StringBuilder contentBuilder = new StringBuilder();
         private String suffix = "";
@@ -644,13 +667,12 @@ final class IniDocument {
         private boolean needsLineBreak;
 
         private PendingTriple(String section, String key, String beforeValue, String inlinePrefix,
-                              String newline, String placeholder, String firstLine) {
+                              String newline, String firstLine) {
             this.section = section;
             this.key = key;
             this.beforeValue = beforeValue;
             this.inlinePrefix = inlinePrefix == null ? "" : inlinePrefix;
             this.newline = newline;
-            this.placeholder = placeholder;
             this.literalBuilder = new StringBuilder(firstLine);
         }
 
@@ -684,7 +706,7 @@ final class IniDocument {
 
         private EntrySegment toSegment() {
                 return new EntrySegment(section, key, beforeValue, suffix,
-                    literalBuilder.toString(), ValueStyle.TRIPLE_QUOTED, placeholder,
+                    literalBuilder.toString(), ValueStyle.TRIPLE_QUOTED,
                     contentBuilder.toString(), null, inlinePrefix);
         }
 
@@ -693,4 +715,177 @@ final class IniDocument {
             return toSegment();
         }
     }
+
+    /**
+     * Marks the last anchor (section header or entry) of every run of consecutive segments that
+     * belong to the same section. New keys for a section are appended right after that segment,
+     * so the write loop can decide where to insert them without scanning ahead.
+     */
+    private static final class RunBoundaries {
+        private final BitSet runEnds = new BitSet();
+        private int lastAnchorIndex = -1;
+        private String lastAnchorSection;
+
+        private void accept(int index, Segment segment) {
+            String section = anchorSection(segment);
+            if (section == null) {
+                return;
+            }
+            if (lastAnchorIndex >= 0 && !section.equals(lastAnchorSection)) {
+                runEnds.set(lastAnchorIndex);
+            }
+            lastAnchorIndex = index;
+            lastAnchorSection = section;
+        }
+
+        private BitSet finish() {
+            if (lastAnchorIndex >= 0) {
+                runEnds.set(lastAnchorIndex);
+            }
+            return runEnds;
+        }
+    }
+
+    /**
+     * Splits the decoded character stream into lines and turns them into segments and model values
+     * as they arrive, so the file is read exactly once.
+     */
+    private static final class Parser {
+        private final List<Segment> segments = new ArrayList<>();
+        private final Map<String, LinkedHashMap<String, String>> sections = new LinkedHashMap<>();
+        private final Map<String, Map<String, Segment>> entryIndex = new LinkedHashMap<>();
+        private final RunBoundaries boundaries = new RunBoundaries();
+        private final StringBuilder partialLine = new StringBuilder();
+        private String newline;
+        private boolean endsWithNewline;
+        private String currentSection = "";
+        private PendingTriple pending;
+
+        private void consume(Reader reader) throws IOException {
+            char[] buffer = new char[READ_BUFFER_SIZE];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                if (read == 0) {
+                    continue;
+                }
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    String line;
+                    if (partialLine.length() == 0) {
+                        int end = i;
+                        if (end > lineStart && buffer[end - 1] == '\r') {
+                            end--;
+                            detectNewline(true);
+                        } else {
+                            detectNewline(false);
+                        }
+                        line = new String(buffer, lineStart, end - lineStart);
+                    } else {
+                        partialLine.append(buffer, lineStart, i - lineStart);
+                        int length = partialLine.length();
+                        boolean carriageReturn = partialLine.charAt(length - 1) == '\r';
+                        detectNewline(carriageReturn);
+                        line = partialLine.substring(0, carriageReturn ? length - 1 : length);
+                        partialLine.setLength(0);
+                    }
+                    acceptLine(line);
+                    lineStart = i + 1;
+                }
+                partialLine.append(buffer, lineStart, read - lineStart);
+                endsWithNewline = buffer[read - 1] == '\n';
+            }
+            if (partialLine.length() > 0) {
+                acceptLine(partialLine.toString());
+                partialLine.setLength(0);
+            }
+        }
+
+        private void detectNewline(boolean carriageReturn) {
+            if (newline == null) {
+                newline = carriageReturn ? "\r\n" : "\n";
+            }
+        }
+
+        private String newline() {
+            return newline == null ? "\n" : newline;
+        }
+
+        private void acceptLine(String line) {
+            if (pending != null) {
+                pending.consumeNextLine(line);
+                if (pending.isClosed()) {
+                    addSegment(pending.toSegment());
+                    pending = null;
+                }
+                return;
+            }
+
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith(";") || trimmed.startsWith("#")) {
+                addSegment(new RawSegment(line));
+                return;
+            }
+
+            if (trimmed.startsWith("[") && trimmed.contains("]")) {
+                currentSection = trimmed.substring(1, trimmed.indexOf(']')).trim();
+                addSegment(new SectionSegment(line, currentSection));
+                return;
+            }
+
+            int delimiter = findDelimiter(line);
+            if (delimiter < 0) {
+                if (looksLikeBareKey(trimmed)) {
+                    addSegment(new BareEntrySegment(currentSection, trimmed, line));
+                } else {
+                    addSegment(new RawSegment(line));
+                }
+                return;
+            }
+
+            String key = line.substring(0, delimiter).trim();
+            if (key.isEmpty()) {
+                addSegment(new RawSegment(line));
+                return;
+            }
+
+            EntryParseResult parseResult = parseEntryLine(line, delimiter, currentSection, key, newline());
+            if (parseResult.entrySegment != null) {
+                addSegment(parseResult.entrySegment);
+            } else if (parseResult.pendingTriple != null) {
+                pending = parseResult.pendingTriple;
+            } else {
+                addSegment(new RawSegment(line));
+            }
+        }
+
+        private void addSegment(Segment segment) {
+            boundaries.accept(segments.size(), segment);
+            segments.add(segment);
+            if (segment instanceof SectionSegment sectionSegment) {
+                sections.computeIfAbsent(sectionSegment.sectionName, name -> new LinkedHashMap<>());
+            } else if (segment instanceof EntrySegment entrySegment) {
+                sections.computeIfAbsent(entrySegment.section, name -> new LinkedHashMap<>())
+                        .put(entrySegment.key, entrySegment.value());
+                entryIndex.computeIfAbsent(entrySegment.section, name -> new LinkedHashMap<>())
+                        .put(entrySegment.key, entrySegment);
+            } else if (segment instanceof BareEntrySegment bareEntrySegment) {
+                sections.computeIfAbsent(bareEntrySegment.section, name -> new LinkedHashMap<>())
+                        .put(bareEntrySegment.key, null);
+                entryIndex.computeIfAbsent(bareEntrySegment.section, name -> new LinkedHashMap<>())
+                        .put(bareEntrySegment.key, bareEntrySegment);
+            }
+        }
+
+        private IniDocument finish(File file) {
+            if (pending != null) {
+                addSegment(pending.forceClose());
+                pending = null;
+            }
+            return new IniDocument(file, segments, sections, entryIndex, boundaries.finish(),
+                    newline(), endsWithNewline);
+        }
+    }
 }
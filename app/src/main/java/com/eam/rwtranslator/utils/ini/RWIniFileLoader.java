@@ -1,12 +1,11 @@
 package com.eam.rwtranslator.utils.ini;
 
 import org.ini4j.Config;
+import org.ini4j.Profile;
 import org.ini4j.Wini;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -24,16 +23,34 @@ public final class RWIniFileLoader {
      * Loads an INI file with triple-quote and comment preservation.
      */
     public static Wini load(File file) throws IOException {
+        return asWini(parse(file));
+    }
+
+    /**
+     * Parses an INI file into its native model without building an ini4j view.
+     */
+    public static IniDocument parse(File file) throws IOException {
         if (file == null) {
             throw new IOException("File reference is null");
         }
-        IniDocument document = IniDocument.parse(file);
-        Wini wini = createEmpty();
-        try (Reader reader = new StringReader(document.toSanitizedContent())) {
-            wini.load(reader);
+        return IniDocument.parse(file);
+    }
+
+    /**
+     * Parses INI content already read from {@code file}.
+     */
+    public static IniDocument parse(File file, byte[] content) throws IOException {
+        if (file == null) {
+            throw new IOException("File reference is null");
         }
-        wini.setFile(file);
-        document.restoreRawValues(wini);
+        return IniDocument.parse(file, content);
+    }
+
+    /**
+     * Creates the ini4j view of a parsed document and links both for later store.
+     */
+    public static Wini asWini(IniDocument document) {
+        Wini wini = document.toWini();
         DOCUMENTS.put(wini, document);
         return wini;
     }
@@ -54,11 +71,38 @@ public final class RWIniFileLoader {
 
     /**
      * Stores the INI file while retaining comments and triple-quoted content.
+     * Only values that differ from the linked document are rewritten.
      */
     public static void store(Wini wini) throws IOException {
         if (wini == null) {
             return;
         }
+        documentFor(wini).write(wini);
+    }
+
+    /**
+     * Applies the given section/key changes to the Wini view and its document, then writes only
+     * the entries that actually changed.
+     */
+    public static void store(Wini wini, Map<String, ? extends Map<String, String>> changes) throws IOException {
+        if (wini == null) {
+            return;
+        }
+        IniDocument document = documentFor(wini);
+        for (Map.Entry<String, ? extends Map<String, String>> sectionChanges : changes.entrySet()) {
+            Profile.Section section = wini.get(sectionChanges.getKey());
+            if (section == null) {
+                section = wini.add(sectionChanges.getKey());
+            }
+            for (Map.Entry<String, String> change : sectionChanges.getValue().entrySet()) {
+                section.put(change.getKey(), change.getValue());
+                document.put(sectionChanges.getKey(), change.getKey(), change.getValue());
+            }
+        }
+        document.write();
+    }
+
+    private static IniDocument documentFor(Wini wini) throws IOException {
         File file = wini.getFile();
         if (file == null) {
             throw new IOException("Cannot store Wini without backing file");
@@ -66,9 +110,9 @@ public final class RWIniFileLoader {
         IniDocument document = DOCUMENTS.get(wini);
         if (document == null) {
             document = IniDocument.parse(file);
+            DOCUMENTS.put(wini, document);
         }
-        document.write(wini);
-        DOCUMENTS.put(wini, IniDocument.parse(file));
+        return document;
     }
 
     /**
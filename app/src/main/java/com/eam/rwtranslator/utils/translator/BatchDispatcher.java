@@ -0,0 +1,332 @@
+package com.eam.rwtranslator.utils.translator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import timber.log.Timber;
+
+/**
+ * 多批次并发调度：同时最多发出concurrency个请求，发送前经过端点限流，
+ * 结果按文本原下标重新拼接（批次可以不连续），每条译文到达时立即转发并上报进度。
+ * <p>
+ * 单个请求失败不会中止整个任务：临时错误按指数退避重试，无法解析或反复失败的请求拆成两半，
+ * 响应中缺失的下标单独补发。只有不可重试的错误（如鉴权失败）会立即中止；
+ * 重试耗尽的条目在其余条目完成后通过onError汇总报告，已交付的译文不受影响。
+ */
+final class BatchDispatcher {
+    static final int MAX_ATTEMPTS = 5;
+    static final long BASE_BACKOFF_MILLIS = 1000;
+    static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * 单个请求的结果回调，下标均为请求内的下标
+     */
+    interface BatchResult {
+        /**
+         * 第index条译文已到达（流式响应随到随报，重复上报会被忽略）
+         */
+        void onItemTranslated(int index, String translation);
+
+        /**
+         * 请求完成，缺失的条目为null，会被单独重新请求
+         */
+        void onSuccess(List<String> translations);
+
+        void onError(Throwable t);
+    }
+
+    interface BatchSender {
+        void send(List<String> texts, BatchResult result);
+    }
+
+    /**
+     * 一次请求：来源批次、文本在全部文本中的下标和已尝试次数
+     */
+    private record Unit(int batchIndex, int[] indices, int attempt) {
+    }
+
+    private final List<String> texts;
+    private final int batchCount;
+    private final ToIntFunction<List<String>> tokenEstimator;
+    private final int concurrency;
+    private final EndpointRateLimiter limiter;
+    private final ScheduledExecutorService scheduler;
+    private final BatchSender sender;
+    private final OpenAITranslator.BatchTranslateCallback callback;
+    private final String fl;
+    private final String tl;
+
+    private final ArrayDeque<Unit> queue = new ArrayDeque<>();
+    private final String[] results;
+    private final boolean[] delivered;
+    private int completedTexts;
+    private int failedTexts;
+    private Throwable lastError;
+    private int inFlight;
+    private int pendingRetries;
+    private boolean waitingForQuota;
+    private boolean finished;
+
+    /**
+     * @param texts   全部待翻译文本，onItemTranslated和onSuccess的下标以此为准
+     * @param batches 每个批次包含的文本下标
+     */
+    BatchDispatcher(List<String> texts, List<int[]> batches, ToIntFunction<List<String>> tokenEstimator,
+                    int concurrency, EndpointRateLimiter limiter, ScheduledExecutorService scheduler,
+                    BatchSender sender, String fl, String tl,
+                    OpenAITranslator.BatchTranslateCallback callback) {
+        this.texts = texts;
+        this.batchCount = batches.size();
+        this.tokenEstimator = tokenEstimator;
+        this.concurrency = Math.max(1, concurrency);
+        this.limiter = limiter;
+        this.scheduler = scheduler;
+        this.sender = sender;
+        this.fl = fl;
+        this.tl = tl;
+        this.callback = callback;
+        for (int b = 0; b < batches.size(); b++) {
+            queue.add(new Unit(b, batches.get(b), 0));
+        }
+        this.results = new String[texts.size()];
+        this.delivered = new boolean[texts.size()];
+    }
+
+    void start() {
+        if (texts.isEmpty()) {
+            finished = true;
+            callback.onSuccess(new ArrayList<>(), fl, tl);
+            return;
+        }
+        callback.onProgress(0, batchCount, 0, texts.size());
+        pump();
+    }
+
+    /**
+     * 在并发窗口和限流允许的范围内尽量多地发出请求
+     */
+    private void pump() {
+        List<Unit> toSend = new ArrayList<>();
+        long wait = 0;
+        synchronized (this) {
+            if (finished || waitingForQuota) return;
+            while (inFlight < concurrency && !queue.isEmpty()) {
+                wait = limiter.tryAcquire(tokenEstimator.applyAsInt(textsOf(queue.peekFirst())));
+                if (wait > 0) {
+                    Timber.d("Rate limited, next request waits %d ms", wait);
+                    waitingForQuota = true;
+                    break;
+                }
+                toSend.add(queue.pollFirst());
+                inFlight++;
+            }
+        }
+        for (Unit unit : toSend) {
+            Timber.d("Dispatching %d texts of batch %d/%d (attempt %d)",
+                    unit.indices.length, unit.batchIndex + 1, batchCount, unit.attempt + 1);
+            Result result = new Result(unit);
+            try {
+                sender.send(textsOf(unit), result);
+            } catch (RuntimeException e) {
+                // 构建请求时同步抛出（如API地址格式错误），重试无意义
+                result.onError(new LlmRequestException(LlmRequestException.Kind.FATAL,
+                        "Failed to send request: " + e.getMessage(), e));
+            }
+        }
+        if (wait > 0) {
+            scheduler.schedule(() -> {
+                synchronized (this) {
+                    waitingForQuota = false;
+                }
+                pump();
+            }, wait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private List<String> textsOf(Unit unit) {
+        List<String> unitTexts = new ArrayList<>(unit.indices.length);
+        for (int index : unit.indices) unitTexts.add(texts.get(index));
+        return unitTexts;
+    }
+
+    private void deliver(Unit unit, int index, String translation) {
+        int completed;
+        synchronized (this) {
+            if (finished || delivered[index]) return;
+            delivered[index] = true;
+            results[index] = translation;
+            completed = ++completedTexts;
+        }
+        callback.onItemTranslated(index, translation);
+        callback.onProgress(unit.batchIndex, batchCount, completed, texts.size());
+    }
+
+    /**
+     * 请求中尚未交付的下标
+     */
+    private synchronized int[] undelivered(Unit unit) {
+        return Arrays.stream(unit.indices).filter(i -> !delivered[i]).toArray();
+    }
+
+    /**
+     * 重新安排未完成的条目：拆分、退避重试或放弃
+     *
+     * @param error 为null表示响应成功但缺少这些条目
+     */
+    private void reschedule(Unit unit, int[] remaining, Throwable error) {
+        int attempt = unit.attempt + 1;
+        LlmRequestException.Kind kind = error == null ? null : LlmRequestException.kindOf(error);
+        // 解析失败或多次临时错误时把请求拆小，单条文本只能原样重试
+        boolean split = remaining.length > 1
+                && (kind == LlmRequestException.Kind.MALFORMED
+                || kind == LlmRequestException.Kind.TRANSIENT && attempt >= 2);
+        List<Unit> next = new ArrayList<>(2);
+        if (attempt < MAX_ATTEMPTS) {
+            if (split) {
+                int half = remaining.length / 2;
+                next.add(new Unit(unit.batchIndex, Arrays.copyOfRange(remaining, 0, half), attempt));
+                next.add(new Unit(unit.batchIndex, Arrays.copyOfRange(remaining, half, remaining.length), attempt));
+            } else {
+                next.add(new Unit(unit.batchIndex, remaining, attempt));
+            }
+        }
+
+        long delay = kind == LlmRequestException.Kind.TRANSIENT ? backoffMillis(attempt, error) : 0;
+        synchronized (this) {
+            if (finished) return;
+            if (next.isEmpty()) {
+                failedTexts += remaining.length;
+                lastError = error;
+                Timber.w(error, "Giving up %d texts of batch %d after %d attempts",
+                        remaining.length, unit.batchIndex + 1, attempt);
+                return;
+            }
+            Timber.w(error, "Re-requesting %d texts of batch %d in %d request(s) after %d ms",
+                    remaining.length, unit.batchIndex + 1, next.size(), delay);
+            if (delay <= 0) {
+                // 补发的请求优先于尚未发出的批次，尽快让该批次完整
+                for (int i = next.size() - 1; i >= 0; i--) queue.addFirst(next.get(i));
+                return;
+            }
+            pendingRetries++;
+        }
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                pendingRetries--;
+                for (int i = next.size() - 1; i >= 0; i--) queue.addFirst(next.get(i));
+            }
+            pump();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 第attempt次重试前的等待时间：指数退避加随机抖动，服务端给出Retry-After时取较大值
+     */
+    static long backoffMillis(int attempt, Throwable error) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(Math.max(attempt - 1, 0), 10));
+        // 随机抖动，避免并发请求同时重试
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        if (error instanceof LlmRequestException e) {
+            delay = Math.max(delay, e.getRetryAfterMillis());
+        }
+        return delay;
+    }
+
+    /**
+     * 没有在途、排队和等待重试的请求时结束任务
+     */
+    private void finishIfDone() {
+        List<String> merged = null;
+        Throwable failure = null;
+        synchronized (this) {
+            if (finished || inFlight > 0 || pendingRetries > 0 || !queue.isEmpty()) return;
+            finished = true;
+            if (failedTexts == 0) {
+                merged = new ArrayList<>(Arrays.asList(results));
+            } else {
+                failure = new IOException(String.format(Locale.ROOT, "%d of %d texts failed after %d attempts: %s",
+                        failedTexts, texts.size(), MAX_ATTEMPTS,
+                        lastError == null ? "missing from response" : lastError.getMessage()), lastError);
+            }
+        }
+        if (merged != null) {
+            callback.onSuccess(merged, fl, tl);
+        } else {
+            Timber.e(failure);
+            callback.onError(failure);
+        }
+    }
+
+    private final class Result implements BatchResult {
+        private final Unit unit;
+        private boolean done;
+
+        Result(Unit unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        public void onItemTranslated(int index, String translation) {
+            if (index < 0 || index >= unit.indices.length || translation == null) return;
+            deliver(unit, unit.indices[index], translation);
+        }
+
+        @Override
+        public void onSuccess(List<String> translations) {
+            if (!settle()) return;
+            // 非流式响应或流中缺失的条目在此补发
+            for (int i = 0; i < translations.size(); i++) {
+                onItemTranslated(i, translations.get(i));
+            }
+            int[] missing = undelivered(unit);
+            if (missing.length > 0) {
+                Timber.w("Batch %d response is missing %d of %d texts",
+                        unit.batchIndex + 1, missing.length, unit.indices.length);
+                reschedule(unit, missing, null);
+            }
+            finishIfDone();
+            pump();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!settle()) return;
+            if (LlmRequestException.kindOf(t) == LlmRequestException.Kind.FATAL) {
+                synchronized (BatchDispatcher.this) {
+                    if (finished) return;
+                    finished = true;
+                }
+                Timber.e(t, "Batch %d/%d failed", unit.batchIndex + 1, batchCount);
+                callback.onError(t);
+                return;
+            }
+            // 流式响应中断前已到达的条目不再请求
+            int[] remaining = undelivered(unit);
+            if (remaining.length > 0) {
+                reschedule(unit, remaining, t);
+            }
+            finishIfDone();
+            pump();
+        }
+
+        /**
+         * 每个请求只结算一次
+         */
+        private boolean settle() {
+            synchronized (BatchDispatcher.this) {
+                if (done) return false;
+                done = true;
+                inFlight--;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.eam.rwtranslator.utils.translator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按token预算把文本装入尽量少的请求。
+ * 每条文本的开销包括请求中的条目和为译文预留的输出，输出按目标语言的膨胀系数估算，
+ * 这样请求加响应不会超过单次请求的上限。
+ */
+final class BatchPacker {
+    // {"index":123,"text":""} 或 {"index":123,"translation":""} 的结构开销
+    static final int ITEM_OVERHEAD_TOKENS = 10;
+    // 装不下最短条目的批次不再尝试放入
+    private static final int MIN_ITEM_TOKENS = ITEM_OVERHEAD_TOKENS * 2 + 1;
+
+    // 译文相对原文的token膨胀系数，按目标语言保守取值
+    private static final double DEFAULT_EXPANSION = 1.3;
+    private static final Map<String, Double> EXPANSION = Map.ofEntries(
+            Map.entry("zh", 1.5), Map.entry("ja", 1.6), Map.entry("ko", 1.8),
+            Map.entry("ru", 2.0), Map.entry("uk", 2.0), Map.entry("be", 2.0), Map.entry("bg", 2.0),
+            Map.entry("sr", 2.0), Map.entry("kk", 2.0), Map.entry("el", 2.2),
+            Map.entry("ar", 2.0), Map.entry("fa", 2.0), Map.entry("he", 2.0),
+            Map.entry("hi", 3.0), Map.entry("th", 3.0), Map.entry("vi", 1.8));
+
+    private final TokenCounter counter;
+    private final int promptTokens;
+    private final int itemBudget;
+    private final double expansion;
+
+    /**
+     * @param maxRequestTokens 单次请求（提示词+原文+译文）的token上限
+     * @param promptTokens     每个请求固定的提示词开销
+     * @param targetLang       目标语言，决定为译文预留的比例
+     */
+    BatchPacker(TokenCounter counter, int maxRequestTokens, int promptTokens, String targetLang) {
+        this.counter = counter;
+        this.promptTokens = promptTokens;
+        int available = maxRequestTokens - promptTokens;
+        // 保证至少能放下一个短文本
+        this.itemBudget = available > 0 ? available : Math.max(128, maxRequestTokens / 4);
+        this.expansion = outputExpansion(targetLang);
+    }
+
+    static double outputExpansion(String targetLang) {
+        if (targetLang == null) return DEFAULT_EXPANSION;
+        String lang = targetLang.toLowerCase(Locale.ROOT);
+        int separator = lang.indexOf('-');
+        if (separator > 0) lang = lang.substring(0, separator);
+        return EXPANSION.getOrDefault(lang, DEFAULT_EXPANSION);
+    }
+
+    /**
+     * 文本作为请求条目的token开销
+     */
+    int inputTokens(String text) {
+        return counter.count(text) + ITEM_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 文本占用的总预算：请求条目加预留的译文
+     */
+    int itemCost(String text) {
+        int tokens = counter.count(text);
+        return tokens + ITEM_OVERHEAD_TOKENS + (int) Math.ceil(tokens * expansion) + ITEM_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 一次请求的预计总开销，用于限流
+     */
+    int requestTokens(List<String> texts) {
+        int tokens = promptTokens;
+        for (String text : texts) tokens += itemCost(text);
+        return tokens;
+    }
+
+    /**
+     * First-Fit装箱：按原顺序把每条文本放入第一个还装得下的批次，
+     * 长文本留下的空隙由后面的短文本填补，批次内保持原顺序，相邻文本大多在同一批次
+     *
+     * @return 每个批次包含的文本下标（升序）
+     */
+    List<int[]> pack(List<String> texts) {
+        List<Bin> bins = new ArrayList<>();
+        // 还有空间的批次，装满的移出以免反复扫描
+        List<Bin> open = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            int cost = itemCost(texts.get(i));
+            Bin target = null;
+            for (Bin bin : open) {
+                if (bin.remaining >= cost) {
+                    target = bin;
+                    break;
+                }
+            }
+            if (target == null) {
+                // 没有批次装得下时新开一批，超出预算的单条文本独占一批
+                target = new Bin(itemBudget);
+                bins.add(target);
+                open.add(target);
+            }
+            target.add(i, cost);
+            if (target.remaining < MIN_ITEM_TOKENS) open.remove(target);
+        }
+        List<int[]> batches = new ArrayList<>(bins.size());
+        for (Bin bin : bins) batches.add(bin.toArray());
+        return batches;
+    }
+
+    private static final class Bin {
+        private int[] indices = new int[16];
+        private int size;
+        private int remaining;
+
+        Bin(int capacity) {
+            this.remaining = capacity;
+        }
+
+        void add(int index, int cost) {
+            if (size == indices.length) indices = Arrays.copyOf(indices, size * 2);
+            indices[size++] = index;
+            remaining -= cost;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(indices, size);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.eam.rwtranslator.utils.translator;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * 使用OpenAI的BPE词表精确计数，词表在首次使用时加载
+ */
+final class BpeTokenCounter implements TokenCounter {
+
+    enum Vocabulary {
+        // gpt-4o、gpt-4.1、o系列及之后的模型
+        O200K(EncodingType.O200K_BASE),
+        // gpt-4、gpt-3.5
+        CL100K(EncodingType.CL100K_BASE);
+
+        final EncodingType type;
+
+        Vocabulary(EncodingType type) {
+            this.type = type;
+        }
+    }
+
+    private static final String[] O200K_PREFIXES = {"gpt-4o", "gpt-4.1", "gpt-4.5", "gpt-5", "chatgpt-", "o1", "o3", "o4"};
+    private static final String[] CL100K_PREFIXES = {"gpt-4", "gpt-3.5"};
+
+    private static EncodingRegistry registry;
+    private static final Map<Vocabulary, TokenCounter> COUNTERS = new EnumMap<>(Vocabulary.class);
+
+    private final Encoding encoding;
+
+    private BpeTokenCounter(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    @Override
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        // 文本中的<|endoftext|>等特殊标记按普通文本计数
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * 模型对应的词表，非OpenAI模型返回null
+     */
+    static Vocabulary vocabularyFor(String modelName) {
+        if (modelName == null) return null;
+        // 兼容"openai/gpt-4o"这类带厂商前缀的模型名
+        String model = modelName.toLowerCase(Locale.ROOT);
+        model = model.substring(model.lastIndexOf('/') + 1);
+        for (String prefix : O200K_PREFIXES) {
+            if (model.startsWith(prefix)) return Vocabulary.O200K;
+        }
+        for (String prefix : CL100K_PREFIXES) {
+            if (model.startsWith(prefix)) return Vocabulary.CL100K;
+        }
+        return null;
+    }
+
+    /**
+     * 获取词表对应的计数器，词表加载失败时退回字符估算
+     */
+    static synchronized TokenCounter of(Vocabulary vocabulary) {
+        return COUNTERS.computeIfAbsent(vocabulary, v -> {
+            try {
+                if (registry == null) {
+                    registry = Encodings.newLazyEncodingRegistry();
+                }
+                return new BpeTokenCounter(registry.getEncoding(v.type));
+            } catch (RuntimeException | LinkageError ex) {
+                Timber.w(ex, "Failed to load %s vocabulary, falling back to heuristic token count", v);
+                return HeuristicTokenCounter.INSTANCE;
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.eam.rwtranslator.utils.translator;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 按API端点限流：在最近一分钟的滑动窗口内限制请求数（RPM）和token数（TPM），限制值为0表示不限。
+ * 同一端点的所有批量翻译共用一个实例。
+ */
+public final class EndpointRateLimiter {
+    static final long WINDOW_MILLIS = 60_000;
+    private static final Map<String, EndpointRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+    // 窗口内已发出的请求：{时间, token数}
+    private final ArrayDeque<long[]> window = new ArrayDeque<>();
+    private long windowTokens;
+    private int requestsPerMinute;
+    private int tokensPerMinute;
+
+    EndpointRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public static EndpointRateLimiter forEndpoint(String endpoint) {
+        return LIMITERS.computeIfAbsent(endpoint, k -> new EndpointRateLimiter(System::currentTimeMillis));
+    }
+
+    public synchronized void setLimits(int requestsPerMinute, int tokensPerMinute) {
+        this.requestsPerMinute = Math.max(0, requestsPerMinute);
+        this.tokensPerMinute = Math.max(0, tokensPerMinute);
+    }
+
+    /**
+     * 尝试为一次请求预留额度
+     * @param tokens 请求预计消耗的token数
+     * @return 0表示已预留，可以立即发送；否则为需要等待的毫秒数，等待后需重新调用
+     */
+    public synchronized long tryAcquire(int tokens) {
+        long now = clock.getAsLong();
+        while (!window.isEmpty() && window.peekFirst()[0] + WINDOW_MILLIS <= now) {
+            windowTokens -= window.pollFirst()[1];
+        }
+        long wait = 0;
+        if (requestsPerMinute > 0 && window.size() >= requestsPerMinute) {
+            // 等到足够多的旧请求移出窗口
+            long[] oldest = nth(window.size() - requestsPerMinute);
+            wait = oldest[0] + WINDOW_MILLIS - now;
+        }
+        // 单个请求超过TPM时，只要窗口为空就放行，否则永远发不出去
+        if (tokensPerMinute > 0 && !window.isEmpty() && windowTokens + tokens > tokensPerMinute) {
+            long released = 0;
+            for (long[] entry : window) {
+                released += entry[1];
+                if (windowTokens - released + tokens <= tokensPerMinute) {
+                    wait = Math.max(wait, entry[0] + WINDOW_MILLIS - now);
+                    break;
+                }
+            }
+            if (windowTokens - released + tokens > tokensPerMinute) {
+                wait = Math.max(wait, window.peekLast()[0] + WINDOW_MILLIS - now);
+            }
+        }
+        if (wait > 0) {
+            return wait;
+        }
+        window.addLast(new long[]{now, tokens});
+        windowTokens += tokens;
+        return 0;
+    }
+
+    private long[] nth(int index) {
+        int i = 0;
+        for (long[] entry : window) {
+            if (i++ == index) return entry;
+        }
+        return window.peekLast();
+    }
+}
@@ -0,0 +1,52 @@
+package com.eam.rwtranslator.utils.translator;
+
+/**
+ * 按字符所属文字估算token数，不依赖词表。
+ * 拉丁字母约4字符/token，西里尔、希腊等字母约2字符/token，
+ * 中日韩文字按每字1.25 token保守估计，其余字符（如emoji）按2 token计。
+ */
+public final class HeuristicTokenCounter implements TokenCounter {
+    public static final HeuristicTokenCounter INSTANCE = new HeuristicTokenCounter();
+
+    // 以1/4 token为单位的权重
+    private static final int ASCII_WORD = 1;
+    private static final int ASCII_SYMBOL = 2;
+    private static final int ALPHABETIC = 2;
+    private static final int IDEOGRAPHIC = 5;
+    private static final int OTHER = 8;
+
+    private HeuristicTokenCounter() {
+    }
+
+    @Override
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int quarters = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            quarters += weight(cp);
+        }
+        return (quarters + 3) / 4;
+    }
+
+    private static int weight(int cp) {
+        if (cp < 0x80) {
+            return Character.isLetterOrDigit(cp) || cp == ' ' ? ASCII_WORD : ASCII_SYMBOL;
+        }
+        switch (Character.UnicodeScript.of(cp)) {
+            case HAN, HIRAGANA, KATAKANA, HANGUL, BOPOMOFO:
+                return IDEOGRAPHIC;
+            case LATIN, CYRILLIC, GREEK, ARMENIAN, GEORGIAN, HEBREW, ARABIC:
+                return ALPHABETIC;
+            case COMMON:
+                // 通用标点、全角标点、emoji
+                if (cp < 0x3000) return ASCII_SYMBOL;
+                return cp < 0x10000 ? IDEOGRAPHIC : OTHER;
+            default:
+                return OTHER;
+        }
+    }
+}
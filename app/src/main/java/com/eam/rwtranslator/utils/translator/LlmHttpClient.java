@@ -0,0 +1,122 @@
+package com.eam.rwtranslator.utils.translator;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * LLM翻译器共用的HTTP传输层：所有请求共享同一个连接池和调度器，
+ * 支持HTTP/2多路复用和连接保活，不同用途通过超时配置区分。
+ */
+public final class LlmHttpClient {
+    // 超过该大小的请求体在开启压缩时使用gzip发送
+    static final int GZIP_THRESHOLD_BYTES = 16 * 1024;
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    /**
+     * 超时配置
+     */
+    public enum Profile {
+        // 批量翻译：模型生成时间长，读超时放宽
+        TRANSLATION(60, 1800, 60),
+        // 模型列表等元数据请求
+        METADATA(30, 30, 30);
+
+        final int connectSeconds;
+        final int readSeconds;
+        final int writeSeconds;
+
+        Profile(int connectSeconds, int readSeconds, int writeSeconds) {
+            this.connectSeconds = connectSeconds;
+            this.readSeconds = readSeconds;
+            this.writeSeconds = writeSeconds;
+        }
+    }
+
+    private static final OkHttpClient BASE = createBase();
+    private static final Map<Profile, OkHttpClient> CLIENTS = new EnumMap<>(Profile.class);
+
+    private LlmHttpClient() {
+    }
+
+    private static OkHttpClient createBase() {
+        Dispatcher dispatcher = new Dispatcher();
+        // 批量翻译并发都发往同一个端点
+        dispatcher.setMaxRequestsPerHost(32);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                // 长时间等待模型输出时保持HTTP/2连接存活
+                .pingInterval(30, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(call -> new TimingEventListener())
+                .build();
+    }
+
+    /**
+     * 获取指定超时配置的客户端，共享连接池、调度器和计时监听
+     */
+    public static synchronized OkHttpClient get(Profile profile) {
+        return CLIENTS.computeIfAbsent(profile, p -> BASE.newBuilder()
+                .connectTimeout(p.connectSeconds, TimeUnit.SECONDS)
+                .readTimeout(p.readSeconds, TimeUnit.SECONDS)
+                .writeTimeout(p.writeSeconds, TimeUnit.SECONDS)
+                .build());
+    }
+
+    /**
+     * 构建JSON请求体，compress为true且内容较大时使用gzip压缩，
+     * 调用方需同时添加"Content-Encoding: gzip"请求头（见{@link #isGzip(RequestBody)}）
+     */
+    public static RequestBody jsonBody(String json, boolean compress) {
+        RequestBody body = RequestBody.create(json, JSON);
+        if (compress && json.length() >= GZIP_THRESHOLD_BYTES) {
+            return new GzipRequestBody(body);
+        }
+        return body;
+    }
+
+    public static boolean isGzip(RequestBody body) {
+        return body instanceof GzipRequestBody;
+    }
+
+    private static final class GzipRequestBody extends RequestBody {
+        private final RequestBody delegate;
+
+        GzipRequestBody(RequestBody delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1; // 压缩后长度未知
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            try (BufferedSink gzipSink = Okio.buffer(new GzipSink(sink))) {
+                delegate.writeTo(gzipSink);
+            }
+        }
+    }
+}
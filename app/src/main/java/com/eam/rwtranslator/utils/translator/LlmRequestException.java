@@ -0,0 +1,60 @@
+package com.eam.rwtranslator.utils.translator;
+
+import java.io.IOException;
+
+/**
+ * LLM请求失败，附带是否值得重试的分类。未分类的IOException（网络中断、超时）按临时错误处理。
+ */
+public class LlmRequestException extends IOException {
+
+    public enum Kind {
+        // 429、5xx、408等，稍后重试
+        TRANSIENT,
+        // 响应内容无法解析，缩小批次后重试
+        MALFORMED,
+        // 鉴权失败、参数错误等，重试无意义
+        FATAL
+    }
+
+    private final Kind kind;
+    private final long retryAfterMillis;
+
+    public LlmRequestException(Kind kind, String message, Throwable cause) {
+        this(kind, message, cause, 0);
+    }
+
+    public LlmRequestException(Kind kind, String message, Throwable cause, long retryAfterMillis) {
+        super(message, cause);
+        this.kind = kind;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * 按HTTP状态码分类
+     * @param retryAfterHeader Retry-After响应头（秒），可为null
+     */
+    public static LlmRequestException forHttpStatus(int code, String body, String retryAfterHeader) {
+        Kind kind = code == 408 || code == 409 || code == 429 || code >= 500 ? Kind.TRANSIENT : Kind.FATAL;
+        long retryAfter = 0;
+        if (retryAfterHeader != null) {
+            try {
+                retryAfter = Math.max(0, Long.parseLong(retryAfterHeader.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // HTTP日期格式的Retry-After按默认退避处理
+            }
+        }
+        return new LlmRequestException(kind, "API request failed: " + code + " - " + body, null, retryAfter);
+    }
+
+    public static Kind kindOf(Throwable t) {
+        return t instanceof LlmRequestException e ? e.kind : t instanceof IOException ? Kind.TRANSIENT : Kind.FATAL;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
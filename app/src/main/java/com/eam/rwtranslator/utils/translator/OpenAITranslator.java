@@ -1,5 +1,7 @@
 package com.eam.rwtranslator.utils.translator;
 
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.data.memory.TranslationScope;
 import com.eam.rwtranslator.utils.TranslationKeys;
 import com.eam.rwtranslator.utils.Translator;
 import com.eam.rwtranslator.ui.setting.AppSettings;
@@ -13,15 +15,19 @@ import com.google.gson.JsonSyntaxException;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import app.nekogram.translator.Result;
 import okhttp3.*;
+import okio.BufferedSource;
 import timber.log.Timber;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * OpenAI兼容的翻译器
@@ -54,6 +60,14 @@ public class OpenAITranslator extends BaseLLMTranslator {
             """;
     // Token限制常量
     public static final int MAX_TOKEN_LIMIT = 100000; // 最大token限制
+    // 每积累这么多条新译文写入一次翻译记忆
+    private static final int MEMORY_FLUSH_SIZE = 32;
+    // 限流等待使用的调度线程
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "llm-batch-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Override
     public void translate(String query, String fl, String tl, Translator.TranslateCallBack callback) {
@@ -85,7 +99,7 @@ public class OpenAITranslator extends BaseLLMTranslator {
         
         /**
          * 进度更新回调（可选实现）
-         * @param batchIndex 当前批次索引（从0开始）
+         * @param batchIndex 本次完成的条目所在批次（从0开始，批次并发时不按顺序）
          * @param totalBatches 总批次数
          * @param completedTexts 已完成的文本数量
          * @param totalTexts 总文本数量
@@ -93,6 +107,16 @@ public class OpenAITranslator extends BaseLLMTranslator {
         default void onProgress(int batchIndex, int totalBatches, int completedTexts, int totalTexts) {
             // 默认空实现，子类可选择性覆盖
         }
+
+        /**
+         * 单条译文可用时回调（可选实现），每条只回调一次且在onSuccess之前；
+         * 流式响应时随到随发，请求中途失败时已回调的条目仍然有效
+         * @param index 文本在请求列表中的下标
+         * @param translation 译文
+         */
+        default void onItemTranslated(int index, String translation) {
+            // 默认空实现，子类可选择性覆盖
+        }
     }
 
     /**
@@ -108,30 +132,132 @@ public class OpenAITranslator extends BaseLLMTranslator {
             callback.onSuccess(Collections.emptyList(), fl, tl);
             return;
         }
-        
+        Translator.getExecutorService().execute(() -> translateWithMemory(texts, fl, tl, callback));
+    }
+
+    /**
+     * 先批量查询翻译记忆，只把未命中的文本发送给模型，结果按原顺序合并并写回记忆
+     */
+    private void translateWithMemory(List<String> texts, String fl, String tl, BatchTranslateCallback callback) {
+        TranslationScope scope = Translator.memoryScope(fl, tl);
+        Map<String, TranslationMemory.Entry> remembered = lookupMemory(texts, scope);
+        List<Integer> missIndices = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!remembered.containsKey(texts.get(i))) {
+                missIndices.add(i);
+                misses.add(texts.get(i));
+            }
+        }
+        Timber.d("Translation memory: %d/%d hits", texts.size() - misses.size(), texts.size());
+        // 命中记忆的条目先行交付，全部命中时调用方同样只从onItemTranslated取得译文
+        List<String> translations = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            TranslationMemory.Entry entry = remembered.get(texts.get(i));
+            translations.add(entry == null ? null : entry.translation());
+            if (entry != null) callback.onItemTranslated(i, entry.translation());
+        }
+        if (misses.isEmpty()) {
+            callback.onSuccess(translations, fl, tl);
+            return;
+        }
+        int hits = texts.size() - misses.size();
+        // 尚未写入记忆的译文，攒够一批或任务结束（含失败）时写入，长任务中途出错也不丢失
+        Map<String, TranslationMemory.Entry> learned = new HashMap<>();
+        translateUncached(misses, fl, tl, new BatchTranslateCallback() {
+            @Override
+            public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
+                List<String> merged = new ArrayList<>(texts.size());
+                for (String text : texts) {
+                    TranslationMemory.Entry entry = remembered.get(text);
+                    merged.add(entry == null ? "" : entry.translation());
+                }
+                for (int i = 0; i < missIndices.size() && i < translations.size(); i++) {
+                    merged.set(missIndices.get(i), translations.get(i));
+                }
+                rememberLearned();
+                callback.onSuccess(merged, srcLang, tgtLang);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                rememberLearned();
+                callback.onError(t);
+            }
+
+            @Override
+            public void onItemTranslated(int index, String translation) {
+                boolean flush;
+                synchronized (learned) {
+                    learned.put(misses.get(index), new TranslationMemory.Entry(translation, null));
+                    flush = learned.size() >= MEMORY_FLUSH_SIZE;
+                }
+                if (flush) rememberLearned();
+                callback.onItemTranslated(missIndices.get(index), translation);
+            }
+
+            @Override
+            public void onProgress(int batchIndex, int totalBatches, int completedTexts, int totalTexts) {
+                // 命中记忆的文本计为已完成
+                callback.onProgress(batchIndex, totalBatches, hits + completedTexts, texts.size());
+            }
+
+            private void rememberLearned() {
+                Map<String, TranslationMemory.Entry> snapshot;
+                synchronized (learned) {
+                    if (learned.isEmpty()) return;
+                    snapshot = new HashMap<>(learned);
+                    learned.clear();
+                }
+                rememberAll(snapshot, scope);
+            }
+        });
+    }
+
+    /**
+     * 批量查询翻译记忆
+     */
+    protected Map<String, TranslationMemory.Entry> lookupMemory(List<String> texts, TranslationScope scope) {
+        return TranslationMemory.getInstance().lookup(texts, scope);
+    }
+
+    /**
+     * 把新译文写入翻译记忆
+     */
+    protected void rememberAll(Map<String, TranslationMemory.Entry> entries, TranslationScope scope) {
+        TranslationMemory.getInstance().putAll(entries, scope);
+    }
+
+    /**
+     * 把未命中记忆的文本发送给模型
+     */
+    protected void translateUncached(List<String> texts, String fl, String tl, BatchTranslateCallback callback) {
         // 检查是否需要分批处理
-        List<List<String>> batches = splitIntoBatches(texts, tl);
+        BatchPacker packer = createPacker(tl);
+        List<int[]> batches = packer.pack(texts);
         if (batches.size() > 1) {
-            Timber.d("Multi-file batch: Splitting %d texts into %d batches due to token limit (%d tokens/batch)", 
-                texts.size(), batches.size(), AppSettings.getMaxTokensPerRequest());
-            int totalTexts = texts.size();
-            List<String> allTranslations = new ArrayList<>();
-            processBatch(batches, 0, allTranslations, totalTexts, fl, tl, callback);
-            return;
+            Timber.d("Multi-file batch: Splitting %d texts into %d batches due to token limit (%d tokens/batch, %d concurrent)",
+                texts.size(), batches.size(), AppSettings.getMaxTokensPerRequest(), AppSettings.getLlmConcurrency());
+        } else {
+            Timber.d("Multi-file batch: Processing %d texts in single batch", texts.size());
         }
-        
-        // 单批次处理
-        Timber.d("Multi-file batch: Processing %d texts in single batch", texts.size());
-        batchTranslateSingle(texts, 0, 1, texts.size(), fl, tl, callback);
+
+        // 按端点限流，TPM按请求和预留的响应合计估算
+        EndpointRateLimiter limiter = EndpointRateLimiter.forEndpoint(AppSettings.getApiHost());
+        limiter.setLimits(AppSettings.getLlmRequestsPerMinute(), AppSettings.getLlmTokensPerMinute());
+
+        // 失败的请求可能被拆分或只补发缺失条目，因此按实际发送的文本估算
+        new BatchDispatcher(texts, batches, packer::requestTokens, AppSettings.getLlmConcurrency(), limiter, scheduler,
+                (batch, result) -> batchTranslateSingle(batch, tl, result),
+                fl, tl, callback).start();
     }
 
     /**
      * 解析批量翻译的JSON结果
      * @param jsonResponse JSON格式的翻译响应
      * @param expectedCount 期望的翻译数量
-     * @return 按索引排序的翻译结果列表
-     * @throws JsonSyntaxException 如果JSON格式无效
-     * @throws IllegalArgumentException 如果翻译数量不匹配
+     * @return 按index字段对应到请求下标的翻译结果，缺失的条目为null
+     * @throws IllegalArgumentException 如果JSON格式无效或缺少translations
      */
     private List<String> parseBatchTranslations(String jsonResponse, int expectedCount) {
         try {
@@ -144,23 +270,30 @@ public class OpenAITranslator extends BaseLLMTranslator {
                 throw new IllegalArgumentException("Invalid JSON response: null response or translations");
             }
             
-            // 按索引排序翻译结果
-            response.translations.sort(Comparator.comparingInt(a -> a.index));
-            
-            // 提取翻译文本
-            List<String> results = new ArrayList<>();
+            // 按index字段放回对应位置，缺失的条目由调用方单独重新请求
+            List<String> results = new ArrayList<>(Collections.nCopies(expectedCount, null));
+            boolean indexed = false;
             for (TranslationData.TranslationItem item : response.translations) {
-                if (item.translation != null) {
-                    results.add(item.translation);
-                } else {
-                    results.add(""); // 空翻译
+                if (item.index >= 0 && item.index < expectedCount) {
+                    indexed = true;
+                    if (results.get(item.index) == null) {
+                        results.set(item.index, item.translation == null ? "" : item.translation);
+                    }
                 }
             }
-            
+            if (!indexed) {
+                // 模型没有返回可用的index时按顺序对应
+                response.translations.sort(Comparator.comparingInt(a -> a.index));
+                for (int i = 0; i < expectedCount && i < response.translations.size(); i++) {
+                    String translation = response.translations.get(i).translation;
+                    results.set(i, translation == null ? "" : translation);
+                }
+            }
+
             // 验证数量
-            if (results.size() != expectedCount) {
+            if (response.translations.size() != expectedCount) {
                 Timber.w("Translation count mismatch: expected %d, got %d. Response: %s", 
-                    expectedCount, results.size(), jsonResponse);
+                    expectedCount, response.translations.size(), jsonResponse);
             }
             
             return results;
@@ -170,141 +303,73 @@ public class OpenAITranslator extends BaseLLMTranslator {
         }
     }
 
-    private String getLanguageName(String languageCode) {
+    private static String getLanguageName(String languageCode) {
         return TranslationKeys.LANGUAGE_CODE_TO_ENGLISH_NAME.getOrDefault(
             languageCode.toLowerCase(), languageCode);
     }
 
     /**
-     * 估算文本的token数量（更精确的估算，基于JSON序列化长度）
+     * 当前模型的token计数器
+     */
+    private static TokenCounter tokenCounter() {
+        return TokenCounter.forModel(AppSettings.getLlmModelName());
+    }
+
+    /**
+     * 估算文本作为请求条目时的token开销
      * @param text 文本内容
-     * @return 估算的token数量
+     * @return 文本本身的token数加上索引等JSON结构开销
      */
-    private int estimateTokens(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-        try {
-            // 使用与请求中相同的JSON结构进行序列化估算，这样能更接近请求真实开销
-            TranslationData.TextItem sample = new TranslationData.TextItem(0, text);
-            String json = gson.toJson(sample);
-            // 根据OpenAI的经验值：平均约4字符/token（保守估计），但JSON中包含大量标点和字段名，取更保守的4字符/token
-            int approxTokens = (int) Math.ceil((double) json.length() / 4.0);
-            // 加上一些安全余量
-            return approxTokens + 2;
-        } catch (Exception e) {
-            // 退化到字符估算
-            return (int) Math.ceil(text.length() / 2.5) + 2;
-        }
+    public static int estimateItemTokens(String text) {
+        return tokenCounter().count(text) + BatchPacker.ITEM_OVERHEAD_TOKENS;
     }
-    
+
     /**
-     * 将文本列表分批，确保每批不超过token限制
-     * 基于JSON序列化长度与系统提示词的估算来分批，使得与实际请求更贴近
-     * @param texts 待翻译的文本列表
-     * @param targetLang 目标语言（用于估算系统提示词的token开销）
-     * @return 分批后的文本列表
+     * 估算每个请求固定的token开销：系统提示词和元数据
+     * @param counter token计数器
+     * @param targetLang 目标语言
+     * @return 估算的token数量
      */
-    private List<List<String>> splitIntoBatches(List<String> texts, String targetLang) {
-        List<List<String>> batches = new ArrayList<>();
-        List<String> currentBatch = new ArrayList<>();
-        int currentTokens = 0;
-        
-        // 估算系统提示词的token开销（构造与实际一致的近似systemPrompt）
+    private static int estimatePromptTokens(TokenCounter counter, String targetLang) {
+        // 构造与实际一致的近似systemPrompt
         String systemPromptApprox = AppSettings.getLlmStylePrompt() + "\nTarget language: " + getLanguageName(targetLang) + MODEL_RULE;
-        int baseTokens = estimateTokens(systemPromptApprox);
         // 额外预留：response_format、messages头部、model字段等元数据的开销
         int overhead = 100;
-        int availableTokens = AppSettings.getMaxTokensPerRequest() - baseTokens - overhead;
-        if (availableTokens <= 0) {
-            // 保证至少能放下一个短文本
-            availableTokens = Math.max(128, AppSettings.getMaxTokensPerRequest() / 4);
-        }
-
-        for (String text : texts) {
-            // 使用序列化后的TextItem来估算每项的开销（更准确）
-            int itemTokens = estimateTokens(text) + 6; // 6 tokens 作为索引/逗号等JSON开销的保守估计
-
-            if (currentTokens + itemTokens > availableTokens && !currentBatch.isEmpty()) {
-                // 当前批次已满，开始新批次
-                batches.add(new ArrayList<>(currentBatch));
-                currentBatch.clear();
-                currentTokens = 0;
-            }
-            
-            currentBatch.add(text);
-            currentTokens += itemTokens;
-        }
-        
-        // 添加最后一批
-        if (!currentBatch.isEmpty()) {
-            batches.add(currentBatch);
-        }
-        
-        return batches;
+        return counter.count(systemPromptApprox) + overhead;
     }
 
     /**
-     * 递归处理每一批翻译（带进度报告）
-     * @param batches 分批后的文本列表
-     * @param totalTexts 总文本数量
-     * @param fl 源语言
-     * @param tl 目标语言
-     * @param callback 回调函数
+     * 按当前模型和请求上限创建分批器
+     * @param targetLang 目标语言（决定提示词开销和为译文预留的预算）
      */
-    private void processBatch(List<List<String>> batches, int batchIndex, 
-                             List<String> allTranslations, int totalTexts,
-                             String fl, String tl, 
-                             BatchTranslateCallback callback) {
-        if (batchIndex >= batches.size()) {
-            // 所有批次处理完成
-            callback.onSuccess(allTranslations, fl, tl);
-            return;
-        }
-        
-        List<String> currentBatch = batches.get(batchIndex);
-        int completedTexts = allTranslations.size();
-        
-        Timber.d("Processing batch %d/%d with %d texts (completed: %d/%d)", 
-            batchIndex + 1, batches.size(), currentBatch.size(), completedTexts, totalTexts);
-        
-        // 报告进度
-        callback.onProgress(batchIndex, batches.size(), completedTexts, totalTexts);
-        
-        // 调用单批次翻译（不进行分批检查）
-        batchTranslateSingle(currentBatch, batchIndex, batches.size(), totalTexts, fl, tl, new BatchTranslateCallback() {
-            @Override
-            public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
-                allTranslations.addAll(translations);
-                // 继续处理下一批
-                processBatch(batches, batchIndex + 1, allTranslations, totalTexts, fl, tl, callback);
-            }
+    private static BatchPacker createPacker(String targetLang) {
+        TokenCounter counter = tokenCounter();
+        return new BatchPacker(counter, AppSettings.getMaxTokensPerRequest(),
+                estimatePromptTokens(counter, targetLang), targetLang);
+    }
 
-            @Override
-            public void onError(Throwable t) {
-                Timber.e(t, "Batch %d/%d failed", batchIndex + 1, batches.size());
-                callback.onError(t);
-            }
-        });
+    /**
+     * 估算翻译这些文本需要的请求数（与实际分批规则一致）
+     * @param texts 待翻译的文本列表
+     * @param targetLang 目标语言
+     * @return 请求数
+     */
+    public static int countRequests(List<String> texts, String targetLang) {
+        return texts.isEmpty() ? 0 : createPacker(targetLang).pack(texts).size();
     }
-    
+
     /**
-     * 单批次翻译（内部方法，不进行分批检查）
-     * @param batchIndex 当前批次索引
-     * @param totalBatches 总批次数
-     * @param totalTexts 总文本数量（用于日志）
+     * 单次翻译请求（内部方法，不进行分批检查）
+     * 失败时以{@link LlmRequestException}区分是否可重试，重试和拆分由{@link BatchDispatcher}负责
+     * @param result 按请求内下标回调，缺失的条目为null
      */
-    private void batchTranslateSingle(List<String> texts, int batchIndex, int totalBatches, int totalTexts, 
-                                     String fl, String tl, BatchTranslateCallback callback) {
+    private void batchTranslateSingle(List<String> texts, String tl, BatchDispatcher.BatchResult result) {
         if (texts.isEmpty()) {
-            callback.onSuccess(Collections.emptyList(), fl, tl);
+            result.onSuccess(Collections.emptyList());
             return;
         }
 
-        OkHttpClient client = new OkHttpClient.Builder()
-                .connectTimeout(60, TimeUnit.SECONDS)
-                .readTimeout(1800, TimeUnit.SECONDS)
-                .build();
+        OkHttpClient client = LlmHttpClient.get(LlmHttpClient.Profile.TRANSLATION);
 
         // 确保API host不以斜杠结尾
         String baseUrl = AppSettings.getApiHost().endsWith("/") ? AppSettings.getApiHost().substring(0, AppSettings.getApiHost().length() - 1) : AppSettings.getApiHost();
@@ -341,22 +406,29 @@ public class OpenAITranslator extends BaseLLMTranslator {
         
         requestBody.add("messages", messages);
         requestBody.addProperty("temperature", 0.3);
+        if (AppSettings.getLlmStreaming()) {
+            requestBody.addProperty("stream", true);
+        }
 
         String requestBodyStr = gson.toJson(requestBody);
         Timber.d("OpenAI Request: %s", requestBodyStr);
 
-        Request request = new Request.Builder()
+        RequestBody body = LlmHttpClient.jsonBody(requestBodyStr, AppSettings.getLlmGzipRequests());
+        Request.Builder requestBuilder = new Request.Builder()
                 .url(url)
                 .header("Authorization", "Bearer " + AppSettings.getApiKey())
                 .header("Content-Type", "application/json")
-                .post(RequestBody.create(requestBodyStr, MediaType.get("application/json")))
-                .build();
+                .post(body);
+        if (LlmHttpClient.isGzip(body)) {
+            requestBuilder.header("Content-Encoding", "gzip");
+        }
+        Request request = requestBuilder.build();
 
         client.newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 Timber.e("OpenAI request failed: %s", e.getMessage());
-                callback.onError(e);
+                result.onError(e);
             }
 
             @Override
@@ -364,58 +436,130 @@ public class OpenAITranslator extends BaseLLMTranslator {
                 if (!response.isSuccessful()) {
                     String errorBody = response.body().string();
                     Timber.e("OpenAI API error: %s", errorBody);
-                    callback.onError(new IOException("API request failed: " + response.code() + " - " + errorBody));
+                    result.onError(LlmRequestException.forHttpStatus(response.code(), errorBody, response.header("Retry-After")));
                     return;
                 }
 
-                try {
-                    String responseBody = response.body().string();
-                    Timber.d("OpenAI response: %s", responseBody);
-                    
-                    JsonObject json = gson.fromJson(responseBody, JsonObject.class);
-                    String translatedJson = json.getAsJsonArray("choices")
-                            .get(0).getAsJsonObject()
-                            .getAsJsonObject("message")
-                            .get("content").getAsString();
-
-                    Timber.d("Translated JSON content: %s", translatedJson);
-                    // 解析JSON格式的批量翻译结果
-                    List<String> translations = parseBatchTranslations(translatedJson, texts.size());
-
-                    // 如果数量不匹配，尝试补齐或截断
-                    if (translations.size() < texts.size()) {
-                        Timber.w("Padding translations from %d to %d", translations.size(), texts.size());
-                        while (translations.size() < texts.size()) {
-                            translations.add("");
-                        }
-                    } else if (translations.size() > texts.size()) {
-                        Timber.w("Truncating translations from %d to %d", translations.size(), texts.size());
-                        translations = translations.subList(0, texts.size());
+                // 只有解析响应的异常归为响应格式错误，回调中下游代码抛出的异常不在此列
+                List<String> translations;
+                try (ResponseBody responseBody = response.body()) {
+                    MediaType contentType = responseBody.contentType();
+                    if (contentType != null && "event-stream".equals(contentType.subtype())) {
+                        translations = readStreamedTranslations(responseBody.source(), texts.size(), result);
+                    } else {
+                        // 端点不支持流式时按普通响应处理
+                        String responseText = responseBody.string();
+                        Timber.d("OpenAI response: %s", responseText);
+
+                        JsonObject json = gson.fromJson(responseText, JsonObject.class);
+                        String translatedJson = json.getAsJsonArray("choices")
+                                .get(0).getAsJsonObject()
+                                .getAsJsonObject("message")
+                                .get("content").getAsString();
+
+                        Timber.d("Translated JSON content: %s", translatedJson);
+                        // 解析JSON格式的批量翻译结果
+                        translations = parseBatchTranslations(translatedJson, texts.size());
                     }
-                    
-                    callback.onSuccess(translations, fl, tl);
+                } catch (DeliveryException e) {
+                    // 下游处理流式译文时出错，重新请求也无济于事，结束本次翻译
+                    Timber.e(e.getCause(), "Failed to deliver streamed translation");
+                    result.onError(new LlmRequestException(LlmRequestException.Kind.FATAL,
+                            "Failed to deliver translation: " + e.getCause().getMessage(), e.getCause()));
+                    return;
                 } catch (JsonSyntaxException e) {
                     Timber.e(e, "Invalid JSON format in translation response");
-                    callback.onError(new IOException("Invalid JSON format in translation response: " + e.getMessage(), e));
+                    result.onError(new LlmRequestException(LlmRequestException.Kind.MALFORMED,
+                            "Invalid JSON format in translation response: " + e.getMessage(), e));
+                    return;
                 } catch (IllegalArgumentException e) {
                     Timber.e(e, "Translation data validation failed");
-                    callback.onError(new IOException("Translation data validation failed: " + e.getMessage(), e));
+                    result.onError(new LlmRequestException(LlmRequestException.Kind.MALFORMED,
+                            "Translation data validation failed: " + e.getMessage(), e));
+                    return;
+                } catch (IOException e) {
+                    // 流式传输中断，已交付的条目仍然有效
+                    Timber.e(e, "OpenAI stream interrupted");
+                    result.onError(e);
+                    return;
                 } catch (Exception e) {
                     Timber.e(e, "Failed to parse OpenAI response");
-                    callback.onError(new IOException("Failed to parse response: " + e.getMessage(), e));
+                    result.onError(new LlmRequestException(LlmRequestException.Kind.MALFORMED,
+                            "Failed to parse response: " + e.getMessage(), e));
+                    return;
                 }
+                result.onSuccess(translations);
             }
         });
     }
 
+    /**
+     * 读取SSE流式响应，每条译文完整到达时立即通过onItemTranslated交付
+     * @param source 响应体
+     * @param expectedCount 期望的翻译数量
+     * @param result 接收单条译文的回调
+     * @return 按下标排列的译文，缺失的条目为null
+     * @throws IOException 连接中断
+     */
+    private List<String> readStreamedTranslations(BufferedSource source, int expectedCount,
+                                                  BatchDispatcher.BatchResult result) throws IOException {
+        StreamingTranslationParser parser = new StreamingTranslationParser(gson);
+        StringBuilder content = new StringBuilder();
+        List<String> translations = new ArrayList<>(Collections.nCopies(expectedCount, null));
+        int received = 0;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) continue;
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) break;
+            if (data.isEmpty()) continue;
+
+            JsonObject chunk = gson.fromJson(data, JsonObject.class);
+            JsonArray choices = chunk.getAsJsonArray("choices");
+            if (choices == null || choices.isEmpty()) continue;
+            JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+            if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) continue;
+
+            String piece = delta.get("content").getAsString();
+            content.append(piece);
+            for (TranslationData.TranslationItem item : parser.feed(piece)) {
+                if (item.index < 0 || item.index >= expectedCount || translations.get(item.index) != null) {
+                    Timber.w("Ignoring streamed item with unexpected index %d", item.index);
+                    continue;
+                }
+                String translation = item.translation == null ? "" : item.translation;
+                translations.set(item.index, translation);
+                received++;
+                try {
+                    result.onItemTranslated(item.index, translation);
+                } catch (RuntimeException e) {
+                    throw new DeliveryException(e);
+                }
+            }
+        }
+        Timber.d("Streamed %d/%d translations", received, expectedCount);
+        if (received == 0 && content.length() > 0) {
+            // 没能增量解析出条目（如下标不规范），退回整体解析
+            Timber.d("Translated JSON content: %s", content);
+            return parseBatchTranslations(content.toString(), expectedCount);
+        }
+        return translations;
+    }
+
+    /**
+     * 流式译文交给下游时抛出的异常，与响应本身的解析错误区分
+     */
+    private static final class DeliveryException extends RuntimeException {
+        DeliveryException(RuntimeException cause) {
+            super(cause);
+        }
+    }
+
     /**
      * 获取可用的模型列表
      */
     public void fetchAvailableModels(ModelsCallback callback) {
-        OkHttpClient client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .build();
+        OkHttpClient client = LlmHttpClient.get(LlmHttpClient.Profile.METADATA);
 
         String baseUrl = AppSettings.getApiHost().endsWith("/") ? AppSettings.getApiHost().substring(0, AppSettings.getApiHost().length() - 1) : AppSettings.getApiHost();
         String url = baseUrl + "/models";
@@ -0,0 +1,292 @@
+package com.eam.rwtranslator.utils.translator;
+
+import com.eam.rwtranslator.utils.Translator;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 传统翻译器（Google、DeepL、百度等）的请求调度。
+ * 每个翻译服务单独限制并发数，并按令牌桶限速；同一服务的排队任务在各分组（如INI文件）之间轮流出队，
+ * 避免一个大文件占满队列。任务在固定大小的线程池中执行，取消的任务直接出队，不再发出请求。
+ */
+public final class ProviderScheduler {
+    /**
+     * 单个翻译服务的限制
+     * @param maxConcurrent 同时进行的请求数
+     * @param permitsPerSecond 平均每秒请求数
+     * @param burst 空闲后允许连续发出的请求数
+     */
+    public record Limits(int maxConcurrent, double permitsPerSecond, int burst) {
+    }
+
+    /**
+     * 单个翻译服务的运行统计
+     * @param throughputPerSecond 最近一分钟平均每秒完成的请求数
+     * @param p50Millis 最近请求耗时的中位数
+     * @param p95Millis 最近请求耗时的95分位
+     */
+    public record Stats(int queued, int running, long completed, double throughputPerSecond,
+                        long p50Millis, long p95Millis) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "queued=%d running=%d done=%d %.1f/s p50=%dms p95=%dms",
+                    queued, running, completed, throughputPerSecond, p50Millis, p95Millis);
+        }
+    }
+
+    private static final int WORKER_THREADS = 16;
+    private static final int LATENCY_SAMPLES = 256;
+    private static final long THROUGHPUT_WINDOW_MILLIS = 60_000;
+
+    // 免费接口的保守限制，百度通用翻译标准版QPS为1
+    private static final Limits DEFAULT_LIMITS = new Limits(2, 2, 2);
+    private static final Map<String, Limits> LIMITS = Map.of(
+            Translator.PROVIDER_GOOGLE, new Limits(4, 5, 5),
+            Translator.PROVIDER_MICROSOFT, new Limits(4, 5, 5),
+            Translator.PROVIDER_YANDEX, new Limits(2, 3, 3),
+            Translator.PROVIDER_DEEPL, new Limits(2, 2, 2),
+            Translator.PROVIDER_BAIDU, new Limits(1, 1, 1),
+            Translator.PROVIDER_SOGOU, new Limits(2, 3, 3),
+            Translator.PROVIDER_TENCENT, new Limits(2, 3, 3));
+
+    private static volatile ProviderScheduler instance;
+
+    private final Executor workers;
+    private final ScheduledExecutorService timer;
+    private final LongSupplier clock;
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    ProviderScheduler(Executor workers, ScheduledExecutorService timer, LongSupplier clock) {
+        this.workers = workers;
+        this.timer = timer;
+        this.clock = clock;
+    }
+
+    public static ProviderScheduler getInstance() {
+        if (instance == null) {
+            synchronized (ProviderScheduler.class) {
+                if (instance == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    instance = new ProviderScheduler(
+                            Executors.newFixedThreadPool(WORKER_THREADS, r -> daemon(r, "translate-worker-" + count.incrementAndGet())),
+                            Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "translate-scheduler")),
+                            System::currentTimeMillis);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 提交一个请求
+     * @param provider 翻译服务，决定并发和限速
+     * @param group 公平排队的分组，如所属文件，可为null
+     * @return 结果；取消后若尚未开始则不会执行
+     */
+    public <T> ListenableFuture<T> submit(String provider, Object group, Callable<T> callable) {
+        Lane lane = lane(provider);
+        Task<T> task = new Task<>(group, callable);
+        synchronized (lane) {
+            lane.queues.computeIfAbsent(group, g -> new ArrayDeque<>()).add(task);
+            lane.queued++;
+        }
+        task.future.addListener(() -> {
+            if (task.future.isCancelled()) lane.remove(task);
+        }, MoreExecutors.directExecutor());
+        drain(lane);
+        return task.future;
+    }
+
+    public Stats stats(String provider) {
+        Lane lane = lane(provider);
+        synchronized (lane) {
+            long now = clock.getAsLong();
+            lane.trimCompletions(now);
+            double windowSeconds = Math.max(1, Math.min(THROUGHPUT_WINDOW_MILLIS, now - lane.firstCompletion)) / 1000.0;
+            int samples = Math.min(lane.latencyCount, LATENCY_SAMPLES);
+            long[] sorted = Arrays.copyOf(lane.latencies, samples);
+            Arrays.sort(sorted);
+            return new Stats(lane.queued, lane.running, lane.completed,
+                    lane.completions.isEmpty() ? 0 : lane.completions.size() / windowSeconds,
+                    percentile(sorted, 50), percentile(sorted, 95));
+        }
+    }
+
+    static Limits limitsFor(String provider) {
+        return LIMITS.getOrDefault(provider, DEFAULT_LIMITS);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private synchronized Lane lane(String provider) {
+        return lanes.computeIfAbsent(provider, p -> new Lane(limitsFor(p), clock.getAsLong()));
+    }
+
+    /**
+     * 在并发和限速允许的范围内尽量多地启动任务
+     */
+    private void drain(Lane lane) {
+        List<Task<?>> toRun = new ArrayList<>();
+        long wait = 0;
+        synchronized (lane) {
+            while (lane.running < lane.limits.maxConcurrent() && lane.queued > 0) {
+                wait = lane.tryAcquire(clock.getAsLong());
+                if (wait > 0) {
+                    // 已有定时唤醒时不重复安排
+                    if (lane.timerPending) {
+                        wait = 0;
+                    } else {
+                        lane.timerPending = true;
+                    }
+                    break;
+                }
+                Task<?> task = lane.pollFair();
+                lane.running++;
+                toRun.add(task);
+            }
+        }
+        for (Task<?> task : toRun) {
+            workers.execute(() -> run(lane, task));
+        }
+        if (wait > 0) {
+            timer.schedule(() -> {
+                synchronized (lane) {
+                    lane.timerPending = false;
+                }
+                drain(lane);
+            }, wait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> void run(Lane lane, Task<T> task) {
+        long start = clock.getAsLong();
+        // 已取消的任务没有发出请求，不计入延迟和吞吐量
+        boolean ran = false;
+        try {
+            if (!task.future.isCancelled()) {
+                ran = true;
+                task.future.set(task.callable.call());
+            }
+        } catch (Throwable t) {
+            task.future.setException(t);
+        } finally {
+            synchronized (lane) {
+                lane.running--;
+                if (ran) lane.record(start, clock.getAsLong());
+            }
+            drain(lane);
+        }
+    }
+
+    private static final class Task<T> {
+        final Object group;
+        final Callable<T> callable;
+        final SettableFuture<T> future = SettableFuture.create();
+
+        Task(Object group, Callable<T> callable) {
+            this.group = group;
+            this.callable = callable;
+        }
+    }
+
+    private static final class Lane {
+        final Limits limits;
+        // 按分组排队，分组按轮转顺序排列
+        final LinkedHashMap<Object, ArrayDeque<Task<?>>> queues = new LinkedHashMap<>();
+        int queued;
+        int running;
+        boolean timerPending;
+
+        double tokens;
+        long lastRefill;
+
+        long completed;
+        long firstCompletion;
+        final ArrayDeque<Long> completions = new ArrayDeque<>();
+        final long[] latencies = new long[LATENCY_SAMPLES];
+        int latencyCount;
+
+        Lane(Limits limits, long now) {
+            this.limits = limits;
+            this.tokens = limits.burst();
+            this.lastRefill = now;
+        }
+
+        /**
+         * 令牌桶取一个令牌，成功返回0，否则返回需要等待的毫秒数
+         */
+        long tryAcquire(long now) {
+            tokens = Math.min(limits.burst(), tokens + (now - lastRefill) * limits.permitsPerSecond() / 1000.0);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / limits.permitsPerSecond()));
+        }
+
+        /**
+         * 取出队首分组的第一个任务，该分组移到队尾
+         */
+        Task<?> pollFair() {
+            Iterator<Map.Entry<Object, ArrayDeque<Task<?>>>> it = queues.entrySet().iterator();
+            Map.Entry<Object, ArrayDeque<Task<?>>> first = it.next();
+            ArrayDeque<Task<?>> queue = first.getValue();
+            Task<?> task = queue.poll();
+            it.remove();
+            if (!queue.isEmpty()) queues.put(first.getKey(), queue);
+            queued--;
+            return task;
+        }
+
+        synchronized void remove(Task<?> task) {
+            ArrayDeque<Task<?>> queue = queues.get(task.group);
+            if (queue != null && queue.remove(task)) {
+                queued--;
+                if (queue.isEmpty()) queues.remove(task.group);
+            }
+        }
+
+        void record(long start, long end) {
+            completed++;
+            if (completions.isEmpty()) firstCompletion = start;
+            completions.add(end);
+            trimCompletions(end);
+            latencies[latencyCount++ % LATENCY_SAMPLES] = end - start;
+        }
+
+        void trimCompletions(long now) {
+            while (!completions.isEmpty() && now - completions.peekFirst() > THROUGHPUT_WINDOW_MILLIS) {
+                completions.pollFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.eam.rwtranslator.utils.translator;
+
+import com.eam.rwtranslator.utils.Translator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把多条短文本合并成一次传统翻译器请求：每条占一行，译文按行拆回。
+ * 各翻译服务都会保留换行，行数对不上时由调用方改为逐条翻译。
+ * 自身包含换行的文本无法按行拆分，总是单独发送。
+ */
+public final class SegmentBatcher {
+    static final String SEPARATOR = "\n";
+
+    /**
+     * 单个翻译服务一次请求的限制
+     * @param maxChars 合并后的最大字符数
+     * @param maxSegments 最多合并的条数，行数对不上时需要逐条重发，不宜过多
+     */
+    public record Limits(int maxChars, int maxSegments) {
+    }
+
+    private static final Limits DEFAULT_LIMITS = new Limits(4000, 50);
+    private static final Map<String, Limits> LIMITS = Map.of(
+            Translator.PROVIDER_GOOGLE, new Limits(5000, 100),
+            Translator.PROVIDER_MICROSOFT, new Limits(10000, 100),
+            Translator.PROVIDER_YANDEX, new Limits(10000, 100),
+            Translator.PROVIDER_DEEPL, new Limits(5000, 50),
+            // 百度按UTF-8字节限制为6000
+            Translator.PROVIDER_BAIDU, new Limits(2000, 50),
+            Translator.PROVIDER_SOGOU, new Limits(5000, 50),
+            Translator.PROVIDER_TENCENT, new Limits(5000, 50));
+
+    private SegmentBatcher() {
+    }
+
+    public static Limits limitsFor(String provider) {
+        return LIMITS.getOrDefault(provider, DEFAULT_LIMITS);
+    }
+
+    /**
+     * 按原顺序依次装入请求，超出字符或条数限制时开始新请求
+     * @return 每个请求包含的文本下标，单条的请求按普通方式翻译
+     */
+    public static List<int[]> pack(List<String> texts, Limits limits) {
+        List<int[]> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int chars = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (!isBatchable(text)) {
+                batches.add(new int[]{i});
+                continue;
+            }
+            int cost = text.length() + SEPARATOR.length();
+            if (!current.isEmpty() && (chars + cost > limits.maxChars() || current.size() >= limits.maxSegments())) {
+                batches.add(toArray(current));
+                current.clear();
+                chars = 0;
+            }
+            current.add(i);
+            chars += cost;
+        }
+        if (!current.isEmpty()) batches.add(toArray(current));
+        return batches;
+    }
+
+    public static String join(List<String> segments) {
+        return String.join(SEPARATOR, segments);
+    }
+
+    /**
+     * 把合并请求的译文拆回各条
+     * @return 各条译文，行数与expected不一致时返回null
+     */
+    public static List<String> split(String translation, int expected) {
+        if (translation == null) return null;
+        String normalized = translation.replace("\r\n", "\n").replace('\r', '\n');
+        // 去掉翻译服务补在末尾的空行
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') end--;
+        String[] lines = normalized.substring(0, end).split(SEPARATOR, -1);
+        if (lines.length != expected) return null;
+        List<String> segments = new ArrayList<>(expected);
+        for (String line : lines) segments.add(line.strip());
+        return segments;
+    }
+
+    private static boolean isBatchable(String text) {
+        return !text.isBlank() && text.indexOf('\n') < 0 && text.indexOf('\r') < 0;
+    }
+
+    private static int[] toArray(List<Integer> indices) {
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) array[i] = indices.get(i);
+        return array;
+    }
+}
@@ -0,0 +1,85 @@
+package com.eam.rwtranslator.utils.translator;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * 增量解析流式返回的{"translations":[{"index":..,"translation":..}, ...]}，
+ * 每当一个条目对象完整到达就立即返回，不必等整个JSON结束。
+ * 只跟踪括号深度和字符串状态，条目外的内容（如markdown代码块标记）会被忽略。
+ */
+final class StreamingTranslationParser {
+    // 根对象 -> translations数组 -> 条目对象
+    private static final int ITEM_DEPTH = 3;
+
+    private final Gson gson;
+    private final StringBuilder buffer = new StringBuilder();
+    private int position;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int itemStart = -1;
+
+    StreamingTranslationParser(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * 追加一段内容，返回本次新完成的条目
+     */
+    List<TranslationData.TranslationItem> feed(String chunk) {
+        buffer.append(chunk);
+        List<TranslationData.TranslationItem> items = new ArrayList<>(1);
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    depth++;
+                    if (c == '{' && depth == ITEM_DEPTH) itemStart = position;
+                }
+                case '}', ']' -> {
+                    if (c == '}' && depth == ITEM_DEPTH && itemStart >= 0) {
+                        parseItem(buffer.substring(itemStart, position + 1), items);
+                        itemStart = -1;
+                    }
+                    depth = Math.max(0, depth - 1);
+                }
+                default -> {
+                }
+            }
+        }
+        // 已解析的部分不再需要，保留未完成的条目
+        int keepFrom = itemStart >= 0 ? itemStart : position;
+        if (keepFrom > 0) {
+            buffer.delete(0, keepFrom);
+            position -= keepFrom;
+            if (itemStart >= 0) itemStart = 0;
+        }
+        return items;
+    }
+
+    private void parseItem(String json, List<TranslationData.TranslationItem> items) {
+        try {
+            TranslationData.TranslationItem item = gson.fromJson(json, TranslationData.TranslationItem.class);
+            if (item != null) items.add(item);
+        } catch (JsonParseException e) {
+            Timber.w(e, "Skipping malformed streamed item: %s", json);
+        }
+    }
+}
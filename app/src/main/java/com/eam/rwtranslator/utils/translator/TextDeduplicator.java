@@ -0,0 +1,73 @@
+package com.eam.rwtranslator.utils.translator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量翻译前的原文去重：相同的原文只发送一次，译文再分发给所有出现位置。
+ *
+ * @param <T> 每次出现对应的上下文类型
+ */
+public final class TextDeduplicator<T> {
+    private final List<String> uniqueTexts = new ArrayList<>();
+    private final List<List<T>> occurrences = new ArrayList<>();
+    private final Map<String, Integer> indexByText = new HashMap<>();
+    private int totalCount;
+
+    /**
+     * 添加一次出现，返回该原文在去重列表中的下标
+     */
+    public int add(String text, T context) {
+        totalCount++;
+        Integer index = indexByText.get(text);
+        if (index == null) {
+            index = uniqueTexts.size();
+            indexByText.put(text, index);
+            uniqueTexts.add(text);
+            occurrences.add(new ArrayList<>(1));
+        }
+        occurrences.get(index).add(context);
+        return index;
+    }
+
+    /**
+     * 去重后的原文，按首次出现顺序排列
+     */
+    public List<String> uniqueTexts() {
+        return Collections.unmodifiableList(uniqueTexts);
+    }
+
+    /**
+     * 第index个去重原文的所有出现位置
+     */
+    public List<T> occurrencesOf(int index) {
+        return occurrences.get(index);
+    }
+
+    public int totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 被合并掉的重复次数
+     */
+    public int duplicateCount() {
+        return totalCount - uniqueTexts.size();
+    }
+
+    /**
+     * 被合并掉的重复文本，用于估算节省的token
+     */
+    public List<String> duplicateTexts() {
+        List<String> duplicates = new ArrayList<>(duplicateCount());
+        for (int i = 0; i < uniqueTexts.size(); i++) {
+            for (int n = 1; n < occurrences.get(i).size(); n++) {
+                duplicates.add(uniqueTexts.get(i));
+            }
+        }
+        return duplicates;
+    }
+}
@@ -0,0 +1,102 @@
+package com.eam.rwtranslator.utils.translator;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import timber.log.Timber;
+
+/**
+ * 记录单次LLM请求各阶段耗时：DNS、建连、TLS、首字节（TTFB）和总耗时，
+ * 复用已有连接时DNS/建连/TLS为0。
+ */
+final class TimingEventListener extends EventListener {
+    private long callStart;
+    private long dnsStart;
+    private long dnsMillis;
+    private long connectStart;
+    private long connectMillis;
+    private long tlsStart;
+    private long tlsMillis;
+    private long ttfbMillis = -1;
+    private String protocol = "?";
+    private boolean reused = true;
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = now();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        dnsMillis += now() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        connectStart = now();
+        reused = false;
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        tlsStart = now();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+        tlsMillis += now() - tlsStart;
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                           @NonNull Proxy proxy, Protocol protocol) {
+        connectMillis += now() - connectStart;
+    }
+
+    @Override
+    public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+        protocol = connection.protocol().toString();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        if (ttfbMillis < 0) {
+            ttfbMillis = now() - callStart;
+        }
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        log(call, "ok");
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        log(call, "failed: " + ioe.getMessage());
+    }
+
+    private void log(Call call, String outcome) {
+        Timber.d("LLM http %s %s [%s%s] dns=%dms connect=%dms tls=%dms ttfb=%dms total=%dms %s",
+                call.request().method(), call.request().url().encodedPath(), protocol, reused ? ", reused" : "",
+                dnsMillis, connectMillis - tlsMillis, tlsMillis, ttfbMillis, now() - callStart, outcome);
+    }
+}
@@ -0,0 +1,17 @@
+package com.eam.rwtranslator.utils.translator;
+
+/**
+ * 计算文本的token数量，用于请求分批和限流估算
+ */
+public interface TokenCounter {
+
+    int count(String text);
+
+    /**
+     * 按模型选择计数器：OpenAI系模型使用对应的BPE编码，其他模型或编码加载失败时使用字符估算
+     */
+    static TokenCounter forModel(String modelName) {
+        BpeTokenCounter.Vocabulary vocabulary = BpeTokenCounter.vocabularyFor(modelName);
+        return vocabulary == null ? HeuristicTokenCounter.INSTANCE : BpeTokenCounter.of(vocabulary);
+    }
+}
@@ -0,0 +1,104 @@
+package com.eam.rwtranslator.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.eam.rwtranslator.data.model.SectionModel;
+import com.eam.rwtranslator.utils.TranslationKeys;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.ini4j.Wini;
+import org.junit.Test;
+
+public class ProjectCacheTest {
+
+    @Test
+    public void writeThenRead_restoresIndexAndSections() throws Exception {
+        File cache = File.createTempFile("project", ".rwcache");
+        cache.deleteOnExit();
+
+        SectionModel.Pair name = new SectionModel.Pair(TranslationKeys.DISPLAY_NAME, "Tank");
+        name.setLang_pairs(new LinkedHashMap<>(Map.of("zh", "坦克")));
+        SectionModel.Pair description = new SectionModel.Pair(TranslationKeys.DISPLAY_DESCRIPTION, "Armored");
+        Map<String, List<SectionModel.Pair>> unit = new LinkedHashMap<>();
+        unit.put("core", new ArrayList<>(List.of(name, description)));
+        unit.put("action_1", new ArrayList<>(List.of(new SectionModel.Pair(TranslationKeys.TEXT, "Tank"))));
+
+        ProjectCacheWriter writer = new ProjectCacheWriter();
+        writer.addFile("/mods/tank.ini", new FileStamp(120, 1000, 42), unit);
+        writer.addFile("/mods/empty.ini", new FileStamp(0, 2000, 7), new LinkedHashMap<>());
+        writer.writeTo(cache);
+
+        ProjectCacheReader reader = ProjectCacheReader.open(cache);
+        assertEquals(2, reader.files().size());
+        ProjectCacheReader.CachedFile tank = reader.files().get(0);
+        assertEquals("/mods/tank.ini", tank.path());
+        assertEquals(new FileStamp(120, 1000, 42), tank.stamp());
+        assertEquals(2, tank.sectionCount());
+        assertEquals(3, tank.pairCount());
+
+        Map<String, List<SectionModel.Pair>> sections = reader.readSections(tank);
+        assertEquals(List.of("core", "action_1"), new ArrayList<>(sections.keySet()));
+        SectionModel.Pair restored = sections.get("core").get(0);
+        assertEquals(TranslationKeys.DISPLAY_NAME, restored.getKey());
+        assertEquals("Tank", restored.getOri_val());
+        assertEquals(Map.of("zh", "坦克"), restored.getLang_pairs());
+
+        Wini ini = reader.readIni(tank);
+        assertEquals("/mods/tank.ini", ini.getFile().getPath());
+        assertEquals("坦克", ini.get("core", "displayName_zh"));
+        assertEquals("Tank", ini.get("action_1", "text"));
+        assertNull(ini.get("core", "name"));
+        assertEquals(0, reader.readSections(reader.files().get(1)).size());
+    }
+
+    @Test
+    public void open_rejectsOtherVersionsAndTruncatedFiles() throws Exception {
+        File cache = File.createTempFile("project", ".rwcache");
+        cache.deleteOnExit();
+        ProjectCacheWriter writer = new ProjectCacheWriter();
+        writer.addFile("/mods/tank.ini", new FileStamp(1, 1, 1), new LinkedHashMap<>());
+        writer.writeTo(cache);
+
+        try (RandomAccessFile file = new RandomAccessFile(cache, "rw")) {
+            file.seek(4);
+            file.writeInt(ProjectCacheFormat.VERSION + 1);
+        }
+        assertOpenFails(cache);
+
+        try (RandomAccessFile file = new RandomAccessFile(cache, "rw")) {
+            file.seek(4);
+            file.writeInt(ProjectCacheFormat.VERSION);
+            file.setLength(file.length() - 8);
+        }
+        assertOpenFails(cache);
+    }
+
+    @Test
+    public void fingerprintIndex_roundTrip() throws Exception {
+        File index = File.createTempFile("project", ".rwindex");
+        index.deleteOnExit();
+        Map<String, FileStamp> stamps = Map.of(
+            "/mods/tank.ini", new FileStamp(120, 1000, 0x9E3779B185EBCA87L),
+            "/mods/ui/单位.ini", new FileStamp(0, 2000, -1L));
+
+        FingerprintIndex.write(index, stamps);
+
+        assertEquals(stamps, FingerprintIndex.read(index));
+    }
+
+    private static void assertOpenFails(File cache) {
+        try {
+            ProjectCacheReader.open(cache);
+            fail("Expected IOException for " + cache);
+        } catch (IOException expected) {
+            // 预期异常
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.eam.rwtranslator.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TranslationScopeTest {
+
+    @Test
+    public void normalize_collapsesHorizontalWhitespaceAndTrims() {
+        assertEquals("Heavy tank", TranslationScope.normalize("  Heavy \t  tank\t"));
+        assertEquals("Line one\nLine two", TranslationScope.normalize("Line  one\nLine two "));
+        // 组合字符归一化为NFC
+        assertEquals("\u00e9t\u00e9", TranslationScope.normalize("e\u0301te\u0301"));
+    }
+
+    @Test
+    public void normalize_returnsSameInstanceWhenAlreadyNormal() {
+        String text = "Builds units faster";
+        assertSame(text, TranslationScope.normalize(text));
+    }
+
+    @Test
+    public void cacheKey_separatesProvidersAndLanguages() {
+        TranslationScope google = new TranslationScope("google", "en", "zh");
+        TranslationScope model = new TranslationScope("openai/gpt-4o-mini", "en", "zh");
+        assertNotEquals(google.cacheKey("Tank"), model.cacheKey("Tank"));
+        assertNotEquals(google.cacheKey("Tank"), new TranslationScope("google", "en", "ja").cacheKey("Tank"));
+        assertEquals("null", new TranslationScope("google", null, "zh").sourceLanguage());
+    }
+}
@@ -0,0 +1,106 @@
+package com.eam.rwtranslator.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.eam.rwtranslator.utils.TranslationKeys;
+import com.eam.rwtranslator.utils.ini.RWIniFileLoader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.ini4j.Wini;
+import org.junit.Test;
+
+public class IniFileModelTest {
+
+    @Test
+    public void lazyModel_loadsOnFirstAccessAndReleasesWhenUnused() {
+        CountingLoader loader = new CountingLoader();
+        IniFileModel model = new IniFileModel(new File("/mods/tank.ini"), 1, 1, loader);
+
+        assertEquals("tank.ini", model.getIniname());
+        assertEquals(1, model.getCachedItemCount());
+        assertFalse(model.isLoaded());
+
+        assertEquals("core", model.getData().get(0).name());
+        assertEquals("/mods/tank.ini", model.getRwini().getFile().getPath());
+        assertEquals(1, loader.loads);
+
+        assertTrue(model.releaseContent());
+        assertFalse(model.isLoaded());
+        assertEquals(1, loader.releases);
+        model.getData();
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void releaseContent_keepsModelsWithPendingChanges() {
+        IniFileModel model = new IniFileModel(new File("/mods/tank.ini"), 1, 1, new CountingLoader());
+
+        model.getData();
+        model.setEditing(true);
+        assertFalse(model.releaseContent());
+        model.setEditing(false);
+        model.setModified(true);
+        assertFalse(model.releaseContent());
+        assertTrue(model.isLoaded());
+    }
+
+    @Test
+    public void load_reportsReadFailuresAsCheckedErrors() throws IOException {
+        CountingLoader loader = new CountingLoader();
+        loader.failure = new IOException("unreadable");
+        IniFileModel model = new IniFileModel(new File("/mods/tank.ini"), 1, 1, loader);
+
+        try {
+            model.load();
+            fail("Expected the read failure to be thrown");
+        } catch (IOException e) {
+            assertSame(loader.failure, e);
+        }
+        assertSame(loader.failure, model.getLoadError());
+        assertTrue(model.getData().isEmpty());
+        assertNull(model.getRwini());
+        assertFalse(model.isLoaded());
+
+        loader.failure = null;
+        model.load();
+        assertTrue(model.isLoaded());
+        assertNull(model.getLoadError());
+        assertEquals("core", model.getData().get(0).name());
+    }
+
+    private static class CountingLoader implements IniFileModel.ContentLoader {
+        int loads;
+        int releases;
+        IOException failure;
+
+        @Override
+        public Wini loadIni(File file) throws IOException {
+            if (failure != null) throw failure;
+            loads++;
+            Wini ini = RWIniFileLoader.createEmpty();
+            ini.setFile(file);
+            ini.add("core", "displayText", "Tank");
+            return ini;
+        }
+
+        @Override
+        public ArrayList<SectionModel> loadSections(Wini ini) {
+            ArrayList<SectionModel> sections = new ArrayList<>();
+            sections.add(new SectionModel("core", new ArrayList<>(List.of(
+                new SectionModel.Pair(TranslationKeys.DISPLAY_TEXT, ini.get("core", "displayText"))))));
+            return sections;
+        }
+
+        @Override
+        public void releaseIni(File file) {
+            releases++;
+        }
+    }
+}
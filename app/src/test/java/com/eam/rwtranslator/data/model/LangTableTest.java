@@ -0,0 +1,64 @@
+package com.eam.rwtranslator.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.eam.rwtranslator.utils.TranslationKeys;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class LangTableTest {
+
+    @Test
+    public void pairs_shareOneTableAndGrowIt() {
+        LangTable table = new LangTable(2);
+        List<SectionModel.Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            SectionModel.Pair pair = new SectionModel.Pair(table, TranslationKeys.TEXT, "text " + i);
+            if (i % 2 == 0) pair.getLang_pairs().put("zh", "文本 " + i);
+            pairs.add(pair);
+        }
+        pairs.get(19).getLang_pairs().put("ru", "текст 19");
+
+        assertEquals(20, table.rows());
+        assertEquals(Map.of("zh", "文本 18"), pairs.get(18).getLang_pairs());
+        assertEquals(Map.of("ru", "текст 19"), pairs.get(19).getLang_pairs());
+        assertTrue(pairs.get(1).getLang_pairs().isEmpty());
+        assertNull(pairs.get(1).getLangEntryByIndex(0));
+    }
+
+    @Test
+    public void rowView_behavesLikeAMap() {
+        SectionModel.Pair pair = new SectionModel.Pair(new LangTable(), TranslationKeys.DISPLAY_NAME, "Tank");
+        Map<String, String> langPairs = pair.getLang_pairs();
+        langPairs.put("de", "Panzer");
+        langPairs.put("fr", "Char");
+
+        assertEquals(2, langPairs.size());
+        assertEquals("Panzer", langPairs.get("de"));
+        assertNull(langPairs.get("xx-unknown"));
+        assertEquals("Panzer", langPairs.put("de", "Kampfpanzer"));
+
+        Map.Entry<String, String> second = pair.getLangEntryByIndex(1);
+        assertEquals(pair.getLangEntryByIndex(0).getKey().equals("de") ? "fr" : "de", second.getKey());
+        second.setValue("Changed");
+        assertEquals("Changed", langPairs.get(second.getKey()));
+        assertNull(pair.getLangEntryByIndex(2));
+
+        langPairs.entrySet().removeIf(e -> e.getKey().equals("fr"));
+        assertEquals(Map.of("de", langPairs.get("de")), langPairs);
+        pair.setLang_pairs(Map.of("ja", "戦車"));
+        assertEquals(Map.of("ja", "戦車"), pair.getLang_pairs());
+    }
+
+    @Test
+    public void standalonePair_createsTableOnFirstWrite() {
+        SectionModel.Pair pair = new SectionModel.Pair(TranslationKeys.TEXT, "Tank");
+        assertNull(pair.getLangEntryByIndex(0));
+        pair.getLang_pairs().put("zh", "坦克");
+        assertEquals("zh", pair.getLangEntryByIndex(0).getKey());
+    }
+}
@@ -0,0 +1,65 @@
+package com.eam.rwtranslator.ui.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.eam.rwtranslator.data.model.IniFileModel;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class IniFileSearchIndexTest {
+
+    private static List<IniFileModel> files(String... paths) {
+        List<IniFileModel> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(new IniFileModel(new File("/mods/demo/" + path), 0, 0, null));
+        }
+        return files;
+    }
+
+    private static List<String> names(List<IniFileModel> files) {
+        List<String> names = new ArrayList<>();
+        for (IniFileModel file : files) {
+            names.add(file.getIniname());
+        }
+        return names;
+    }
+
+    @Test
+    public void search_ranksNameMatchesBeforePathAndFuzzyMatches() {
+        IniFileSearchIndex index = new IniFileSearchIndex(files(
+                "units/tank/heavyTank.ini",
+                "tank/turret.ini",
+                "units/Tank.ini",
+                "units/tank/tank.ini",
+                "units/t_a_n_k.ini",
+                "units/bunker.ini"));
+
+        assertEquals(List.of("Tank.ini", "tank.ini", "heavyTank.ini", "turret.ini", "t_a_n_k.ini"),
+                names(index.search("TANK", () -> false)));
+    }
+
+    @Test
+    public void search_narrowsLongerQueriesAndMatchesSubsequences() {
+        IniFileSearchIndex index = new IniFileSearchIndex(files(
+                "air/helicopter.ini",
+                "air/heliPad.ini",
+                "land/hover.ini"));
+
+        assertEquals(List.of("helicopter.ini", "heliPad.ini", "hover.ini"), names(index.search("h", () -> false)));
+        assertEquals(List.of("helicopter.ini", "heliPad.ini"), names(index.search("hel", () -> false)));
+        assertEquals(List.of("helicopter.ini"), names(index.search("hlcptr", () -> false)));
+        assertEquals(List.of("hover.ini"), names(index.search("land/h", () -> false)));
+        assertEquals(List.of(), names(index.search("zz", () -> false)));
+    }
+
+    @Test
+    public void search_returnsNullWhenCancelled() {
+        IniFileSearchIndex index = new IniFileSearchIndex(files("a.ini", "b.ini"));
+
+        assertNull(index.search("ini", () -> true));
+        assertEquals(List.of("a.ini", "b.ini"), names(index.search("ini", () -> false)));
+    }
+}
@@ -4,12 +4,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 
+import com.eam.rwtranslator.data.model.SectionModel;
+import com.eam.rwtranslator.utils.TranslationKeys;
 import com.eam.rwtranslator.utils.ini.RWIniFileLoader;
 import com.google.gson.Gson;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.ini4j.Wini;
 import org.junit.Test;
@@ -62,4 +65,30 @@ public class TranslationConfigManagerTest {
 
         assertSame(ini, manager.translationIniFiles.get(tempIni.getAbsolutePath()));
     }
+
+    @Test
+    public void getTranMap_collectsEveryLanguageSuffixInOnePass() {
+        Wini ini = RWIniFileLoader.createEmpty();
+        ini.add("core", "displayText", "Tank");
+        ini.add("core", "displayText_zh", "坦克");
+        ini.add("core", "displayText_pt-br", "Tanque");
+        ini.add("core", "displayTextExtra_zh", "ignored");
+        ini.add("core", "displayText_", "ignored");
+        ini.add("core", "description_ru", "orphan");
+        ini.add("core", "displayName", "i:gui.tank");
+        ini.add("extra", "text_fr", "no original");
+
+        Map<String, List<SectionModel.Pair>> map = new TranslationConfigManager().getTranMap(ini);
+
+        assertEquals(1, map.size());
+        List<SectionModel.Pair> pairs = map.get("core");
+        assertEquals(1, pairs.size());
+        SectionModel.Pair pair = pairs.get(0);
+        assertSame(TranslationKeys.DISPLAY_TEXT, pair.getKey());
+        assertEquals("Tank", pair.getOri_val());
+        Map<String, String> langPairs = pair.getLang_pairs();
+        assertEquals(2, langPairs.size());
+        assertEquals("坦克", langPairs.get("zh"));
+        assertEquals("Tanque", langPairs.get("pt-br"));
+    }
 }
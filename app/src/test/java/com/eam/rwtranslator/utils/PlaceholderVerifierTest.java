@@ -0,0 +1,62 @@
+package com.eam.rwtranslator.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PlaceholderVerifierTest {
+    private static final String MASKED = TemplatePlaceholderProcessor.mask("Deals ${a} damage to {armored} ${b}").maskedText();
+    private static final char A = TemplatePlaceholderProcessor.maskOf(0);
+    private static final char B = TemplatePlaceholderProcessor.maskOf(1);
+
+    @Test
+    public void verify_acceptsIntactAndReorderedMasks() {
+        assertNull(PlaceholderVerifier.verify(MASKED, "对{armored}" + B + "造成" + A + "点伤害"));
+        assertNull(PlaceholderVerifier.verify("plain", "einfach"));
+    }
+
+    @Test
+    public void verify_reportsMaskProblems() {
+        assertEquals(PlaceholderVerifier.Issue.MISSING_MASK, PlaceholderVerifier.verify(MASKED, "{x} " + A));
+        assertEquals(PlaceholderVerifier.Issue.DUPLICATE_MASK, PlaceholderVerifier.verify(MASKED, "{x} " + A + B + A));
+        assertEquals(PlaceholderVerifier.Issue.UNKNOWN_MASK,
+                PlaceholderVerifier.verify(MASKED, "{x} " + A + B + TemplatePlaceholderProcessor.maskOf(2)));
+    }
+
+    @Test
+    public void verify_ignoresLiteralPrivateUseCharacters() {
+        String masked = TemplatePlaceholderProcessor.mask("Icon \uE001 ${a}").maskedText();
+        assertNull(PlaceholderVerifier.verify(masked, "图标 \uE001 ${a}"));
+        assertNull(PlaceholderVerifier.verify(masked, "图标 ${a}"));
+        assertNull(PlaceholderVerifier.verify("Icon \uE000\uE000", "图标 \uE000\uE000"));
+    }
+
+    @Test
+    public void verify_reportsNestingAndBraceProblems() {
+        // 遮罩被译文新开的模板包住
+        assertEquals(PlaceholderVerifier.Issue.BROKEN_NESTING, PlaceholderVerifier.verify(MASKED, "{x} ${" + A + "} " + B));
+        assertEquals(PlaceholderVerifier.Issue.BROKEN_NESTING, PlaceholderVerifier.verify(MASKED, "{x} %{y} " + A + B));
+        assertEquals(PlaceholderVerifier.Issue.UNBALANCED_BRACES, PlaceholderVerifier.verify(MASKED, "{x " + A + B));
+        assertEquals(PlaceholderVerifier.Issue.UNBALANCED_BRACES, PlaceholderVerifier.verify(MASKED, "{x}} " + A + B));
+    }
+
+    @Test
+    public void report_countsRetriesRepairsAndFailures() {
+        PlaceholderVerifier.Report report = new PlaceholderVerifier.Report();
+        assertEquals(PlaceholderVerifier.Issue.MISSING_MASK, report.check(MASKED, "{x}", 1));
+        report.retried(1);
+        assertNull(report.check(MASKED, "{x} " + B + A, 2));
+        assertEquals(PlaceholderVerifier.Issue.DUPLICATE_MASK, report.check(MASKED, "{x} " + A + A + B, 3));
+        report.failed(PlaceholderVerifier.Issue.DUPLICATE_MASK);
+
+        assertTrue(report.hasProblems());
+        assertEquals(1, report.getRepaired());
+        assertEquals(1, report.getFailed());
+        assertEquals("checked=3 passed=1 reordered=1 retried=1 repaired=1 failed=1 missing_mask=1/0 duplicate_mask=1/1",
+                report.toString());
+        assertFalse(new PlaceholderVerifier.Report().hasProblems());
+    }
+}
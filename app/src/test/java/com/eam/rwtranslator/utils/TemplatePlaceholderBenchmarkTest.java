@@ -0,0 +1,154 @@
+package com.eam.rwtranslator.utils;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares mask + restore against the previous regex-based implementation on a corpus built from
+ * displayText/description values found in Rusted Warfare mods. The equivalence checks always run;
+ * the timed comparison runs only with {@code ./gradlew test -Dbenchmarks=true}, which the test task
+ * forwards to the test JVM.
+ */
+public class TemplatePlaceholderBenchmarkTest {
+    private static final int CORPUS_SIZE = 50_000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] SAMPLES = {
+            "Light scout unit. Fast but fragile.",
+            "Experimental hover tank. Can cross water and land.",
+            "Builds land units",
+            "Produces ${core.resource.credits} credits every ${self.interval}s",
+            "Range: ${weapon.range} | Damage: ${weapon.damage}",
+            "Shield: ${self.shield}/${self.shieldMax} (${int(self.shield*100/self.shieldMax)}%)",
+            "Upgrade to level ${self.customTarget1+1} for ${int(100*(self.customTarget1+1))}$",
+            "Heals nearby units by %{self.healRate} HP/s",
+            "${if(self.tags.includes(flying), 'Air', 'Ground')} target priority",
+            "重型坦克，装甲厚重，速度缓慢",
+            "Requires: Tech level 2\nUnlocks: Laser defence",
+            "Ammo ${self.ammo}\nReload ${self.reloadTime}s\nSplash ${weapon.splash}",
+            "Deploys into a fortified turret. Use again to pack up.",
+            "Converts ${self.resource.metal} metal into %{self.resource.energy} energy",
+    };
+
+    private static List<String> corpus(int size) {
+        List<String> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) corpus.add(SAMPLES[i % SAMPLES.length] + (i % 7 == 0 ? " " + i : ""));
+        return corpus;
+    }
+
+    @Test
+    public void maskAndRestore_matchesLegacy() {
+        for (String text : corpus(SAMPLES.length * 7)) {
+            TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(text);
+            LegacyProcessor.Masked legacy = LegacyProcessor.mask(text);
+            // Each placeholder now gets its own mask character, so compare positions and contents
+            Assert.assertEquals(legacy.placeholders, payload.placeholders());
+            Assert.assertEquals(legacy.text.length(), payload.maskedText().length());
+            Assert.assertEquals(LegacyProcessor.restore(legacy.text, legacy.placeholders),
+                    TemplatePlaceholderProcessor.restore(payload.maskedText(), payload));
+        }
+    }
+
+    @Test
+    public void maskAndRestore_realStrings() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmarks"));
+        List<String> corpus = corpus(CORPUS_SIZE);
+
+        long legacyBest = Long.MAX_VALUE;
+        long currentBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int legacyChecksum = 0;
+            for (String text : corpus) {
+                LegacyProcessor.Masked masked = LegacyProcessor.mask(text);
+                legacyChecksum += LegacyProcessor.restore(masked.text, masked.placeholders).length();
+            }
+            legacyBest = Math.min(legacyBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int checksum = 0;
+            for (String text : corpus) {
+                TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(text);
+                checksum += TemplatePlaceholderProcessor.restore(payload.maskedText(), payload).length();
+            }
+            currentBest = Math.min(currentBest, System.nanoTime() - start);
+            Assert.assertEquals(legacyChecksum, checksum);
+        }
+        Assert.assertTrue("legacy " + legacyBest / 1_000_000 + " ms, current " + currentBest / 1_000_000 + " ms",
+                currentBest <= legacyBest);
+    }
+
+    @Test
+    public void maskAndRestore_roundTripsCorpus() {
+        for (String text : SAMPLES) {
+            TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(text);
+            LegacyProcessor.Masked legacy = LegacyProcessor.mask(text);
+            Assert.assertEquals(legacy.placeholders, payload.placeholders());
+            Assert.assertEquals(legacy.text.length(), payload.maskedText().length());
+            Assert.assertEquals(text, TemplatePlaceholderProcessor.restore(payload.maskedText(), payload));
+        }
+    }
+
+    /**
+     * The implementation before the single-scan rewrite, without its per-call logging.
+     */
+    private static final class LegacyProcessor {
+        private static final String MASK = "\uE000";
+        private static final Pattern PRIVATE_UNICODE = Pattern.compile(Pattern.quote(MASK));
+
+        record Masked(String text, List<String> placeholders) {
+        }
+
+        static Masked mask(String text) {
+            List<String> placeholders = new ArrayList<>();
+            Deque<Integer> stack = new ArrayDeque<>();
+            Deque<Character> typeStack = new ArrayDeque<>();
+            int lastIndex = 0;
+            StringBuilder maskedText = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                char current = text.charAt(i);
+                if (i + 1 < text.length() && (current == '$' || current == '%') && text.charAt(i + 1) == '{') {
+                    stack.push(i);
+                    typeStack.push(current);
+                    i++;
+                    continue;
+                }
+                if (current == '}' && !stack.isEmpty()) {
+                    int start = stack.pop();
+                    typeStack.pop();
+                    if (stack.isEmpty()) {
+                        placeholders.add(text.substring(start, i + 1));
+                        maskedText.append(text, lastIndex, start).append(MASK);
+                        lastIndex = i + 1;
+                    }
+                }
+            }
+            if (lastIndex < text.length()) {
+                maskedText.append(text, lastIndex, text.length());
+            }
+            return new Masked(maskedText.toString(), placeholders);
+        }
+
+        static String restore(String translatedText, List<String> placeholders) {
+            if (translatedText.isEmpty() || placeholders.isEmpty()) {
+                return translatedText;
+            }
+            Matcher matcher = PRIVATE_UNICODE.matcher(translatedText);
+            StringBuffer buffer = new StringBuffer();
+            int index = 0;
+            while (matcher.find() && index < placeholders.size()) {
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(placeholders.get(index++)));
+            }
+            matcher.appendTail(buffer);
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.eam.rwtranslator.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import org.junit.Test;
+
+public class TemplatePlaceholderProcessorTest {
+    private static final char A = TemplatePlaceholderProcessor.maskOf(0);
+    private static final char B = TemplatePlaceholderProcessor.maskOf(1);
+
+    @Test
+    public void mask_replacesOutermostPlaceholdersOnly() {
+        TemplatePlaceholderProcessor.Payload payload =
+                TemplatePlaceholderProcessor.mask("Shield ${self.shield}/%{max(${a}, 1)} left");
+
+        assertEquals("Shield " + A + "/" + B + " left", payload.maskedText());
+        assertEquals(List.of("${self.shield}", "%{max(${a}, 1)}"), payload.placeholders());
+        assertEquals(2, payload.placeholderCount());
+    }
+
+    @Test
+    public void mask_keepsTextWithoutCompletePlaceholders() {
+        String plain = "Heavy tank {armored}";
+        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(plain);
+        assertSame(plain, payload.maskedText());
+        assertFalse(payload.hasPlaceholders());
+
+        // 未闭合的占位符原样保留
+        assertEquals("Cost ${price", TemplatePlaceholderProcessor.mask("Cost ${price").maskedText());
+        assertEquals(A + " }", TemplatePlaceholderProcessor.mask("${a} }").maskedText());
+    }
+
+    @Test
+    public void restore_putsPlaceholdersBackByIndex() {
+        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask("${a} deals ${b} damage");
+        String translated = "造成" + B + "点伤害，来自" + A;
+
+        assertEquals("造成${b}点伤害，来自${a}", TemplatePlaceholderProcessor.restore(translated, payload));
+        assertEquals("造成${b}点伤害，来自${a}",
+                TemplatePlaceholderProcessor.restore(translated, payload.placeholders()));
+        assertEquals("plain", TemplatePlaceholderProcessor.restore("plain", List.of()));
+    }
+
+    @Test
+    public void literalPrivateUseCharacters_areLeftUnmasked() {
+        String text = "Icon \uE001 costs ${price}";
+        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask(text);
+
+        assertSame(text, payload.maskedText());
+        assertFalse(payload.hasPlaceholders());
+        assertEquals(0, TemplatePlaceholderProcessor.placeholderCount(payload.maskedText()));
+        assertEquals("图标 \uE001 花费 ${price}",
+                TemplatePlaceholderProcessor.restore("图标 \uE001 花费 ${price}", payload));
+        assertEquals("\uE000\uE000", TemplatePlaceholderProcessor.restore("\uE000\uE000", List.of()));
+    }
+
+    @Test
+    public void restore_rejectsMissingOrDuplicatedMasks() {
+        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask("${a} and ${b}");
+        String unknown = String.valueOf(TemplatePlaceholderProcessor.maskOf(2));
+        for (String translated : new String[]{A + " und", A + " und " + B + B, "nichts", A + " und " + A,
+                A + " und " + unknown}) {
+            try {
+                TemplatePlaceholderProcessor.restore(translated, payload);
+                fail("Expected mismatch for " + translated);
+            } catch (TemplatePlaceholderProcessor.PlaceholderMismatchException e) {
+                assertEquals(2, e.getExpected());
+                assertEquals(TemplatePlaceholderProcessor.countMasks(translated), e.getActual());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.eam.rwtranslator.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import org.junit.Test;
+
+public class TranslationKeyMatcherTest {
+
+    @Test
+    public void scan_reportsKeysAtKeyPositionsOnly() {
+        String content = "[core]\n"
+            + "name: Tank\n"
+            + "  displayNameShort : LT\n"
+            + "texture: tank.png\n"
+            + "# description: commented out\n"
+            + "displayText_zh: 坦克\n"
+            + "[action_1]\n"
+            + "text=Upgrade\n";
+
+        int mask = TranslationKeyMatcher.getInstance().scan(content.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(EnumSet.of(TranslationKeys.DISPLAY_NAME_SHORT, TranslationKeys.TEXT),
+            TranslationKeyMatcher.toKeys(mask));
+    }
+
+    @Test
+    public void scan_returnsZeroWithoutCandidates() {
+        String content = "[core]\nname: Tank\nprice: 100\n";
+
+        assertEquals(0, TranslationKeyMatcher.getInstance().scan(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
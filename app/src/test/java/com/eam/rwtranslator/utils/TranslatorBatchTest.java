@@ -0,0 +1,72 @@
+package com.eam.rwtranslator.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.data.memory.TranslationScope;
+import com.eam.rwtranslator.utils.translator.OpenAITranslator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TranslatorBatchTest {
+
+    @Test
+    public void fullyRememberedBatch_reachesEditorCallbacksForEveryText() throws Exception {
+        // 编辑器与文件列表发送的是遮罩后的去重文本
+        TemplatePlaceholderProcessor.Payload payload = TemplatePlaceholderProcessor.mask("Build ${unit}");
+        Map<String, String> memory = Map.of("Tank", "坦克", payload.maskedText(), "建造 \uE000");
+        OpenAITranslator translator = new OpenAITranslator() {
+            @Override
+            protected Map<String, TranslationMemory.Entry> lookupMemory(List<String> texts, TranslationScope scope) {
+                Map<String, TranslationMemory.Entry> found = new HashMap<>();
+                for (String text : texts) {
+                    if (memory.containsKey(text)) found.put(text, new TranslationMemory.Entry(memory.get(text), null));
+                }
+                return found;
+            }
+
+            @Override
+            protected void translateUncached(List<String> texts, String fl, String tl, BatchTranslateCallback callback) {
+                callback.onError(new AssertionError("Remembered texts were sent to the model: " + texts));
+            }
+        };
+
+        Map<Integer, String> items = Collections.synchronizedMap(new TreeMap<>());
+        List<String> result = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        PlaceholderVerifier.Report report = new PlaceholderVerifier.Report();
+        Translator.LLM_batchTranslate(translator, List.of("Tank", payload.maskedText()), "en", "zh", report,
+                new Translator.BatchTranslateCallBack() {
+                    @Override
+                    public void onItemTranslated(int index, String translation) {
+                        items.put(index, translation);
+                    }
+
+                    @Override
+                    public void onSuccess(List<String> translations, String sourceLanguage, String targetLanguage) {
+                        result.addAll(translations);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        result.add("error " + t);
+                        done.countDown();
+                    }
+                });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(0, "坦克", 1, "建造 \uE000"), items);
+        assertEquals(List.of("坦克", "建造 \uE000"), result);
+        assertEquals("建造 ${unit}", TemplatePlaceholderProcessor.restore(items.get(1), payload));
+        assertEquals(0, report.getFailed());
+    }
+}
@@ -0,0 +1,120 @@
+package com.eam.rwtranslator.utils.ini;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * write() on synthetic files where every section receives a new key, which is the case that
+ * exercises the section-boundary lookup in {@link IniDocument#write()}. The run-boundary index is
+ * compared with the original forward scan, kept as {@link IniDocument#write(boolean)}. The small
+ * files always run; the 50k-line timing runs only with {@code -Dbenchmarks=true}.
+ */
+public class IniDocumentBenchmarkTest {
+    private static final int SMALL_LINES = 500;
+    private static final int TARGET_LINES = 50_000;
+    private static final int ROUNDS = 3;
+    // Both writes take a few milliseconds on files with little to scan, where timer noise dominates
+    private static final long NOISE_NANOS = 5_000_000;
+
+    private record Run(long nanos, String written) {
+    }
+
+    @Test
+    public void write_matchesForwardScan() throws Exception {
+        int[][] shapes = {{24, 4, 4}, {2, 5, 48}, {1, 2, 240}};
+        for (int[] shape : shapes) {
+            Assert.assertEquals(store(SMALL_LINES, shape[0], shape[1], shape[2], true).written(),
+                    store(SMALL_LINES, shape[0], shape[1], shape[2], false).written());
+        }
+    }
+
+    @Test
+    public void write_manySmallSections() throws Exception {
+        // 2,380 sections of 4 entries, each followed by a 4-line comment block.
+        runBenchmark(2_380, 4, 4);
+    }
+
+    @Test
+    public void write_commentHeavySections() throws Exception {
+        // 20 sections whose entries are separated by 498 comment lines.
+        runBenchmark(20, 5, 498);
+    }
+
+    @Test
+    public void write_singleSectionWithLongCommentBlocks() throws Exception {
+        // One section whose two entries are each followed by ~25k comment lines.
+        runBenchmark(1, 2, 24_998);
+    }
+
+    private static void runBenchmark(int sectionCount, int entriesPerSection, int commentsPerEntry) throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmarks"));
+        long legacyBest = Long.MAX_VALUE;
+        long currentBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            legacyBest = Math.min(legacyBest,
+                    store(TARGET_LINES, sectionCount, entriesPerSection, commentsPerEntry, true).nanos());
+            currentBest = Math.min(currentBest,
+                    store(TARGET_LINES, sectionCount, entriesPerSection, commentsPerEntry, false).nanos());
+        }
+        Assert.assertTrue("forward scan " + legacyBest / 1_000_000 + " ms, run index " + currentBest / 1_000_000 + " ms",
+                currentBest <= legacyBest + NOISE_NANOS);
+    }
+
+    /**
+     * Adds a key to every section, checks that each one landed in its section and returns the write
+     * time together with the file as written.
+     */
+    private static Run store(int lines, int sectionCount, int entriesPerSection, int commentsPerEntry,
+                             boolean forwardScan) throws Exception {
+        String content = buildContent(lines, sectionCount, entriesPerSection, commentsPerEntry);
+        Path file = Files.createTempFile("ini-benchmark", ".ini");
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            IniDocument document = IniDocument.parse(file.toFile());
+            for (int section = 0; section < sectionCount; section++) {
+                document.put("unit_" + section, "displayText_zh", "单位 " + section);
+            }
+
+            long start = System.nanoTime();
+            document.write(forwardScan);
+            long elapsed = System.nanoTime() - start;
+
+            IniDocument reloaded = IniDocument.parse(file.toFile());
+            for (int section = 0; section < sectionCount; section++) {
+                Assert.assertEquals("单位 " + section, reloaded.get("unit_" + section, "displayText_zh"));
+                Assert.assertEquals("value 0", reloaded.get("unit_" + section, "key0"));
+            }
+            return new Run(elapsed, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String buildContent(int targetLines, int sectionCount, int entriesPerSection,
+                                       int commentsPerEntry) {
+        StringBuilder builder = new StringBuilder(targetLines * 24);
+        int lines = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            builder.append("[unit_").append(section).append("]\n");
+            lines++;
+            for (int entry = 0; entry < entriesPerSection; entry++) {
+                builder.append("key").append(entry).append(": value ").append(entry).append('\n');
+                lines++;
+                for (int comment = 0; comment < commentsPerEntry; comment++) {
+                    builder.append("# comment ").append(comment).append('\n');
+                    lines++;
+                }
+            }
+        }
+        while (lines < targetLines) {
+            builder.append("; padding\n");
+            lines++;
+        }
+        return builder.toString();
+    }
+}
@@ -9,6 +9,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class RWIniFileLoaderTest {
 
@@ -22,7 +24,74 @@ public class RWIniFileLoaderTest {
         assertStorePreservesFormatting("test2.ini");
     }
 
-    
+    @Test
+    public void parse_buildsNativeModelInSinglePass() throws Exception {
+        Path file = Files.createTempFile("ini-model-test", ".ini");
+        String content = "; header\r\n"
+                + "[core]\r\n"
+                + "name: Tank\r\n"
+                + "displayText = \"\"\"line one\r\n"
+                + "line two\"\"\"\r\n"
+                + "bareKey\r\n"
+                + "[graphics]\r\n"
+                + "image=tank.png";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        IniDocument document = RWIniFileLoader.parse(file.toFile());
+
+        Assert.assertEquals(2, document.sectionNames().size());
+        Assert.assertEquals("Tank", document.get("core", "name"));
+        Assert.assertEquals("line one\r\nline two", document.get("core", "displayText"));
+        Assert.assertTrue(document.containsKey("core", "bareKey"));
+        Assert.assertNull(document.get("core", "bareKey"));
+        Assert.assertEquals("tank.png", document.get("graphics", "image"));
+
+        Wini ini = RWIniFileLoader.asWini(document);
+        Assert.assertEquals("line one\r\nline two", ini.get("core", "displayText"));
+        RWIniFileLoader.store(ini);
+        Assert.assertEquals(content, readUtf8(file));
+    }
+
+    @Test
+    public void store_rewritesOnlyChangedEntries() throws Exception {
+        Path file = Files.createTempFile("ini-dirty-test", ".ini");
+        String content = "[core]\n"
+                + "name: \"Tank\" ; keep quoting\n"
+                + "displayText: Light tank\n"
+                + "; trailing comment\n"
+                + "\n"
+                + "[graphics]\n"
+                + "image: tank.png\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        Wini ini = RWIniFileLoader.load(file.toFile());
+        Map<String, Map<String, String>> changes = new LinkedHashMap<>();
+        Map<String, String> core = new LinkedHashMap<>();
+        core.put("name", ini.get("core", "name"));
+        core.put("displayText", "Light tank Mk2");
+        core.put("displayText_zh", "轻型坦克");
+        changes.put("core", core);
+        changes.put("extra", Map.of("note", "added"));
+        RWIniFileLoader.store(ini, changes);
+
+        String expected = "[core]\n"
+                + "name: \"Tank\" ; keep quoting\n"
+                + "displayText: Light tank Mk2\n"
+                + "displayText_zh = 轻型坦克\n"
+                + "; trailing comment\n"
+                + "\n"
+                + "[graphics]\n"
+                + "image: tank.png\n"
+                + "[extra]\n"
+                + "note = added\n";
+        Assert.assertEquals(expected, readUtf8(file));
+        Assert.assertEquals("轻型坦克", ini.get("core", "displayText_zh"));
+
+        ini.get("core").put("displayText_zh", "轻坦");
+        RWIniFileLoader.store(ini);
+        Assert.assertEquals(expected.replace("轻型坦克", "轻坦"), readUtf8(file));
+    }
+
     private static void assertStorePreservesFormatting(String sampleFileName) throws Exception {
         SampleCopy sample = copySampleToTemp(sampleFileName);
 
@@ -0,0 +1,258 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class BatchDispatcherTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final long[] now = {0};
+    private final List<Long> delays = new ArrayList<>();
+
+    @Test
+    public void dispatch_respectsWindowAndReassemblesInOrder() {
+        List<List<String>> sent = new ArrayList<>();
+        List<BatchDispatcher.BatchResult> pending = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c", "d", "e"), List.of(new int[]{0, 1}, new int[]{2}, new int[]{3, 4}),
+                texts -> 1, 2, new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> {
+                    sent.add(texts);
+                    pending.add(result);
+                }, "en", "zh", recorder).start();
+
+        // 窗口为2，第三批要等前面的批次完成
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), sent);
+        pending.get(1).onSuccess(List.of("C"));
+        assertEquals(3, sent.size());
+        pending.get(2).onItemTranslated(1, "E");
+        pending.get(2).onItemTranslated(1, "E");
+        pending.get(2).onSuccess(List.of("D", "E"));
+        assertNull(recorder.translations);
+        pending.get(0).onSuccess(List.of("A", "B"));
+
+        assertEquals(List.of("A", "B", "C", "D", "E"), recorder.translations);
+        // 进度按条目上报，不等整批完成，重复上报的条目只计一次
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), recorder.completed);
+        assertEquals(List.of(2, 4, 3, 0, 1), recorder.items);
+    }
+
+    @Test
+    public void dispatch_fatalErrorReportsOnceAndStops() {
+        List<BatchDispatcher.BatchResult> pending = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c"), singles(3), texts -> 1, 2, new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> pending.add(result), "en", "zh", recorder).start();
+
+        pending.get(0).onError(LlmRequestException.forHttpStatus(401, "unauthorized", null));
+        pending.get(1).onError(new RuntimeException("again"));
+        pending.get(1).onSuccess(List.of("B"));
+
+        assertEquals(1, recorder.errors);
+        assertEquals(2, pending.size());
+        assertNull(recorder.translations);
+    }
+
+    @Test
+    public void dispatch_sendThrowingSynchronouslyEndsRunWithError() {
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b"), singles(2), texts -> 1, 1, new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> {
+                    sent.add(texts);
+                    throw new IllegalArgumentException("Invalid URL host");
+                }, "en", "zh", recorder).start();
+
+        // 同步失败按不可重试处理，不再发出其余请求
+        assertEquals(1, recorder.errors);
+        assertEquals(List.of(List.of("a")), sent);
+        assertNull(recorder.translations);
+    }
+
+    @Test
+    public void dispatch_waitsForRateLimiter() {
+        EndpointRateLimiter limiter = new EndpointRateLimiter(() -> now[0]);
+        limiter.setLimits(1, 0);
+        ScheduledExecutorService immediate = immediateScheduler();
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b"), singles(2), texts -> 1, 4, limiter, immediate,
+                (texts, result) -> {
+                    sent.add(texts);
+                    result.onSuccess(List.of(texts.get(0).toUpperCase()));
+                }, "en", "zh", recorder).start();
+
+        assertEquals(List.of(List.of("a"), List.of("b")), sent);
+        assertEquals(List.of(EndpointRateLimiter.WINDOW_MILLIS), delays);
+        assertEquals(List.of("A", "B"), recorder.translations);
+        immediate.shutdown();
+    }
+
+    @Test
+    public void dispatch_reRequestsOnlyMissingIndices() {
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c"), List.of(new int[]{0, 1, 2}), texts -> 1, 1, new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> {
+                    sent.add(texts);
+                    if (sent.size() == 1) {
+                        result.onSuccess(Arrays.asList("A", null, "C"));
+                    } else {
+                        result.onSuccess(List.of("B"));
+                    }
+                }, "en", "zh", recorder).start();
+
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("b")), sent);
+        assertEquals(List.of("A", "B", "C"), recorder.translations);
+        assertEquals(0, recorder.errors);
+    }
+
+    @Test
+    public void dispatch_retriesTransientErrorWithBackoffKeepingStreamedItems() {
+        ScheduledExecutorService immediate = immediateScheduler();
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c"), List.of(new int[]{0, 1, 2}), texts -> 1, 1, new EndpointRateLimiter(() -> 0), immediate,
+                (texts, result) -> {
+                    sent.add(texts);
+                    if (sent.size() == 1) {
+                        // 流式响应交付第一条后连接中断
+                        result.onItemTranslated(0, "A");
+                        result.onError(new IOException("stream reset"));
+                    } else if (sent.size() == 2) {
+                        result.onError(LlmRequestException.forHttpStatus(429, "slow down", "40"));
+                    } else {
+                        List<String> out = new ArrayList<>();
+                        for (String text : texts) out.add(text.toUpperCase());
+                        result.onSuccess(out);
+                    }
+                }, "en", "zh", recorder).start();
+
+        // 第二次临时错误后拆成两半
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("b", "c"), List.of("b"), List.of("c")), sent);
+        assertEquals(2, delays.size());
+        assertTrue(delays.get(0) >= BatchDispatcher.BASE_BACKOFF_MILLIS / 2
+                && delays.get(0) <= BatchDispatcher.BASE_BACKOFF_MILLIS);
+        // Retry-After优先于退避时间
+        assertTrue(delays.get(1) >= 40_000);
+        assertEquals(List.of("A", "B", "C"), recorder.translations);
+        immediate.shutdown();
+    }
+
+    @Test
+    public void dispatch_splitsMalformedResponseInHalf() {
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c", "d"), List.of(new int[]{0, 1, 2, 3}), texts -> 1, 4, new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> {
+                    sent.add(texts);
+                    if (texts.size() == 4) {
+                        result.onError(new LlmRequestException(LlmRequestException.Kind.MALFORMED, "bad json", null));
+                    } else {
+                        List<String> out = new ArrayList<>();
+                        for (String text : texts) out.add(text.toUpperCase());
+                        result.onSuccess(out);
+                    }
+                }, "en", "zh", recorder).start();
+
+        assertEquals(List.of(List.of("a", "b", "c", "d"), List.of("a", "b"), List.of("c", "d")), sent);
+        assertEquals(List.of("A", "B", "C", "D"), recorder.translations);
+    }
+
+    @Test
+    public void dispatch_givesUpAfterMaxAttemptsButKeepsOtherBatches() {
+        ScheduledExecutorService immediate = immediateScheduler();
+        List<List<String>> sent = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b"), singles(2), texts -> 1, 1, new EndpointRateLimiter(() -> 0), immediate,
+                (texts, result) -> {
+                    sent.add(texts);
+                    if (texts.get(0).equals("a")) {
+                        result.onError(LlmRequestException.forHttpStatus(502, "bad gateway", null));
+                    } else {
+                        result.onSuccess(List.of("B"));
+                    }
+                }, "en", "zh", recorder).start();
+
+        long attemptsForA = sent.stream().filter(texts -> texts.equals(List.of("a"))).count();
+        assertEquals(BatchDispatcher.MAX_ATTEMPTS, attemptsForA);
+        assertEquals(1, recorder.errors);
+        assertEquals(List.of(1), recorder.items);
+        assertNull(recorder.translations);
+        immediate.shutdown();
+    }
+
+    @Test
+    public void dispatch_reassemblesNonContiguousBatches() {
+        List<BatchDispatcher.BatchResult> pending = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        new BatchDispatcher(List.of("a", "b", "c"), List.of(new int[]{0, 2}, new int[]{1}), texts -> 1, 2,
+                new EndpointRateLimiter(() -> 0), scheduler,
+                (texts, result) -> pending.add(result), "en", "zh", recorder).start();
+
+        pending.get(1).onSuccess(List.of("B"));
+        pending.get(0).onSuccess(List.of("A", "C"));
+
+        assertEquals(List.of("A", "B", "C"), recorder.translations);
+        assertEquals(List.of(1, 0, 2), recorder.items);
+    }
+
+    private static List<int[]> singles(int count) {
+        List<int[]> batches = new ArrayList<>();
+        for (int i = 0; i < count; i++) batches.add(new int[]{i});
+        return batches;
+    }
+
+    /**
+     * 不真正等待：记录延迟，推进时钟后立即执行
+     */
+    private ScheduledExecutorService immediateScheduler() {
+        return new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                delays.add(unit.toMillis(delay));
+                now[0] += unit.toMillis(delay);
+                command.run();
+                return null;
+            }
+        };
+    }
+
+    private static class Recorder implements OpenAITranslator.BatchTranslateCallback {
+        volatile List<String> translations;
+        final List<Integer> completed = new ArrayList<>();
+        final List<Integer> items = new ArrayList<>();
+        int errors;
+
+        @Override
+        public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
+            this.translations = translations;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            errors++;
+        }
+
+        @Override
+        public synchronized void onItemTranslated(int index, String translation) {
+            items.add(index);
+        }
+
+        @Override
+        public synchronized void onProgress(int batchIndex, int totalBatches, int completedTexts, int totalTexts) {
+            completed.add(completedTexts);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class BatchPackerTest {
+    // 每个字符计1 token，便于计算预算
+    private final TokenCounter perChar = text -> text == null ? 0 : text.length();
+
+    @Test
+    public void pack_fillsGapsLeftByLongTexts() {
+        // 预算200，每条开销 = 长度 + 20 + ceil(长度 * 1.5)
+        BatchPacker packer = new BatchPacker(perChar, 300, 100, "zh");
+        List<String> texts = List.of("x".repeat(50), "x".repeat(50), "x".repeat(4), "x".repeat(4));
+
+        List<int[]> batches = packer.pack(texts);
+
+        // 两条长文本各占145，短文本填进第一批剩余的55
+        assertEquals(2, batches.size());
+        assertArrayEquals(new int[]{0, 2}, batches.get(0));
+        assertArrayEquals(new int[]{1, 3}, batches.get(1));
+    }
+
+    @Test
+    public void pack_oversizedTextGetsItsOwnBatch() {
+        BatchPacker packer = new BatchPacker(perChar, 300, 100, "en");
+        List<int[]> batches = packer.pack(List.of("a", "x".repeat(500), "b"));
+
+        assertEquals(2, batches.size());
+        assertArrayEquals(new int[]{0, 2}, batches.get(0));
+        assertArrayEquals(new int[]{1}, batches.get(1));
+    }
+
+    @Test
+    public void itemCost_reservesMoreOutputForDenseTargetLanguages() {
+        BatchPacker toEnglish = new BatchPacker(perChar, 8000, 100, "en");
+        BatchPacker toRussian = new BatchPacker(perChar, 8000, 100, "ru");
+
+        assertTrue(toRussian.itemCost("hello world") > toEnglish.itemCost("hello world"));
+        assertEquals(BatchPacker.outputExpansion("zh"), BatchPacker.outputExpansion("zh-CN"), 0);
+        assertEquals(100 + 2 * toEnglish.itemCost("abc"), toEnglish.requestTokens(List.of("abc", "abc")));
+    }
+}
@@ -0,0 +1,46 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class EndpointRateLimiterTest {
+    private long now;
+
+    @Test
+    public void tryAcquire_unlimitedByDefault() {
+        EndpointRateLimiter limiter = new EndpointRateLimiter(() -> now);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire(10_000));
+        }
+    }
+
+    @Test
+    public void tryAcquire_waitsForOldestRequestToLeaveWindow() {
+        EndpointRateLimiter limiter = new EndpointRateLimiter(() -> now);
+        limiter.setLimits(2, 0);
+        assertEquals(0, limiter.tryAcquire(1));
+        now = 10_000;
+        assertEquals(0, limiter.tryAcquire(1));
+        now = 20_000;
+        assertEquals(40_000, limiter.tryAcquire(1));
+        now = 60_000;
+        assertEquals(0, limiter.tryAcquire(1));
+    }
+
+    @Test
+    public void tryAcquire_limitsTokensButLetsOversizedRequestThroughAlone() {
+        EndpointRateLimiter limiter = new EndpointRateLimiter(() -> now);
+        limiter.setLimits(0, 1000);
+        assertEquals(0, limiter.tryAcquire(600));
+        now = 5_000;
+        assertEquals(0, limiter.tryAcquire(300));
+        now = 10_000;
+        // 需要第一个请求移出窗口
+        assertEquals(50_000, limiter.tryAcquire(500));
+        // 超过上限的请求要等窗口清空
+        assertEquals(55_000, limiter.tryAcquire(5000));
+        now = 65_000;
+        assertEquals(0, limiter.tryAcquire(5000));
+    }
+}
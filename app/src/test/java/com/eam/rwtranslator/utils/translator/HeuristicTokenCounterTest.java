@@ -0,0 +1,25 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HeuristicTokenCounterTest {
+    private final TokenCounter counter = HeuristicTokenCounter.INSTANCE;
+
+    @Test
+    public void count_emptyText() {
+        assertEquals(0, counter.count(""));
+        assertEquals(0, counter.count(null));
+    }
+
+    @Test
+    public void count_weighsScriptsDifferently() {
+        // 同样8个字符：拉丁字母约2 token，西里尔字母约4 token，汉字约10 token
+        assertEquals(2, counter.count("abcdefgh"));
+        assertEquals(4, counter.count("приветми"));
+        assertEquals(10, counter.count("你好世界你好世界"));
+        assertTrue(counter.count("😀") >= 2);
+    }
+}
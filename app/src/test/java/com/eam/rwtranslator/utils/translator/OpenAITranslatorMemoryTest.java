@@ -0,0 +1,100 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.eam.rwtranslator.data.memory.TranslationMemory;
+import com.eam.rwtranslator.data.memory.TranslationScope;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class OpenAITranslatorMemoryTest {
+
+    /**
+     * 翻译记忆固定为给定内容，不发出网络请求
+     */
+    static class RememberingTranslator extends OpenAITranslator {
+        private final Map<String, String> memory;
+        final List<List<String>> uncached = Collections.synchronizedList(new ArrayList<>());
+
+        RememberingTranslator(Map<String, String> memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        protected Map<String, TranslationMemory.Entry> lookupMemory(List<String> texts, TranslationScope scope) {
+            Map<String, TranslationMemory.Entry> found = new HashMap<>();
+            for (String text : texts) {
+                if (memory.containsKey(text)) found.put(text, new TranslationMemory.Entry(memory.get(text), null));
+            }
+            return found;
+        }
+
+        @Override
+        protected void rememberAll(Map<String, TranslationMemory.Entry> entries, TranslationScope scope) {
+        }
+
+        @Override
+        protected void translateUncached(List<String> texts, String fl, String tl, BatchTranslateCallback callback) {
+            uncached.add(texts);
+            List<String> translations = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                translations.add("new " + texts.get(i));
+                callback.onItemTranslated(i, translations.get(i));
+            }
+            callback.onSuccess(translations, fl, tl);
+        }
+    }
+
+    private static List<String> translate(OpenAITranslator translator, List<String> texts) throws Exception {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        translator.batchTranslate(texts, "en", "zh", new OpenAITranslator.BatchTranslateCallback() {
+            @Override
+            public void onSuccess(List<String> translations, String srcLang, String tgtLang) {
+                events.add("success " + translations);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error " + t);
+                done.countDown();
+            }
+
+            @Override
+            public void onItemTranslated(int index, String translation) {
+                events.add(index + "=" + translation);
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return events;
+    }
+
+    @Test
+    public void fullyRememberedBatch_deliversEveryItemBeforeSuccess() throws Exception {
+        RememberingTranslator translator = new RememberingTranslator(Map.of("Tank", "坦克", "Builder", "建造者"));
+
+        List<String> events = translate(translator, List.of("Tank", "Builder", "Tank"));
+
+        assertEquals(List.of("0=坦克", "1=建造者", "2=坦克", "success [坦克, 建造者, 坦克]"), events);
+        if (!translator.uncached.isEmpty()) fail("Remembered texts were sent to the model: " + translator.uncached);
+    }
+
+    @Test
+    public void partiallyRememberedBatch_deliversHitsThenMisses() throws Exception {
+        RememberingTranslator translator = new RememberingTranslator(Map.of("Tank", "坦克"));
+
+        List<String> events = translate(translator, List.of("Builder", "Tank"));
+
+        assertEquals(List.of("1=坦克", "0=new Builder", "success [new Builder, 坦克]"), events);
+        assertEquals(List.of(List.of("Builder")), translator.uncached);
+    }
+}
@@ -0,0 +1,135 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.eam.rwtranslator.utils.Translator;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ProviderSchedulerTest {
+    private final long[] now = {0};
+    // 手动执行的工作线程和定时器
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<Runnable> timers = new ArrayList<>();
+    private final ScheduledExecutorService timer = new ScheduledThreadPoolExecutor(1) {
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            delays.add(unit.toMillis(delay));
+            timers.add(command);
+            return null;
+        }
+    };
+    private final ProviderScheduler scheduler = new ProviderScheduler(pending::add, timer, () -> now[0]);
+
+    @Test
+    public void submit_capsConcurrencyPerProvider() {
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(Translator.PROVIDER_GOOGLE, null, () -> "x");
+        }
+        scheduler.submit(Translator.PROVIDER_BAIDU, null, () -> "y");
+
+        // Google并发4，百度并发1
+        assertEquals(5, pending.size());
+        assertEquals(1, scheduler.stats(Translator.PROVIDER_GOOGLE).queued());
+        assertEquals(4, scheduler.stats(Translator.PROVIDER_GOOGLE).running());
+    }
+
+    @Test
+    public void submit_roundRobinsAcrossGroups() throws Exception {
+        List<String> order = new ArrayList<>();
+        for (String name : List.of("a1", "a2", "a3")) {
+            scheduler.submit(Translator.PROVIDER_BAIDU, "a", () -> order.add(name));
+        }
+        for (String name : List.of("b1", "b2")) {
+            scheduler.submit(Translator.PROVIDER_BAIDU, "b", () -> order.add(name));
+        }
+
+        runAll();
+
+        // a1提交时立即发出，之后两个文件交替
+        assertEquals(List.of("a1", "a2", "b1", "a3", "b2"), order);
+    }
+
+    @Test
+    public void cancel_removesQueuedTask() throws Exception {
+        List<String> order = new ArrayList<>();
+        scheduler.submit(Translator.PROVIDER_BAIDU, null, () -> order.add("first"));
+        ListenableFuture<Boolean> second = scheduler.submit(Translator.PROVIDER_BAIDU, null, () -> order.add("second"));
+
+        second.cancel(false);
+        assertEquals(0, scheduler.stats(Translator.PROVIDER_BAIDU).queued());
+        runAll();
+
+        assertEquals(List.of("first"), order);
+    }
+
+    @Test
+    public void cancel_afterDispatchIsNotRecorded() throws Exception {
+        ListenableFuture<String> first = scheduler.submit(Translator.PROVIDER_GOOGLE, null, () -> "1");
+        scheduler.submit(Translator.PROVIDER_GOOGLE, null, () -> "2");
+
+        // 已交给工作线程但尚未执行时取消
+        first.cancel(false);
+        now[0] += 100;
+        runAll();
+
+        assertEquals(1, scheduler.stats(Translator.PROVIDER_GOOGLE).completed());
+        assertEquals(0, scheduler.stats(Translator.PROVIDER_GOOGLE).running());
+    }
+
+    @Test
+    public void submit_waitsForTokenBucket() throws Exception {
+        // 百度每秒1个请求
+        scheduler.submit(Translator.PROVIDER_BAIDU, null, () -> "1");
+        ListenableFuture<String> second = scheduler.submit(Translator.PROVIDER_BAIDU, null, () -> "2");
+        now[0] += 200;
+        pending.poll().run();
+
+        assertTrue(pending.isEmpty());
+        assertEquals(List.of(800L), delays);
+        now[0] += 800;
+        timers.get(0).run();
+        pending.poll().run();
+        assertEquals("2", second.get());
+    }
+
+    @Test
+    public void stats_reportsLatencyPercentiles() {
+        for (int i = 1; i <= 20; i++) {
+            long latency = i * 10L;
+            scheduler.submit("custom", null, () -> {
+                now[0] += latency;
+                return latency;
+            });
+            now[0] += 1000;
+            pending.poll().run();
+        }
+
+        ProviderScheduler.Stats stats = scheduler.stats("custom");
+        assertEquals(20, stats.completed());
+        assertEquals(100, stats.p50Millis());
+        assertEquals(190, stats.p95Millis());
+        assertTrue(stats.throughputPerSecond() > 0);
+    }
+
+    private void runAll() {
+        while (!pending.isEmpty() || !timers.isEmpty()) {
+            if (!pending.isEmpty()) {
+                pending.poll().run();
+            } else {
+                now[0] += delays.get(delays.size() - 1);
+                Runnable next = timers.remove(0);
+                next.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import org.junit.Test;
+
+public class SegmentBatcherTest {
+
+    @Test
+    public void pack_respectsCharAndSegmentLimits() {
+        SegmentBatcher.Limits limits = new SegmentBatcher.Limits(10, 2);
+        List<int[]> batches = SegmentBatcher.pack(List.of("aaaa", "bbbb", "cc", "dd", "eeeeeeeeeeee"), limits);
+
+        assertEquals(3, batches.size());
+        assertArrayEquals(new int[]{0, 1}, batches.get(0));
+        assertArrayEquals(new int[]{2, 3}, batches.get(1));
+        // 超过字符限制的文本单独发送
+        assertArrayEquals(new int[]{4}, batches.get(2));
+    }
+
+    @Test
+    public void pack_sendsMultilineAndBlankTextsAlone() {
+        List<int[]> batches = SegmentBatcher.pack(List.of("a", "b\nc", "d", " ", "e"), new SegmentBatcher.Limits(100, 10));
+
+        assertEquals(3, batches.size());
+        assertArrayEquals(new int[]{1}, batches.get(0));
+        assertArrayEquals(new int[]{3}, batches.get(1));
+        assertArrayEquals(new int[]{0, 2, 4}, batches.get(2));
+    }
+
+    @Test
+    public void split_returnsSegmentsOrNullOnMismatch() {
+        String joined = SegmentBatcher.join(List.of("a", "b", "c"));
+
+        assertEquals("a\nb\nc", joined);
+        assertEquals(List.of("A", "B", "C"), SegmentBatcher.split("A\r\n B\nC\n\n", 3));
+        assertNull(SegmentBatcher.split("A B\nC", 3));
+        assertNull(SegmentBatcher.split(null, 1));
+    }
+}
@@ -0,0 +1,44 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class StreamingTranslationParserTest {
+
+    @Test
+    public void feed_emitsEachItemAsSoonAsItCloses() {
+        StreamingTranslationParser parser = new StreamingTranslationParser(new Gson());
+        String json = "```json\n{\"translations\": [{\"index\": 0, \"translation\": \"坦克 {\\\"x\\\"}\"},"
+                + " {\"index\": 1, \"translation\": \"建造 [快速]\"}]}\n```";
+        List<String> emitted = new ArrayList<>();
+        List<Integer> emittedAt = new ArrayList<>();
+        // 逐字符输入，模拟最碎的分片
+        for (int i = 0; i < json.length(); i++) {
+            for (TranslationData.TranslationItem item : parser.feed(String.valueOf(json.charAt(i)))) {
+                emitted.add(item.index + ":" + item.translation);
+                emittedAt.add(i);
+            }
+        }
+
+        assertEquals(List.of("0:坦克 {\"x\"}", "1:建造 [快速]"), emitted);
+        // 第一条在第二条开始之前就已交付
+        assertTrue(emittedAt.get(0) < json.indexOf("\"index\": 1"));
+    }
+
+    @Test
+    public void feed_skipsMalformedItemAndKeepsGoing() {
+        StreamingTranslationParser parser = new StreamingTranslationParser(new Gson());
+        List<TranslationData.TranslationItem> items = new ArrayList<>();
+        items.addAll(parser.feed("{\"translations\":[{\"index\": oops},"));
+        items.addAll(parser.feed("{\"index\":1,\"translation\":\"好\"}]}"));
+
+        assertEquals(1, items.size());
+        assertEquals(1, items.get(0).index);
+        assertEquals("好", items.get(0).translation);
+    }
+}
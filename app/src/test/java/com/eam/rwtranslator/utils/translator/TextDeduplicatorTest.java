@@ -0,0 +1,25 @@
+package com.eam.rwtranslator.utils.translator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import org.junit.Test;
+
+public class TextDeduplicatorTest {
+
+    @Test
+    public void add_collapsesIdenticalTextsInFirstSeenOrder() {
+        TextDeduplicator<String> deduplicator = new TextDeduplicator<>();
+        assertEquals(0, deduplicator.add("Tank", "a.ini/core"));
+        assertEquals(1, deduplicator.add("Builds ", "a.ini/action"));
+        assertEquals(0, deduplicator.add("Tank", "b.ini/core"));
+        assertEquals(0, deduplicator.add("Tank", "c.ini/core"));
+
+        assertEquals(List.of("Tank", "Builds "), deduplicator.uniqueTexts());
+        assertEquals(List.of("a.ini/core", "b.ini/core", "c.ini/core"), deduplicator.occurrencesOf(0));
+        assertEquals(List.of("a.ini/action"), deduplicator.occurrencesOf(1));
+        assertEquals(4, deduplicator.totalCount());
+        assertEquals(2, deduplicator.duplicateCount());
+        assertEquals(List.of("Tank", "Tank"), deduplicator.duplicateTexts());
+    }
+}